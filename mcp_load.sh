@@ -0,0 +1,60 @@
+#!/bin/bash
+
+# MCP Server Load Comparison Script
+# Runs the same JSON-RPC load against the /mcp endpoint so the servlet (default) and the reactive
+# (profile "reactive") deployments can be compared. Start the server in one mode, run this script,
+# then restart it in the other mode and run it again. Rate limiting is disabled so that it does not
+# cap the throughput being measured:
+#
+#   mvn spring-boot:run -Dspring-boot.run.profiles=aws -Dspring-boot.run.arguments=--mcp.rate-limit.enabled=false
+#   mvn spring-boot:run -Dspring-boot.run.profiles=aws,reactive -Dspring-boot.run.arguments=--mcp.rate-limit.enabled=false
+#
+# Requires hey (https://github.com/rakyll/hey).
+#
+# Environment: SERVER_URL, REQUESTS (per scenario), CONCURRENCY, QUERY (SQL of the slow call)
+
+set -e
+
+SERVER_URL="${SERVER_URL:-http://localhost:8090/mcp}"
+REQUESTS="${REQUESTS:-2000}"
+CONCURRENCY="${CONCURRENCY:-200}"
+QUERY="${QUERY:-SELECT * FROM tpch.sf1.orders LIMIT 1000}"
+
+if ! command -v hey > /dev/null; then
+  echo "❌ hey is not installed (go install github.com/rakyll/hey@latest)"
+  exit 1
+fi
+
+echo "🚀 Load test against: $SERVER_URL ($REQUESTS requests, concurrency $CONCURRENCY)"
+
+HEADERS_FILE=$(mktemp)
+trap 'rm -f "$HEADERS_FILE"' EXIT
+curl -s -D "$HEADERS_FILE" -o /dev/null -X POST "$SERVER_URL" \
+  -H "Content-Type: application/json" \
+  -d '{"jsonrpc": "2.0", "id": "init", "method": "initialize", "params": {}}'
+SESSION_ID=$(grep -i '^Mcp-Session-Id:' "$HEADERS_FILE" | cut -d' ' -f2 | tr -d '\r')
+echo "Session: $SESSION_ID"
+
+run() {
+  local name="$1" accept="$2" body="$3"
+  echo
+  echo "📋 $name"
+  hey -n "$REQUESTS" -c "$CONCURRENCY" -m POST \
+    -H "Mcp-Session-Id: $SESSION_ID" -H "Accept: $accept" -T "application/json" \
+    -d "$body" "$SERVER_URL" | grep -E "Requests/sec|Average|Slowest|99%|Status code|\[[0-9]+\]"
+}
+
+# Cheap call: measures the transport overhead of each stack
+run "ping" "application/json" '{"jsonrpc": "2.0", "id": 1, "method": "ping", "params": {}}'
+
+# Slow Presto call: measures how many calls are in flight while each one holds a JDBC connection
+run "query_data (JSON)" "application/json" \
+  "{\"jsonrpc\": \"2.0\", \"id\": 2, \"method\": \"tools/call\", \"params\": {\"name\": \"query_data\", \"arguments\": {\"query\": \"$QUERY\"}}}"
+
+# Same call answered as Server-Sent Events
+run "query_data (SSE)" "text/event-stream" \
+  "{\"jsonrpc\": \"2.0\", \"id\": 3, \"method\": \"tools/call\", \"params\": {\"name\": \"query_data\", \"arguments\": {\"query\": \"$QUERY\"}}}"
+
+curl -s -o /dev/null -X DELETE "$SERVER_URL" -H "Mcp-Session-Id: $SESSION_ID"
+echo
+echo "✅ Load test finished"
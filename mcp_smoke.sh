@@ -17,7 +17,9 @@ echo
 
 # Test 1: Initialize
 echo "📋 Test 1: Initialize"
-INIT_RESPONSE=$(curl -s -X POST "$SERVER_URL" \
+HEADERS_FILE=$(mktemp)
+trap 'rm -f "$HEADERS_FILE"' EXIT
+INIT_RESPONSE=$(curl -s -D "$HEADERS_FILE" -X POST "$SERVER_URL" \
   -H "Content-Type: application/json" \
   -d "{
     \"jsonrpc\": \"2.0\",
@@ -27,6 +29,8 @@ INIT_RESPONSE=$(curl -s -X POST "$SERVER_URL" \
   }")
 
 echo "Response: $INIT_RESPONSE"
+SESSION_ID=$(grep -i '^Mcp-Session-Id:' "$HEADERS_FILE" | cut -d' ' -f2 | tr -d '\r')
+echo "Session: $SESSION_ID"
 
 # Check if initialize was successful
 if echo "$INIT_RESPONSE" | grep -q "2024-11-05" && echo "$INIT_RESPONSE" | grep -q "protocolVersion"; then
@@ -41,6 +45,7 @@ echo
 echo "📋 Test 2: Ping"
 PING_RESPONSE=$(curl -s -X POST "$SERVER_URL" \
   -H "Content-Type: application/json" \
+  -H "Mcp-Session-Id: $SESSION_ID" \
   -d "{
     \"jsonrpc\": \"2.0\",
     \"id\": \"$PING_ID\",
@@ -128,5 +133,17 @@ else
 fi
 echo
 
+# Test 6: End the session
+echo "📋 Test 6: Close session"
+DELETE_STATUS=$(curl -s -o /dev/null -w "%{http_code}" -X DELETE "$SERVER_URL" -H "Mcp-Session-Id: $SESSION_ID")
+if [ "$DELETE_STATUS" = "204" ]; then
+  echo "✅ Close session test PASSED"
+else
+  echo "❌ Close session test FAILED (status $DELETE_STATUS)"
+  exit 1
+fi
+echo
+
 echo "🎉 All smoke tests PASSED!"
-echo "✨ MCP Server is working correctly!"
\ No newline at end of file
+echo "✨ MCP Server is working correctly!"
+
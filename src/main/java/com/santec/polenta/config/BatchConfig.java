@@ -0,0 +1,49 @@
+package com.santec.polenta.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuration of JSON-RPC batch requests on the /mcp endpoint.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "mcp.batch")
+@Data
+public class BatchConfig {
+
+    /** Maximum number of requests accepted in a single batch */
+    private int maxSize = 50;
+
+    /** Maximum number of calls of one batch executed at the same time */
+    private int maxConcurrency = 4;
+
+    /** Threads shared by all batches to run their calls */
+    private int poolSize = 16;
+
+    /** Batch calls waiting for a pool thread; beyond it a batch runs the rest of its calls on the request thread */
+    private int queueCapacity = 64;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService mcpBatchExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "mcp-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        return new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, queue, threadFactory);
+    }
+}
@@ -0,0 +1,49 @@
+package com.santec.polenta.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of response compression (gzip and zstd) on the MCP endpoints. The reactive mode
+ * compresses with the server's own {@code server.compression} instead.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConfigurationProperties(prefix = "mcp.compression")
+@Data
+public class CompressionConfig {
+
+    private boolean enabled = true;
+
+    /** Responses smaller than this many bytes are sent uncompressed */
+    private int minResponseSize = 2048;
+
+    /** Compression level used for gzip (1-9) */
+    private int gzipLevel = 6;
+
+    /** Compression level used for zstd (1-22) */
+    private int zstdLevel = 3;
+
+    /** Content types eligible for compression (prefix match) */
+    private List<String> mimeTypes = new ArrayList<>(List.of(
+            "application/json", "application/x-ndjson", "application/cbor", "application/x-jackson-smile", "text/"));
+
+    @Bean
+    public FilterRegistrationBean<CompressionFilter> compressionFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<CompressionFilter> registration =
+                new FilterRegistrationBean<>(new CompressionFilter(this, meterRegistry));
+        registration.addUrlPatterns("/mcp", "/mcp/*");
+        registration.setEnabled(enabled);
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 10);
+        return registration;
+    }
+}
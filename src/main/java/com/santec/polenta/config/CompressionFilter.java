@@ -0,0 +1,426 @@
+package com.santec.polenta.config;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses responses with zstd or gzip, as negotiated through {@code Accept-Encoding} (zstd is
+ * preferred when the client accepts both).
+ *
+ * <p>The first {@code mcp.compression.min-response-size} bytes are held back: a response that ends
+ * within them goes out uncompressed with its length, a larger one switches to the compressor and the
+ * rest of the body is compressed as it is written, without buffering it. Content types outside
+ * {@code mcp.compression.mime-types}, event streams and responses that already carry a
+ * {@code Content-Encoding} are passed through untouched.
+ *
+ * <p>For every compressed response the ratio (original / compressed bytes) is recorded in
+ * {@code mcp.compression.ratio} and the CPU time spent compressing in {@code mcp.compression.cpu},
+ * both tagged with the encoding.
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompressionFilter.class);
+
+    static final String ZSTD = "zstd";
+    static final String GZIP = "gzip";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final CompressionConfig config;
+    private final DistributionSummary gzipRatio;
+    private final DistributionSummary zstdRatio;
+    private final Timer gzipCpu;
+    private final Timer zstdCpu;
+
+    public CompressionFilter(CompressionConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.gzipRatio = ratio(GZIP, meterRegistry);
+        this.zstdRatio = ratio(ZSTD, meterRegistry);
+        this.gzipCpu = cpu(GZIP, meterRegistry);
+        this.zstdCpu = cpu(ZSTD, meterRegistry);
+    }
+
+    private static DistributionSummary ratio(String encoding, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("mcp.compression.ratio")
+                .description("Original size divided by compressed size of compressed responses")
+                .tag("encoding", encoding)
+                .register(meterRegistry);
+    }
+
+    private static Timer cpu(String encoding, MeterRegistry meterRegistry) {
+        return Timer.builder("mcp.compression.cpu")
+                .description("CPU time spent compressing a response")
+                .tag("encoding", encoding)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null || "HEAD".equals(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        CompressingResponse compressing = new CompressingResponse(response, encoding);
+        try {
+            chain.doFilter(request, compressing);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) throws IOException {
+                        compressing.finish();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                compressing.finish();
+            }
+        }
+    }
+
+    /**
+     * Picks the encoding for an {@code Accept-Encoding} header, or {@code null} for identity.
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        boolean gzip = false;
+        boolean zstd = false;
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        accepted = Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (coding.equals(ZSTD)) {
+                zstd = accepted;
+            } else if (coding.equals(GZIP)) {
+                gzip = accepted;
+            }
+        }
+        return zstd ? ZSTD : gzip ? GZIP : null;
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null || contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE)) {
+            return false;
+        }
+        for (String mimeType : config.getMimeTypes()) {
+            if (contentType.startsWith(mimeType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum State { PENDING, PLAIN, COMPRESSED }
+
+    private final class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final String encoding;
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private State state = State.PENDING;
+        private long contentLength = -1;
+        private boolean finished;
+
+        private ServletOutputStream stream;
+        private PrintWriter writer;
+        private CountingOutputStream compressedOut;
+        private OutputStream compressor;
+        private long originalBytes;
+        private long cpuNanos;
+
+        CompressingResponse(HttpServletResponse response, String encoding) {
+            super(response);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (stream == null) {
+                stream = new CompressingStream();
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (state == State.PLAIN) {
+                super.setContentLengthLong(length);
+            } else {
+                contentLength = length;
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (state != State.PENDING) {
+                getOutputStream().flush();
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            pending.reset();
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            pending.reset();
+            contentLength = -1;
+            super.reset();
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            if (state == State.PENDING) {
+                if (pending.size() == 0 && !eligible()) {
+                    plain();
+                } else {
+                    pending.write(bytes, offset, length);
+                    if (pending.size() >= config.getMinResponseSize()) {
+                        compress();
+                    }
+                    return;
+                }
+            }
+            if (state == State.PLAIN) {
+                getResponse().getOutputStream().write(bytes, offset, length);
+            } else {
+                compressed(bytes, offset, length);
+            }
+        }
+
+        private boolean eligible() {
+            return getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                    && isCompressible(getContentType())
+                    && (contentLength < 0 || contentLength >= config.getMinResponseSize());
+        }
+
+        private void plain() throws IOException {
+            state = State.PLAIN;
+            if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+            if (pending.size() > 0) {
+                getResponse().getOutputStream().write(pending.toByteArray());
+                pending.reset();
+            }
+        }
+
+        private void compress() throws IOException {
+            state = State.COMPRESSED;
+            super.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+            compressedOut = new CountingOutputStream(getResponse().getOutputStream());
+            if (encoding.equals(ZSTD)) {
+                compressor = new ZstdOutputStream(compressedOut, config.getZstdLevel());
+            } else {
+                compressor = new GZIPOutputStream(compressedOut, 8192, true) {
+                    {
+                        def.setLevel(config.getGzipLevel());
+                    }
+                };
+            }
+            byte[] buffered = pending.toByteArray();
+            pending.reset();
+            compressed(buffered, 0, buffered.length);
+        }
+
+        private void compressed(byte[] bytes, int offset, int length) throws IOException {
+            long start = cpuTime();
+            compressor.write(bytes, offset, length);
+            cpuNanos += cpuTime() - start;
+            originalBytes += length;
+        }
+
+        private void flush() throws IOException {
+            if (state == State.COMPRESSED) {
+                long start = cpuTime();
+                compressor.flush();
+                cpuNanos += cpuTime() - start;
+            } else if (state == State.PLAIN) {
+                getResponse().getOutputStream().flush();
+            }
+        }
+
+        /**
+         * Sends what is still held back, uncompressed if the response stayed under the threshold.
+         */
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (writer != null) {
+                writer.flush();
+            }
+            if (state == State.PENDING) {
+                if (!getResponse().isCommitted() && contentLength < 0) {
+                    super.setContentLengthLong(pending.size());
+                }
+                plain();
+            } else if (state == State.COMPRESSED) {
+                long start = cpuTime();
+                compressor.close();
+                cpuNanos += cpuTime() - start;
+                boolean zstd = encoding.equals(ZSTD);
+                (zstd ? zstdCpu : gzipCpu).record(cpuNanos, TimeUnit.NANOSECONDS);
+                if (compressedOut.count > 0) {
+                    (zstd ? zstdRatio : gzipRatio).record((double) originalBytes / compressedOut.count);
+                }
+                logger.debug("Compressed response with {}: {} -> {} bytes", encoding, originalBytes, compressedOut.count);
+            }
+        }
+
+        private final class CompressingStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                CompressingResponse.this.write(bytes, offset, length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                CompressingResponse.this.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException("Non-blocking writes are not supported on compressed responses");
+            }
+        }
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Counts the compressed bytes; closing it only flushes so the servlet stream stays open.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
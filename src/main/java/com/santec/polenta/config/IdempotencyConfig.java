@@ -0,0 +1,28 @@
+package com.santec.polenta.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the replay cache answering retried tools/call requests.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "mcp.idempotency")
+@Data
+public class IdempotencyConfig {
+
+    private boolean enabled = true;
+
+    /** Time a finished call can be replayed for, in milliseconds */
+    private long ttlMs = 120000;
+
+    /** Maximum number of calls kept; storing one more drops the oldest */
+    private int maxEntries = 1000;
+
+    /** Calls returning more rows than this are not stored */
+    private int maxRows = 1000;
+
+    /** Time a retry waits for the call still in flight before being answered busy, in milliseconds; keep it at or above presto.query-timeout */
+    private long inFlightWaitMs = 60000;
+}
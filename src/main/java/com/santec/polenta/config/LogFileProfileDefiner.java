@@ -0,0 +1,21 @@
+package com.santec.polenta.config;
+
+import ch.qos.logback.core.PropertyDefinerBase;
+import ch.qos.logback.core.util.OptionHelper;
+
+/**
+ * Logback property holding a {@code <springProfile>} expression that matches any profiles when Boot has
+ * set {@code LOG_FILE} ({@code logging.file.name} or {@code logging.file.path}) and none otherwise, so
+ * that the file appender is only configured when there is a file to write. It stands in for an
+ * {@code <if>} on {@code LOG_FILE}, which needs Janino on the classpath.
+ */
+public class LogFileProfileDefiner extends PropertyDefinerBase {
+
+    static final String ALWAYS = "default | !default";
+    static final String NEVER = "default & !default";
+
+    @Override
+    public String getPropertyValue() {
+        return OptionHelper.propertyLookup("LOG_FILE", getContext(), null) != null ? ALWAYS : NEVER;
+    }
+}
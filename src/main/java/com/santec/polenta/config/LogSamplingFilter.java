@@ -0,0 +1,72 @@
+package com.santec.polenta.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logback turbo filter keeping only a fraction of the INFO and lower events of the configured
+ * loggers. It runs before the message is formatted, so dropped events cost a random number; WARN
+ * and ERROR always pass.
+ *
+ * <p>Configured with {@code <samples>} as comma separated {@code logger=rate} pairs, the rate between
+ * 0 and 1: {@code com.santec.polenta.service.PrestoService=0.1} keeps one event in ten. A logger
+ * inherits the rate of its closest configured ancestor; loggers without one are not sampled.
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    private static final double UNSAMPLED = 1.0;
+
+    private final Map<String, Double> configured = new HashMap<>();
+    private final Map<String, Double> rates = new ConcurrentHashMap<>();
+
+    public void setSamples(String samples) {
+        for (String sample : samples.split(",")) {
+            if (sample.isBlank()) {
+                continue;
+            }
+            int separator = sample.lastIndexOf('=');
+            if (separator < 0) {
+                addError("Invalid sample '" + sample + "', expected logger=rate");
+                continue;
+            }
+            configured.put(sample.substring(0, separator).trim(),
+                    Double.parseDouble(sample.substring(separator + 1).trim()));
+        }
+        rates.clear();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.WARN) || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        double rate = rates.computeIfAbsent(logger.getName(), this::rateFor);
+        if (rate >= UNSAMPLED || ThreadLocalRandom.current().nextDouble() < rate) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    private double rateFor(String loggerName) {
+        String name = loggerName;
+        while (true) {
+            Double rate = configured.get(name);
+            if (rate != null) {
+                return rate;
+            }
+            int dot = name.lastIndexOf('.');
+            if (dot < 0) {
+                return UNSAMPLED;
+            }
+            name = name.substring(0, dot);
+        }
+    }
+}
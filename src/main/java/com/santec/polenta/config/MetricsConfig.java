@@ -0,0 +1,116 @@
+package com.santec.polenta.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.service.IntentCache;
+import com.santec.polenta.service.MetadataCacheService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Metrics shared by the MCP hot paths, exported through Actuator (and {@code /actuator/prometheus}).
+ *
+ * <p>Latency timers publish a histogram and the 50th, 95th and 99th percentiles; SLO buckets can be
+ * added per timer with {@code management.metrics.distribution.slo.<name>}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    /**
+     * Builder of a latency timer with histogram and percentiles.
+     */
+    public static Timer.Builder latencyTimer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram();
+    }
+
+    /**
+     * Timer of the response bodies serialized by a transport, {@code mcp.response.serialization} tagged
+     * {@code transport}. It is the only measure of that step: the {@code timings} of a tool result are
+     * part of the body, so they are taken before it is serialized.
+     */
+    public static Timer serializationTimer(String transport, MeterRegistry meterRegistry) {
+        return latencyTimer("mcp.response.serialization", "Time to serialize and write a response body")
+                .tag("transport", transport)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hit and miss counters of the intent and metadata caches, as {@code mcp.cache.requests} tagged
+     * by {@code cache} and {@code result}, and their hit ratio as {@code mcp.cache.hit.ratio}.
+     */
+    @Bean
+    public MeterBinder cacheMetrics(IntentCache intentCache, MetadataCacheService metadataCacheService) {
+        return registry -> {
+            bindCache(registry, "intent", intentCache, IntentCache::getHits, IntentCache::getMisses);
+            bindCache(registry, "metadata", metadataCacheService,
+                    MetadataCacheService::getHits, MetadataCacheService::getMisses);
+        };
+    }
+
+    private static <T> void bindCache(MeterRegistry registry, String cache, T source,
+                                      ToLongFunction<T> hits, ToLongFunction<T> misses) {
+        FunctionCounter.builder("mcp.cache.requests", source, s -> hits.applyAsLong(s))
+                .description("Cache lookups")
+                .tags("cache", cache, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("mcp.cache.requests", source, s -> misses.applyAsLong(s))
+                .description("Cache lookups")
+                .tags("cache", cache, "result", "miss")
+                .register(registry);
+        Gauge.builder("mcp.cache.hit.ratio", source, s -> {
+                    long hit = hits.applyAsLong(s);
+                    long total = hit + misses.applyAsLong(s);
+                    return total == 0 ? Double.NaN : (double) hit / total;
+                })
+                .description("Fraction of cache lookups that hit, since startup")
+                .tag("cache", cache)
+                .register(registry);
+    }
+
+    /**
+     * Replaces Boot's JSON converter of the servlet stack with one timing the bodies it writes.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   MeterRegistry meterRegistry) {
+        return new TimedJsonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+
+    /**
+     * Replaces the JSON encoder of the reactive stack with one timing the values it encodes.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public CodecCustomizer timedJsonEncoder(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return configurer -> configurer.defaultCodecs()
+                .jackson2JsonEncoder(new TimedJackson2JsonEncoder(objectMapper, meterRegistry));
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ResponseSizeFilter> responseSizeFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ResponseSizeFilter> registration =
+                new FilterRegistrationBean<>(new ResponseSizeFilter(meterRegistry));
+        registration.addUrlPatterns("/mcp", "/mcp/*");
+        // Inside the compression filter, so sizes are measured before compression.
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -42,6 +42,9 @@ public class PrestoConfig {
     /** Delay in milliseconds before retrying a failed query */
     private long retryBackoffMs = 1000L;
 
+    /** Interval in milliseconds between progress reports of a running query (the first comes after one interval) */
+    private long progressIntervalMs = 1000L;
+
 
     @Bean
     public DataSource dataSource() {
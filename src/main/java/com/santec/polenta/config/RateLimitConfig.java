@@ -0,0 +1,46 @@
+package com.santec.polenta.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the per-session rate limits of tool calls.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "mcp.rate-limit")
+@Data
+public class RateLimitConfig {
+
+    private boolean enabled = true;
+
+    /** Limit of the tools without an entry in {@link #tools} */
+    private Limit defaults = new Limit(60, 20);
+
+    /** Limits by tool name */
+    private Map<String, Limit> tools = new HashMap<>(Map.of("query_data", new Limit(10, 2)));
+
+    /** Clients without a session tracked at the same time; the least recently seen is dropped beyond this */
+    private int maxAnonymousClients = 10000;
+
+    @Data
+    public static class Limit {
+
+        /** Calls allowed in a burst (0 disables the limit) */
+        private int capacity;
+
+        /** Calls per second allowed once the burst is spent */
+        private double refillPerSecond;
+
+        public Limit() {
+        }
+
+        public Limit(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.santec.polenta.config;
+
+import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Configuration of the reactive deployment mode (profile {@code reactive}), in which the /mcp endpoint
+ * runs on WebFlux and the blocking JDBC work is confined to a bounded elastic scheduler.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConfigurationProperties(prefix = "mcp.reactive")
+@Data
+public class ReactiveConfig {
+
+    /** Threads of the scheduler running dispatch and JDBC calls, off the event loop */
+    private int jdbcThreads = 32;
+
+    /** Calls waiting for a scheduler thread; further calls are rejected as busy */
+    private int jdbcQueueSize = 1000;
+
+    /** Seconds an idle scheduler thread is kept alive */
+    private int jdbcKeepAliveSeconds = 60;
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler mcpJdbcScheduler() {
+        return Schedulers.newBoundedElastic(jdbcThreads, jdbcQueueSize, "mcp-jdbc", jdbcKeepAliveSeconds, true);
+    }
+}
@@ -0,0 +1,152 @@
+package com.santec.polenta.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Records the size of the bytes written for every MCP response, before compression, in
+ * {@code mcp.response.bytes} tagged {@code type} ({@code json} or {@code sse}). Event streams are
+ * recorded when they complete.
+ */
+public class ResponseSizeFilter extends OncePerRequestFilter {
+
+    private final DistributionSummary jsonBytes;
+    private final DistributionSummary sseBytes;
+
+    public ResponseSizeFilter(MeterRegistry meterRegistry) {
+        this.jsonBytes = bytes("json", meterRegistry);
+        this.sseBytes = bytes("sse", meterRegistry);
+    }
+
+    private static DistributionSummary bytes(String type, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("mcp.response.bytes")
+                .description("Bytes written per MCP response, before compression")
+                .baseUnit("bytes")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CountingResponse counting = new CountingResponse(response);
+        try {
+            chain.doFilter(request, counting);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        counting.record();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                counting.record();
+            }
+        }
+    }
+
+    private final class CountingResponse extends HttpServletResponseWrapper {
+
+        private ServletOutputStream stream;
+        private PrintWriter writer;
+        private long count;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                ServletOutputStream out = getResponse().getOutputStream();
+                stream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                        count++;
+                    }
+
+                    @Override
+                    public void write(byte[] bytes, int offset, int length) throws IOException {
+                        out.write(bytes, offset, length);
+                        count += length;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        out.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        out.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return out.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        out.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            super.flushBuffer();
+        }
+
+        void record() {
+            if (writer != null) {
+                writer.flush();
+            }
+            String contentType = getContentType();
+            boolean sse = contentType != null && contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+            (sse ? sseBytes : jsonBytes).record(count);
+        }
+    }
+}
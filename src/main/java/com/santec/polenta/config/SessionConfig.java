@@ -0,0 +1,23 @@
+package com.santec.polenta.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the MCP session store.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "mcp.sessions")
+@Data
+public class SessionConfig {
+
+    /** Time without requests after which a session expires, in milliseconds */
+    private long ttlMs = 1800000;
+
+    /** Maximum number of live sessions; creating one more evicts the least recently used */
+    private int maxSessions = 10000;
+
+    /** Interval between sweeps of expired sessions, in milliseconds (0 disables the sweeper) */
+    private long sweepIntervalMs = 60000;
+}
@@ -0,0 +1,25 @@
+package com.santec.polenta.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the slow tool call log exposed at {@code /actuator/slowqueries}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "mcp.slow-queries")
+@Data
+public class SlowQueryConfig {
+
+    private boolean enabled = true;
+
+    /** Tool calls taking at least this many milliseconds are logged */
+    private long thresholdMs = 1000;
+
+    /** Number of most recent slow calls kept */
+    private int recentCapacity = 100;
+
+    /** Number of slowest calls kept since startup (or the last reset) */
+    private int slowestCapacity = 20;
+}
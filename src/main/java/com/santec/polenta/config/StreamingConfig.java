@@ -0,0 +1,49 @@
+package com.santec.polenta.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuration of Server-Sent Events responses on the /mcp endpoint.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "mcp.streaming")
+@Data
+public class StreamingConfig {
+
+    /** Rows sent in each row chunk notification */
+    private int chunkSize = 500;
+
+    /** Time after which an unfinished stream is closed, in milliseconds */
+    private long timeoutMs = 300000;
+
+    /** Threads running streamed calls, which hold their JDBC cursor while the client reads */
+    private int poolSize = 8;
+
+    /** Streamed calls waiting for a thread; beyond it calls are answered "Server busy" */
+    private int queueCapacity = 32;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService mcpStreamingExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "mcp-stream-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        return new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, queue, threadFactory);
+    }
+}
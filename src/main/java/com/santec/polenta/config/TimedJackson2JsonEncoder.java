@@ -0,0 +1,38 @@
+package com.santec.polenta.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JSON encoder of the reactive stack, timing the encoding of each value (a response body or a
+ * Server-Sent Event) in {@code mcp.response.serialization} tagged {@code transport=reactive}.
+ */
+public class TimedJackson2JsonEncoder extends Jackson2JsonEncoder {
+
+    private final Timer serialization;
+
+    public TimedJackson2JsonEncoder(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(objectMapper);
+        this.serialization = MetricsConfig.serializationTimer("reactive", meterRegistry);
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        long start = System.nanoTime();
+        try {
+            return super.encodeValue(value, bufferFactory, valueType, mimeType, hints);
+        } finally {
+            serialization.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
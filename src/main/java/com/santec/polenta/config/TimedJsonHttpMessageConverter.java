@@ -0,0 +1,36 @@
+package com.santec.polenta.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JSON converter of the servlet stack, timing each body it writes (JSON responses and the events of
+ * Server-Sent Events streams) in {@code mcp.response.serialization} tagged {@code transport=http}. The
+ * time covers serialization and the write to the response stream.
+ */
+public class TimedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final Timer serialization;
+
+    public TimedJsonHttpMessageConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(objectMapper);
+        this.serialization = MetricsConfig.serializationTimer("http", meterRegistry);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            serialization.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.santec.polenta.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration of MCP tool calls and the executors running them.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "mcp.tools")
+@Data
+public class ToolsConfig {
+
+    /** Overrides of the bulkhead declared by each tool's @McpToolHandler, by tool name */
+    private Map<String, Bulkhead> bulkheads = new HashMap<>();
+
+    /** Runs each call on the calling thread, within the same limits, instead of on a tool worker */
+    private boolean runOnCaller;
+
+    /** Largest encoded query_data result (format other than json) kept in memory, before base64 */
+    private long maxPayloadBytes = 32L * 1024 * 1024;
+
+    @Data
+    public static class Bulkhead {
+
+        /** Calls of the tool executed at the same time */
+        private Integer maxConcurrency;
+
+        /** Calls waiting for a free worker before new ones are rejected */
+        private Integer queueCapacity;
+    }
+}
@@ -0,0 +1,145 @@
+package com.santec.polenta.controller;
+
+import com.santec.polenta.service.QueryProgress;
+import com.santec.polenta.service.RowSink;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends query rows to the client in chunks as they are read from the cursor, as JSON-RPC notifications
+ * written by the subclass to its stream.
+ *
+ * <p>Every chunk goes out as a {@code notifications/rows} JSON-RPC notification carrying the id
+ * of the request it belongs to; the first chunk also carries the column names, and it is sent
+ * even when the query returns no rows. When the client supplied a {@code progressToken}, each
+ * chunk is followed by a {@code notifications/progress} notification with the rows sent so far.
+ * If Presto reports how far along the query is before the first of them, the stream reports that
+ * percentage instead (with a {@code total} of 100), both while the query runs and after each chunk.
+ * The unit picked by the first notification is kept for the whole stream and a value not above the
+ * last one sent is skipped, so progress only increases; the message describes the rows sent and the
+ * Presto stats.
+ * If the client goes away the send fails with an {@link SQLException}, which aborts the query.
+ */
+abstract class ChunkedRowSink implements RowSink {
+
+    private final Object requestId;
+    private final Object progressToken;
+    private final int chunkSize;
+
+    private String[] labels;
+    private List<Map<String, Object>> chunk = new ArrayList<>();
+    private int chunks;
+    private long rowsSent;
+    private QueryProgress queryProgress;
+    /** Whether the stream reports a percentage rather than rows, fixed by its first notification */
+    private boolean percentage;
+    private double progressSent = -1;
+
+    ChunkedRowSink(Object requestId, Object progressToken, int chunkSize) {
+        this.requestId = requestId;
+        this.progressToken = progressToken;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void start(ResultSetMetaData metaData) throws SQLException {
+        labels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+        }
+    }
+
+    @Override
+    public void row(ResultSet resultSet) throws SQLException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            row.put(labels[i], resultSet.getObject(i + 1));
+        }
+        chunk.add(row);
+        if (chunk.size() >= chunkSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void end(long rowCount) throws SQLException {
+        if (!chunk.isEmpty() || chunks == 0) {
+            flush();
+        }
+    }
+
+    @Override
+    public void progress(QueryProgress progress) throws SQLException {
+        if (progress.hasPercentage()) {
+            queryProgress = progress;
+            sendProgress();
+        }
+    }
+
+    int getChunks() {
+        return chunks;
+    }
+
+    private void flush() throws SQLException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("requestId", requestId);
+        params.put("chunk", chunks);
+        if (chunks == 0) {
+            params.put("columns", List.of(labels));
+        }
+        params.put("rows", chunk);
+        send(notification("notifications/rows", params));
+        chunks++;
+        rowsSent += chunk.size();
+        chunk = new ArrayList<>(chunkSize);
+        sendProgress();
+    }
+
+    private void sendProgress() throws SQLException {
+        if (progressToken == null) {
+            return;
+        }
+        if (progressSent < 0) {
+            percentage = queryProgress != null;
+        }
+        double value = percentage ? queryProgress.percentage() : rowsSent;
+        if (value <= progressSent) {
+            return;
+        }
+        progressSent = value;
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("progressToken", progressToken);
+        if (percentage) {
+            progress.put("progress", value);
+            progress.put("total", 100);
+            progress.put("message", (rowsSent > 0 ? rowsSent + " rows sent, " : "") + queryProgress.describe());
+        } else {
+            progress.put("progress", rowsSent);
+            progress.put("message", rowsSent + " rows sent"
+                    + (queryProgress != null ? ", " + queryProgress.describe() : ""));
+        }
+        send(notification("notifications/progress", progress));
+    }
+
+    /**
+     * Writes one JSON-RPC message to the stream.
+     *
+     * @throws SQLException if the client stopped reading, to abort the query
+     */
+    protected abstract void send(Map<String, Object> message) throws SQLException;
+
+    private static Map<String, Object> notification(String method, Map<String, Object> params) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", method);
+        notification.put("params", params);
+        return notification;
+    }
+}
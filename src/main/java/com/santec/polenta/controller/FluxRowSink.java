@@ -0,0 +1,81 @@
+package com.santec.polenta.controller;
+
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.FluxSink;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends query rows to a reactive Server-Sent Events stream in chunks as they are read from the cursor.
+ *
+ * <p>The cursor is read on a scheduler thread, which waits for the subscriber to request more events
+ * before each one: a slow client holds the cursor back instead of filling a buffer. The wait is
+ * bounded by the stream timeout, and a cancelled or closed stream aborts the query.
+ *
+ * @see ChunkedRowSink
+ */
+class FluxRowSink extends ChunkedRowSink {
+
+    private final FluxSink<ServerSentEvent<Object>> sink;
+    private final long timeoutMs;
+    private final Object demand = new Object();
+    private volatile boolean disposed;
+
+    FluxRowSink(FluxSink<ServerSentEvent<Object>> sink, Object requestId, Object progressToken, int chunkSize,
+                long timeoutMs) {
+        super(requestId, progressToken, chunkSize);
+        this.sink = sink;
+        this.timeoutMs = timeoutMs;
+        sink.onRequest(n -> signal());
+        sink.onDispose(() -> {
+            disposed = true;
+            signal();
+        });
+    }
+
+    @Override
+    protected void send(Map<String, Object> message) throws SQLException {
+        awaitDemand();
+        sink.next(message(message));
+    }
+
+    boolean isDisposed() {
+        return disposed;
+    }
+
+    private void awaitDemand() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (demand) {
+            while (!disposed && sink.requestedFromDownstream() == 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    throw new SQLException("Client stopped reading the result stream");
+                }
+                try {
+                    demand.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for the client to read", e);
+                }
+            }
+        }
+        if (disposed) {
+            throw new SQLException("Client stopped reading the result stream");
+        }
+    }
+
+    private void signal() {
+        synchronized (demand) {
+            demand.notifyAll();
+        }
+    }
+
+    /**
+     * Wraps a JSON-RPC message in an SSE "message" event, as the MCP Streamable HTTP transport expects.
+     */
+    static ServerSentEvent<Object> message(Object message) {
+        return ServerSentEvent.builder(message).event("message").build();
+    }
+}
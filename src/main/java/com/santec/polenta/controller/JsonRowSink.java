@@ -0,0 +1,182 @@
+package com.santec.polenta.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.service.JsonRowWriter;
+import com.santec.polenta.service.PayloadSink;
+import com.santec.polenta.service.ResultFormat;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a JSON-RPC response whose rows go from the JDBC cursor to the servlet output stream.
+ *
+ * <p>Nothing is written until the query returns its first result: {@link #start} opens the envelope
+ * and the result's {@code data} array, every row is written as it is read, and {@link #finish} adds
+ * the remaining result fields (row count, message, ...) once the tool call has returned them. If the
+ * sink never started, the caller sends its response the usual way. Once started the status and
+ * envelope are committed, so a failure while reading rows can only be reported inside the result.
+ *
+ * <p>An encoded result ({@code format} other than JSON) goes the same way: {@link #startPayload} opens
+ * the result's {@code payload} string and the bytes are base64-encoded into it as they are produced.
+ */
+class JsonRowSink implements PayloadSink {
+
+    /** Nesting depth of the "result" object inside the JSON-RPC envelope */
+    private static final int RESULT_DEPTH = 2;
+
+    private static final Set<String> STREAMED_RESULT_FIELDS = Set.of("data", "payload", "streamed");
+    private static final Set<String> ENVELOPE_HEAD_FIELDS = Set.of("jsonrpc", "id", "result", "error");
+
+    private final HttpServletResponse response;
+    private final ObjectMapper objectMapper;
+    private final Object requestId;
+
+    private JsonGenerator generator;
+    private JsonRowWriter rowWriter;
+    private OutputStream payload;
+
+    JsonRowSink(HttpServletResponse response, ObjectMapper objectMapper, Object requestId) {
+        this.response = response;
+        this.objectMapper = objectMapper;
+        this.requestId = requestId;
+    }
+
+    boolean isStarted() {
+        return generator != null;
+    }
+
+    @Override
+    public void start(ResultSetMetaData metaData) throws SQLException {
+        rowWriter = JsonRowWriter.forMetaData(metaData);
+        try {
+            openResult();
+            generator.writeArrayFieldStart("data");
+        } catch (IOException e) {
+            throw new SQLException("Could not write the response", e);
+        }
+    }
+
+    @Override
+    public OutputStream startPayload(ResultFormat format) throws SQLException {
+        try {
+            openResult();
+            generator.writeFieldName("payload");
+            // Base64 needs no escaping: the string is written raw, its closing quote in finish.
+            generator.writeRawValue("\"");
+        } catch (IOException e) {
+            throw new SQLException("Could not write the response", e);
+        }
+        payload = Base64.getEncoder().wrap(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                generator.writeRaw((char) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                generator.writeRaw(new String(b, off, len, StandardCharsets.ISO_8859_1));
+            }
+        });
+        return payload;
+    }
+
+    private void openResult() throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.writeStartObject();
+        generator.writeStringField("jsonrpc", "2.0");
+        generator.writeFieldName("id");
+        generator.writeObject(requestId);
+        generator.writeObjectFieldStart("result");
+    }
+
+    @Override
+    public void row(ResultSet resultSet) throws SQLException {
+        try {
+            rowWriter.writeRow(resultSet, generator);
+        } catch (IOException e) {
+            throw new SQLException("Client stopped reading the response", e);
+        }
+    }
+
+    @Override
+    public void end(long rowCount) throws SQLException {
+        try {
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new SQLException("Client stopped reading the response", e);
+        }
+    }
+
+    /**
+     * Completes the response started by {@link #start} with the fields of the JSON-RPC response
+     * built after the rows were written. The envelope already holds a {@code result}, so an error
+     * response (the call failed after the rows started) is reported inside it as {@code status: error}
+     * with its code and message, and the JSON-RPC {@code error} is dropped.
+     */
+    void finish(Map<String, Object> jsonRpcResponse) throws IOException {
+        if (payload != null) {
+            // Writes the last base64 quantum, if the encoder did not close the stream after a failure.
+            payload.close();
+            generator.writeRaw('"');
+        }
+        // If the query failed before the end of the cursor, close the row and array left open.
+        while (depth() > RESULT_DEPTH) {
+            if (generator.getOutputContext().inArray()) {
+                generator.writeEndArray();
+            } else {
+                generator.writeEndObject();
+            }
+        }
+        if (jsonRpcResponse.get("result") instanceof Map<?, ?> result) {
+            for (Map.Entry<?, ?> field : result.entrySet()) {
+                if (!STREAMED_RESULT_FIELDS.contains(field.getKey())) {
+                    generator.writeFieldName(String.valueOf(field.getKey()));
+                    generator.writeObject(field.getValue());
+                }
+            }
+        } else if (jsonRpcResponse.get("error") instanceof Map<?, ?> error) {
+            Object message = error.get("data") instanceof Map<?, ?> data && data.get("message") != null
+                    ? data.get("message") : error.get("message");
+            generator.writeStringField("status", "error");
+            generator.writeObjectField("error_code", error.get("code"));
+            generator.writeObjectField("error_message", message);
+            if (error.get("data") instanceof Map<?, ?> data && data.get("trace_id") != null) {
+                generator.writeObjectField("trace_id", data.get("trace_id"));
+            }
+        }
+        generator.writeEndObject();
+        for (Map.Entry<String, Object> field : jsonRpcResponse.entrySet()) {
+            if (!ENVELOPE_HEAD_FIELDS.contains(field.getKey())) {
+                generator.writeFieldName(field.getKey());
+                generator.writeObject(field.getValue());
+            }
+        }
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    /**
+     * Nesting depth of the value being written. The write context does not keep its own depth
+     * ({@code getNestingDepth()} is 0 in it), so the contexts are counted.
+     */
+    private int depth() {
+        int depth = 0;
+        for (JsonStreamContext context = generator.getOutputContext(); !context.inRoot(); context = context.getParent()) {
+            depth++;
+        }
+        return depth;
+    }
+}
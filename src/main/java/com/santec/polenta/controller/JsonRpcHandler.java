@@ -0,0 +1,167 @@
+package com.santec.polenta.controller;
+
+import com.santec.polenta.service.InvalidParamsException;
+import com.santec.polenta.service.McpDispatcherService;
+import com.santec.polenta.service.McpTracing;
+import com.santec.polenta.service.RateLimitExceededException;
+import com.santec.polenta.service.ReplayCache;
+import com.santec.polenta.service.RowSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * JSON-RPC 2.0 envelope around {@link McpDispatcherService}: validates the request, dispatches it and
+ * maps the outcome to a result or to an error code. Shared by the servlet and reactive endpoints.
+ *
+ * <p>Each request runs in an {@code mcp.dispatch} span, child of the trace context received with the
+ * HTTP request ({@code traceparent}) if any, and its trace id is the {@code trace_id} of the
+ * response. Without tracing the {@code trace_id} is a random UUID.
+ */
+@Component
+public class JsonRpcHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonRpcHandler.class);
+
+    private final McpDispatcherService dispatcherService;
+    private final ReplayCache replayCache;
+    private final McpTracing tracing;
+
+    public JsonRpcHandler(McpDispatcherService dispatcherService, ReplayCache replayCache, McpTracing tracing) {
+        this.dispatcherService = dispatcherService;
+        this.replayCache = replayCache;
+        this.tracing = tracing;
+    }
+
+    /**
+     * Handles one JSON-RPC request, streaming the rows of a tools/call to the sink when one is given.
+     *
+     * @return the JSON-RPC response, a result or an error
+     */
+    public Map<String, Object> handle(Map<String, Object> request, String sessionId, RowSink sink) {
+        try (McpTracing.SpanScope span = tracing.start("mcp.dispatch")) {
+            span.tag("rpc.system", "jsonrpc").tag("rpc.method", request.get("method"));
+            String traceId = span.traceId() != null ? span.traceId() : UUID.randomUUID().toString();
+            Map<String, Object> response = handle(request, sessionId, sink, traceId, span);
+            if (response.get("error") instanceof Map<?, ?> error) {
+                span.tag("rpc.jsonrpc.error_code", error.get("code"));
+            }
+            return response;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> handle(Map<String, Object> request, String sessionId, RowSink sink,
+                                       String traceId, McpTracing.SpanScope span) {
+        logger.info("Received JSON-RPC request: {} | trace_id={}", request, traceId);
+
+        // Extract JSON-RPC fields
+        Object jsonrpc = request.get("jsonrpc");
+        Object id = request.get("id");
+        Object methodObj = request.get("method");
+        String method = methodObj instanceof String m ? m : null;
+        Map<String, Object> params = request.get("params") instanceof Map ? (Map<String, Object>) request.get("params") : null;
+
+        // Validate JSON-RPC format
+        if (!"2.0".equals(jsonrpc)) {
+            logger.warn("Invalid jsonrpc version: {}", jsonrpc);
+            return createJsonRpcError(id, -32600, "Invalid JSON-RPC version", null);
+        }
+
+        if (method == null) {
+            logger.warn("Missing method in JSON-RPC request");
+            return createJsonRpcError(id, -32600, "Missing method", null);
+        }
+
+        try {
+            // Dispatch to service; retried tool calls are answered from the replay cache
+            Map<String, Object> result;
+            if ("tools/call".equals(method) && params != null) {
+                Object signature = Arrays.asList(params.get("name"), params.get("arguments"));
+                result = replayCache.execute(sessionId, replayKey(id, params), signature, sink,
+                        rowSink -> dispatcherService.dispatch(method, params, sessionId, rowSink));
+            } else {
+                result = dispatcherService.dispatch(method, params, sessionId, sink);
+            }
+            return createJsonRpcSuccess(id, result, traceId);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid request for method {}: {} | trace_id={}", method, e.getMessage(), traceId);
+            int errorCode = isMethodNotFound(method, e) ? -32601 : -32602;
+            Map<String, Object> data = errorData(traceId, params, request);
+            if (e instanceof InvalidParamsException invalid) {
+                data.put("validation_errors", invalid.getErrors());
+            }
+            return createJsonRpcError(id, errorCode, e.getMessage(), data);
+        } catch (IllegalStateException e) {
+            logger.warn("State error for method {}: {} | trace_id={}", method, e.getMessage(), traceId);
+            Map<String, Object> data = errorData(traceId, params, request);
+            if (e instanceof RateLimitExceededException throttled) {
+                data.put("retry_after_ms", throttled.getRetryAfterMs());
+            }
+            return createJsonRpcError(id, -32000, e.getMessage(), data);
+        } catch (Exception e) {
+            logger.error("Internal error processing method {}: {} | trace_id={}", method, e.getMessage(), traceId, e);
+            span.error(e);
+            Map<String, Object> data = errorData(traceId, params, request);
+            data.put("exception", e.getClass().getSimpleName());
+            data.put("message", e.getMessage());
+            return createJsonRpcError(id, -32603, "Internal error", data);
+        }
+    }
+
+    /**
+     * The key identifying retries of a call: the {@code idempotencyKey} given in {@code _meta}, or
+     * else the JSON-RPC id. Notifications have none. Strings are quoted so that the ids {@code 1} and
+     * {@code "1"} stay different calls.
+     */
+    private Object replayKey(Object id, Map<String, Object> params) {
+        if (params.get("_meta") instanceof Map<?, ?> meta && meta.get("idempotencyKey") != null) {
+            return "key:" + typed(meta.get("idempotencyKey"));
+        }
+        return id != null ? "id:" + typed(id) : null;
+    }
+
+    private static String typed(Object value) {
+        return value instanceof String ? "\"" + value + "\"" : String.valueOf(value);
+    }
+
+    private Map<String, Object> errorData(String traceId, Map<String, Object> params, Map<String, Object> request) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("trace_id", traceId);
+        data.put("params", params);
+        data.put("user", request.get("user"));
+        return data;
+    }
+
+    private boolean isMethodNotFound(String method, IllegalArgumentException e) {
+        return e.getMessage().contains("Unknown method") || e.getMessage().contains("Unknown tool");
+    }
+
+    private Map<String, Object> createJsonRpcSuccess(Object id, Object result, String traceId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", id);
+        response.put("result", result);
+        response.put("trace_id", traceId);
+        return response;
+    }
+
+    public static Map<String, Object> createJsonRpcError(Object id, int code, String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", id);
+        Map<String, Object> error = new HashMap<>();
+        error.put("code", code);
+        error.put("message", message);
+        if (data != null) {
+            error.put("data", data);
+        }
+        response.put("error", error);
+        return response;
+    }
+}
@@ -1,6 +1,9 @@
 package com.santec.polenta.controller;
 
 import com.santec.polenta.service.McpDispatcherService;
+import com.santec.polenta.service.RateLimitExceededException;
+import com.santec.polenta.service.SessionManager;
+import com.santec.polenta.service.ToolRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -11,8 +14,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -21,6 +26,7 @@ import java.util.UUID;
 @RestController
 @RequestMapping("/mcp")
 @CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @ConditionalOnProperty(name = "mcp.helpers.enabled", havingValue = "true", matchIfMissing = true)
 @Tag(name = "MCP Helpers", description = "Non-standard helper endpoints - use POST /mcp for standard MCP compliance")
 public class McpController {
@@ -30,6 +36,12 @@ public class McpController {
     @Autowired
     private McpDispatcherService dispatcherService;
 
+    @Autowired
+    private ToolRegistry toolRegistry;
+
+    @Autowired
+    private SessionManager sessionManager;
+
     public static class McpResponse<T> {
         public String trace_id;
         public String status;
@@ -65,10 +77,13 @@ public class McpController {
         logger.info("Helper endpoint /mcp/initialize called with parameters: {} | trace_id={}", request, traceId);
         String id = (String) request.get("id");
         Map<String, Object> params = (Map<String, Object>) request.get("params");
-        String sessionId = generateSessionId(httpRequest);
+        String sessionId = sessionManager.newSessionId();
         try {
             Map<String, Object> result = dispatcherService.dispatch("initialize", params, sessionId);
-            return ResponseEntity.ok(new McpResponse<>(traceId, "success", result, null));
+            sessionManager.bindClient(clientKey(httpRequest), sessionId);
+            return ResponseEntity.ok()
+                    .header(McpJsonRpcController.SESSION_HEADER, sessionId)
+                    .body(new McpResponse<>(traceId, "success", result, null));
         } catch (Exception e) {
             logger.error("Error in helper initialize endpoint: {} | trace_id={}", e.getMessage(), traceId, e);
             return ResponseEntity.ok(new McpResponse<>(traceId, "error", null, e.getMessage()));
@@ -124,18 +139,28 @@ public class McpController {
             )
     )
     public ResponseEntity<Map<String, Object>> callTool(
-            @org.springframework.web.bind.annotation.RequestBody Map<String, Object> request) {
+            @org.springframework.web.bind.annotation.RequestBody Map<String, Object> request,
+            HttpServletRequest httpRequest) {
         logger.info("Helper endpoint /mcp/tools/call called with parameters: {}", request);
         
         String id = (String) request.get("id");
         Map<String, Object> params = (Map<String, Object>) request.get("params");
+        // Rate limits apply per client and bulkheads per tool, as on the JSON-RPC endpoint
+        String sessionId = resolveSessionId(httpRequest);
         
         try {
-            Map<String, Object> result = dispatcherService.dispatch("tools/call", params, null);
+            Map<String, Object> result = dispatcherService.dispatch("tools/call", params, sessionId);
             return ResponseEntity.ok(jsonRpcSuccess(id, result));
         } catch (IllegalArgumentException e) {
             logger.warn("Invalid parameters in helper tools/call: {}", e.getMessage());
             return ResponseEntity.ok(jsonRpcError(id, -32602, e.getMessage(), null));
+        } catch (IllegalStateException e) {
+            logger.warn("Rejected helper tools/call: {}", e.getMessage());
+            Map<String, Object> data = new HashMap<>();
+            if (e instanceof RateLimitExceededException throttled) {
+                data.put("retry_after_ms", throttled.getRetryAfterMs());
+            }
+            return ResponseEntity.ok(jsonRpcError(id, -32000, e.getMessage(), data.isEmpty() ? null : data));
         } catch (Exception e) {
             logger.error("Error in helper tools/call endpoint: {}", e.getMessage(), e);
             return ResponseEntity.ok(jsonRpcError(id, -32603, "Internal error: " + e.getMessage(), null));
@@ -146,40 +171,41 @@ public class McpController {
     @GetMapping("/tools/docs")
     @Operation(
         summary = "[HELPER] Documentation for all MCP tools",
-        description = "Returns the documentation and schemas of all tools registered on the server."
+        description = "Returns the documentation and schemas of all tools registered on the server. Supports If-None-Match."
     )
-    public ResponseEntity<Map<String, Object>> toolsDocs() {
+    public ResponseEntity<Map<String, Object>> toolsDocs(WebRequest webRequest) {
         logger.info("Helper endpoint /mcp/tools/docs called");
-        try {
-            Map<String, Object> docs = new HashMap<>();
-            docs.put("tools", dispatcherService.dispatch("tools/list", Map.of(), null).get("tools"));
-            return ResponseEntity.ok(Map.of(
-                "jsonrpc", "2.0",
-                "id", UUID.randomUUID().toString(),
-                "result", docs
-            ));
-        } catch (Exception e) {
-            logger.error("Error in helper tools/docs endpoint: {}", e.getMessage(), e);
-            return ResponseEntity.ok(Map.of(
-                "jsonrpc", "2.0",
-                "id", UUID.randomUUID().toString(),
-                "error", Map.of(
-                    "code", -32603,
-                    "message", "Internal error: " + e.getMessage()
-                )
-            ));
+        if (webRequest.checkNotModified(toolRegistry.getToolsEtag())) {
+            return null;
         }
+        Map<String, Object> docs = new HashMap<>();
+        docs.put("tools", toolRegistry.getToolsJson());
+        return ResponseEntity.ok(Map.of(
+            "jsonrpc", "2.0",
+            "id", UUID.randomUUID().toString(),
+            "result", docs
+        ));
     }
 
     // --- Utility methods for helper endpoints ---
 
-    private String generateSessionId(HttpServletRequest request) {
-        // Simple session ID generation based on client characteristics
-        String clientIp = getClientIpAddress(request);
-        String userAgent = request.getHeader("User-Agent");
-        return String.valueOf((clientIp + userAgent).hashCode());
-
+    /**
+     * The session of the caller, resolved as on the JSON-RPC endpoint: the {@code Mcp-Session-Id}
+     * header, else the session bound to the client, else the client key itself.
+     */
+    private String resolveSessionId(HttpServletRequest request) {
+        String header = request.getHeader(McpJsonRpcController.SESSION_HEADER);
+        if (header != null && !header.isBlank()) {
+            return header;
+        }
+        String clientKey = clientKey(request);
+        String bound = sessionManager.sessionForClient(clientKey);
+        return bound != null ? bound : clientKey;
+    }
 
+    private String clientKey(HttpServletRequest request) {
+        // Same key as the JSON-RPC endpoint, so clients without the session header find this session
+        return getClientIpAddress(request) + "|" + request.getHeader("User-Agent");
     }
 
     private String getClientIpAddress(HttpServletRequest request) {
@@ -1,39 +1,112 @@
 package com.santec.polenta.controller;
 
-import com.santec.polenta.service.McpDispatcherService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.config.BatchConfig;
+import com.santec.polenta.config.MetricsConfig;
+import com.santec.polenta.config.StreamingConfig;
+import com.santec.polenta.service.McpSession;
+import com.santec.polenta.service.McpTracing;
+import com.santec.polenta.service.RowSink;
+import com.santec.polenta.service.SessionManager;
+import com.santec.polenta.service.ToolRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = McpJsonRpcController.SESSION_HEADER)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Tag(name = "MCP JSON-RPC", description = "Standard MCP JSON-RPC endpoint")
 public class McpJsonRpcController {
 
     private static final Logger logger = LoggerFactory.getLogger(McpJsonRpcController.class);
 
+    /** Header carrying the session id, assigned by initialize (MCP Streamable HTTP transport) */
+    public static final String SESSION_HEADER = "Mcp-Session-Id";
+
+    @Autowired
+    private JsonRpcHandler jsonRpcHandler;
+
+    @Autowired
+    private SessionManager sessionManager;
+
+    @Autowired
+    private ToolRegistry toolRegistry;
+
+    @Autowired
+    private BatchConfig batchConfig;
+
     @Autowired
-    private McpDispatcherService dispatcherService;
+    private ExecutorService mcpBatchExecutor;
 
-    @PostMapping(value = "/mcp", consumes = "application/json", produces = "application/json")
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StreamingConfig streamingConfig;
+
+    @Autowired
+    private ExecutorService mcpStreamingExecutor;
+
+    @Autowired
+    private McpTracing tracing;
+
+    private DistributionSummary batchSizes;
+    private Timer batchLatency;
+    private Timer directWriteSerialization;
+
+    @Autowired
+    void registerMetrics(MeterRegistry meterRegistry) {
+        this.batchSizes = DistributionSummary.builder("mcp.batch.size")
+                .description("Number of requests per JSON-RPC batch")
+                .register(meterRegistry);
+        this.batchLatency = Timer.builder("mcp.batch.latency")
+                .description("Time to execute a whole JSON-RPC batch")
+                .register(meterRegistry);
+        this.directWriteSerialization = MetricsConfig.serializationTimer("http", meterRegistry);
+    }
+
+    @PostMapping(value = "/mcp", consumes = "application/json", produces = {"application/json", "text/event-stream"})
     @Operation(
             summary = "MCP JSON-RPC endpoint",
-            description = "Standard MCP-compliant JSON-RPC endpoint for all MCP methods",
+            description = "Standard MCP-compliant JSON-RPC endpoint for all MCP methods. Accepts a single request or a JSON-RPC 2.0 batch (array). "
+                    + "A single tools/call sent with 'Accept: text/event-stream' is answered as a Server-Sent Events stream: "
+                    + "row chunks and progress notifications first, then the JSON-RPC response",
             requestBody = @RequestBody(
                     required = true,
                     content = @Content(
@@ -54,66 +127,238 @@ public class McpJsonRpcController {
                                     @ExampleObject(
                                             name = "Tools Call",
                                             value = "{ \"jsonrpc\": \"2.0\", \"id\": \"4\", \"method\": \"tools/call\", \"params\": { \"name\": \"query_data\", \"arguments\": { \"query\": \"SELECT * FROM table LIMIT 10\" } } }"
+                                    ),
+                                    @ExampleObject(
+                                            name = "Batch",
+                                            value = "[ { \"jsonrpc\": \"2.0\", \"id\": \"5\", \"method\": \"tools/call\", \"params\": { \"name\": \"metadata\", \"arguments\": {} } }, { \"jsonrpc\": \"2.0\", \"id\": \"6\", \"method\": \"tools/call\", \"params\": { \"name\": \"sample_data\", \"arguments\": { \"table_name\": \"tiny.nation\" } } } ]"
                                     )
                             }
                     )
             )
     )
-    public ResponseEntity<Map<String, Object>> handleJsonRpc(
-            @org.springframework.web.bind.annotation.RequestBody Map<String, Object> request,
-            HttpServletRequest httpRequest) {
-        String traceId = UUID.randomUUID().toString();
-        logger.info("Received JSON-RPC request: {} | trace_id={}", request, traceId);
-        
-        // Extract JSON-RPC fields
-        String jsonrpc = (String) request.get("jsonrpc");
+    public Object handleJsonRpc(
+            @org.springframework.web.bind.annotation.RequestBody Object request,
+            HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse) {
+        String sessionId = resolveSessionId(httpRequest);
+        if (request instanceof List<?> batch) {
+            return handleBatch(batch, sessionId);
+        }
+        if (!(request instanceof Map<?, ?>)) {
+            logger.warn("JSON-RPC request is neither an object nor an array");
+            return ResponseEntity.ok(createJsonRpcError(null, -32600, "Invalid Request", null));
+        }
+        Map<String, Object> single = (Map<String, Object>) request;
+        if ("initialize".equals(single.get("method"))) {
+            return handleInitialize(single, httpRequest);
+        }
+        if (acceptsEventStream(httpRequest) && "tools/call".equals(single.get("method")) && single.get("id") != null) {
+            return handleStreaming(single, sessionId);
+        }
+        if ("tools/call".equals(single.get("method")) && single.get("id") != null) {
+            return handleDirectWrite(single, sessionId, httpResponse);
+        }
+        if ("tools/list".equals(single.get("method"))) {
+            // Lets clients tell whether the tool definitions changed since they last listed them.
+            return ResponseEntity.ok().eTag(toolRegistry.getToolsEtag()).body(handleRequest(single, sessionId));
+        }
+        return ResponseEntity.ok(handleRequest(single, sessionId));
+    }
+
+    /**
+     * Starts a new session: the id is returned in the {@code Mcp-Session-Id} header for the client
+     * to send with its next requests. Clients that do not send it keep being recognized by address
+     * and user agent, bound here to the session they initialized last.
+     */
+    private ResponseEntity<Object> handleInitialize(Map<String, Object> request, HttpServletRequest httpRequest) {
+        String sessionId = sessionManager.newSessionId();
+        Map<String, Object> response = handleRequest(request, sessionId);
+        if (!response.containsKey("result")) {
+            return ResponseEntity.ok(response);
+        }
+        sessionManager.bindClient(clientKey(httpRequest), sessionId);
+        return ResponseEntity.ok().header(SESSION_HEADER, sessionId).body(response);
+    }
+
+    /**
+     * Ends the session named by the {@code Mcp-Session-Id} header, closing the streams it still has open.
+     */
+    @DeleteMapping("/mcp")
+    @Operation(summary = "Ends an MCP session", description = "Terminates the session given in the Mcp-Session-Id header")
+    public ResponseEntity<Void> closeSession(@RequestHeader(value = SESSION_HEADER, required = false) String sessionId) {
+        if (sessionId == null || sessionId.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return sessionManager.clearSession(sessionId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Answers a tools/call writing its rows from the JDBC cursor straight into the response body, with
+     * no per-row maps or intermediate tree. Calls that return no rows (metadata, errors raised before
+     * the query runs, ...) are answered as a regular JSON response.
+     *
+     * @return the response to render, or {@code null} when the body has already been written
+     */
+    private ResponseEntity<Object> handleDirectWrite(Map<String, Object> request, String sessionId,
+                                                     HttpServletResponse httpResponse) {
+        JsonRowSink sink = new JsonRowSink(httpResponse, objectMapper, request.get("id"));
+        Map<String, Object> response = handleRequest(request, sessionId, sink);
+        if (!sink.isStarted()) {
+            return ResponseEntity.ok(response);
+        }
+        long start = System.nanoTime();
+        try {
+            sink.finish(response);
+        } catch (IOException e) {
+            logger.warn("Client closed the connection before the response to request {} was complete: {}",
+                    request.get("id"), e.getMessage());
+        } finally {
+            // The rows are in the "serialization" stage; this is the rest of the body, written after the result.
+            directWriteSerialization.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return null;
+    }
+
+    /**
+     * Answers a tools/call as a Server-Sent Events stream (MCP Streamable HTTP transport). The call
+     * runs on the streaming executor and its rows are forwarded chunk by chunk while the JDBC cursor
+     * is read, so large results are never held in memory; the JSON-RPC response closes the stream.
+     * When the executor has no room left the call is answered right away with a "Server busy" error.
+     */
+    private Object handleStreaming(Map<String, Object> request, String sessionId) {
+        SseEmitter emitter = new SseEmitter(streamingConfig.getTimeoutMs());
         Object id = request.get("id");
-        String method = (String) request.get("method");
-        Map<String, Object> params = (Map<String, Object>) request.get("params");
-        
-        // Generate session ID from client IP/headers for session tracking
-        String sessionId = generateSessionId(httpRequest);
-        
-        // Validate JSON-RPC format
-        if (!"2.0".equals(jsonrpc)) {
-            logger.warn("Invalid jsonrpc version: {}", jsonrpc);
-            return ResponseEntity.ok(createJsonRpcError(id, -32600, "Invalid JSON-RPC version", null));
-        }
-        
-        if (method == null) {
-            logger.warn("Missing method in JSON-RPC request");
-            return ResponseEntity.ok(createJsonRpcError(id, -32600, "Missing method", null));
-        }
-        
+        Map<String, Object> params = request.get("params") instanceof Map ? (Map<String, Object>) request.get("params") : null;
+        Object progressToken = params != null && params.get("_meta") instanceof Map<?, ?> meta ? meta.get("progressToken") : null;
+        SseRowSink sink = new SseRowSink(emitter, id, progressToken, streamingConfig.getChunkSize());
+        logger.info("Streaming JSON-RPC request {} as Server-Sent Events", id);
+        // Ending the session closes the stream, which aborts the query at the next chunk.
+        McpSession session = sessionManager.getSession(sessionId);
+        AutoCloseable stream = emitter::complete;
+        if (session != null) {
+            session.register(stream);
+        }
+        try {
+            mcpStreamingExecutor.execute(tracing.wrap(() -> {
+                try {
+                    Map<String, Object> response = handleRequest(request, sessionId, sink);
+                    if (response.get("result") instanceof Map<?, ?> result && Boolean.TRUE.equals(result.get("streamed"))) {
+                        ((Map<String, Object>) result).put("chunks", sink.getChunks());
+                    }
+                    emitter.send(SseRowSink.message(response));
+                    emitter.complete();
+                } catch (IOException | IllegalStateException e) {
+                    logger.warn("Stream for request {} closed before completion: {}", id, e.getMessage());
+                    emitter.completeWithError(e);
+                } finally {
+                    if (session != null) {
+                        session.release(stream);
+                    }
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Streaming executor saturated, rejecting request {}", id);
+            if (session != null) {
+                session.release(stream);
+            }
+            return ResponseEntity.ok(createJsonRpcError(id, -32000, "Server busy, retry later", null));
+        }
+        return emitter;
+    }
+
+    private boolean acceptsEventStream(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    /**
+     * Handles a JSON-RPC 2.0 batch. Calls are independent, so they run concurrently on the shared
+     * batch executor with at most {@code mcp.batch.max-concurrency} of them in flight per batch;
+     * responses keep the order of the requests and notifications (no id) get no response.
+     */
+    private ResponseEntity<Object> handleBatch(List<?> batch, String sessionId) {
+        long start = System.nanoTime();
+        logger.info("Received JSON-RPC batch of {} requests", batch.size());
+        if (batch.isEmpty()) {
+            return ResponseEntity.ok(createJsonRpcError(null, -32600, "Invalid Request: empty batch", null));
+        }
+        if (batch.size() > batchConfig.getMaxSize()) {
+            return ResponseEntity.ok(createJsonRpcError(null, -32600,
+                    "Invalid Request: batch exceeds " + batchConfig.getMaxSize() + " requests", null));
+        }
+        batchSizes.record(batch.size());
+
+        Object[] entries = batch.toArray();
+        Map<String, Object>[] responses = new Map[entries.length];
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(entries.length);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Runnable worker = tracing.wrap(() -> {
+            int i;
+            while ((i = next.getAndIncrement()) < entries.length) {
+                try {
+                    responses[i] = entries[i] instanceof Map<?, ?> entry
+                            ? handleRequest((Map<String, Object>) entry, sessionId)
+                            : createJsonRpcError(null, -32600, "Invalid Request", null);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+        // The request thread works too, so a batch takes at most max-concurrency - 1 pool threads.
+        int helpers = Math.min(batchConfig.getMaxConcurrency(), entries.length) - 1;
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int h = 0; h < helpers; h++) {
+                futures.add(mcpBatchExecutor.submit(worker));
+            }
+        } catch (RejectedExecutionException e) {
+            logger.debug("Batch pool is full, running the rest of the batch with {} helpers", futures.size());
+        }
+        worker.run();
+        // Every call has been taken by now: helpers still queued have nothing left to do and are dropped,
+        // and only the calls pool threads are still running are waited for.
+        futures.forEach(future -> future.cancel(false));
         try {
-            // Dispatch to service
-            Map<String, Object> result = dispatcherService.dispatch(method, params, sessionId);
-            return ResponseEntity.ok(createJsonRpcSuccess(id, result, traceId));
-        } catch (IllegalArgumentException e) {
-            logger.warn("Invalid request for method {}: {} | trace_id={}", method, e.getMessage(), traceId);
-            int errorCode = isMethodNotFound(method, e) ? -32601 : -32602;
-            return ResponseEntity.ok(createJsonRpcError(id, errorCode, e.getMessage(), Map.of(
-                "trace_id", traceId,
-                "params", params,
-                "user", request.getOrDefault("user", null)
-            )));
-        } catch (IllegalStateException e) {
-            logger.warn("State error for method {}: {} | trace_id={}", method, e.getMessage(), traceId);
-            return ResponseEntity.ok(createJsonRpcError(id, -32000, e.getMessage(), Map.of(
-                "trace_id", traceId,
-                "params", params,
-                "user", request.getOrDefault("user", null)
-            )));
-        } catch (Exception e) {
-            logger.error("Internal error processing method {}: {} | trace_id={}", method, e.getMessage(), traceId, e);
-            return ResponseEntity.ok(createJsonRpcError(id, -32603, "Internal error", Map.of(
-                "trace_id", traceId,
-                "params", params,
-                "user", request.getOrDefault("user", null),
-                "exception", e.getClass().getSimpleName(),
-                "message", e.getMessage()
-            )));
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch calls", e);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Batch worker failed", failure.get());
         }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int i = 0; i < entries.length; i++) {
+            boolean notification = entries[i] instanceof Map<?, ?> entry && !entry.containsKey("id");
+            if (!notification) {
+                results.add(responses[i]);
+            }
+        }
+        batchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.info("JSON-RPC batch of {} requests completed in {} ms", entries.length,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (results.isEmpty()) {
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    private Map<String, Object> handleRequest(Map<String, Object> request, String sessionId) {
+        return handleRequest(request, sessionId, null);
+    }
+
+    private Map<String, Object> handleRequest(Map<String, Object> request, String sessionId, RowSink sink) {
+        return jsonRpcHandler.handle(request, sessionId, sink);
+    }
+
+    private Map<String, Object> createJsonRpcError(Object id, int code, String message, Object data) {
+        return JsonRpcHandler.createJsonRpcError(id, code, message, data);
     }
 
     // MCP-compliant response wrapper for documentation endpoints
@@ -133,65 +378,36 @@ public class McpJsonRpcController {
     @GetMapping("/mcp/tools/docs/full")
     @Operation(
         summary = "Enriched documentation and self-discovery for MCP tools",
-        description = "Returns the full documentation for all MCP tools, including input/output examples, long descriptions, tags, author, version, last update date, usage fields, and schema structure. Ideal for UIs, LLMs, and smart clients."
+        description = "Returns the full documentation for all MCP tools, including input/output examples, long descriptions, tags, author, version, last update date, usage fields, and schema structure. Ideal for UIs, LLMs, and smart clients. Supports If-None-Match."
     )
-    public ResponseEntity<McpResponse<Map<String, Object>>> toolsDocsFull() {
+    public ResponseEntity<McpResponse<Map<String, Object>>> toolsDocsFull(WebRequest webRequest) {
         String traceId = UUID.randomUUID().toString();
         logger.info("[tools/docs/full] Enriched documentation requested | trace_id={}", traceId);
-        try {
-            var toolsObj = dispatcherService.dispatch("tools/list", Map.of(), null).get("tools");
-            if (!(toolsObj instanceof Iterable<?> tools)) {
-                throw new IllegalStateException("tools no es iterable");
-            }
-            // Enriched structure for each tool
-            var enrichedTools = new java.util.ArrayList<>();
-            for (Object t : tools) {
-                if (t instanceof Map<?, ?>) {
-                    Map<?, ?> tool = (Map<?, ?>) t;
-                    Map<String, Object> doc = new HashMap<>();
-                    doc.put("name", tool.get("name"));
-                    doc.put("description", tool.get("description"));
-                    doc.put("input_schema", tool.get("input_schema"));
-                    Object inputSchemaObj = tool.get("input_schema");
-                    Map<?, ?> inputSchema = inputSchemaObj instanceof Map<?, ?> ? (Map<?, ?>) inputSchemaObj : null;
-                    doc.put("input_examples", inputSchema != null ? inputSchema.getOrDefault("examples", null) : null);
-                    doc.put("input_description_long", inputSchema != null ? inputSchema.getOrDefault("description_long", null) : null);
-
-                    Object metaObj = tool.get("tool_metadata");
-                    if (metaObj == null) {
-                        metaObj = tool.get("metadata");
-                    }
-                    Map<String, Object> meta = metaObj instanceof Map ? (Map<String, Object>) metaObj : null;
-
-
-                    if (meta != null) {
-                        doc.put("output_schema", meta);
-                        doc.put("output_examples", meta.getOrDefault("examples", null));
-                        doc.put("output_description_long", meta.getOrDefault("description_long", null));
-                        doc.put("tags", meta.getOrDefault("tags", null));
-                        doc.put("usage_examples", meta.getOrDefault("usage_examples", null));
-                        doc.put("author", meta.getOrDefault("author", null));
-                        doc.put("version", meta.getOrDefault("version", null));
-                        doc.put("last_updated", meta.getOrDefault("last_updated", null));
-                    }
-                    enrichedTools.add(doc);
-                }
-            }
-            Map<String, Object> docs = new HashMap<>();
-            docs.put("tools", enrichedTools);
-            docs.put("trace_id", traceId);
-            return ResponseEntity.ok(new McpResponse<>(traceId, "success", docs, null));
-        } catch (Exception e) {
-            logger.error("Error in /mcp/tools/docs/full | trace_id={}: {}", traceId, e.getMessage(), e);
-            return ResponseEntity.ok(new McpResponse<>(traceId, "error", null, e.getMessage()));
+        if (webRequest.checkNotModified(toolRegistry.getDocsEtag())) {
+            return null;
+        }
+        Map<String, Object> docs = new HashMap<>();
+        docs.put("tools", toolRegistry.getDocsJson());
+        docs.put("trace_id", traceId);
+        return ResponseEntity.ok(new McpResponse<>(traceId, "success", docs, null));
+    }
+
+    /**
+     * The session of the request: the one named by the {@code Mcp-Session-Id} header or, for clients
+     * that do not send it, the one last initialized from the same address and user agent.
+     */
+    private String resolveSessionId(HttpServletRequest request) {
+        String header = request.getHeader(SESSION_HEADER);
+        if (header != null && !header.isBlank()) {
+            return header;
         }
+        String clientKey = clientKey(request);
+        String bound = sessionManager.sessionForClient(clientKey);
+        return bound != null ? bound : clientKey;
     }
 
-    private String generateSessionId(HttpServletRequest request) {
-        // Simple session ID generation based on client characteristics
-        String clientIp = getClientIpAddress(request);
-        String userAgent = request.getHeader("User-Agent");
-        return String.valueOf((clientIp + userAgent).hashCode());
+    private String clientKey(HttpServletRequest request) {
+        return getClientIpAddress(request) + "|" + request.getHeader("User-Agent");
     }
 
     private String getClientIpAddress(HttpServletRequest request) {
@@ -205,31 +421,4 @@ public class McpJsonRpcController {
         }
         return request.getRemoteAddr();
     }
-
-    private boolean isMethodNotFound(String method, IllegalArgumentException e) {
-        return e.getMessage().contains("Unknown method") || e.getMessage().contains("Unknown tool");
-    }
-
-    private Map<String, Object> createJsonRpcSuccess(Object id, Object result, String traceId) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("jsonrpc", "2.0");
-        response.put("id", id);
-        response.put("result", result);
-        response.put("trace_id", traceId);
-        return response;
-    }
-
-    private Map<String, Object> createJsonRpcError(Object id, int code, String message, Object data) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("jsonrpc", "2.0");
-        response.put("id", id);
-        Map<String, Object> error = new HashMap<>();
-        error.put("code", code);
-        error.put("message", message);
-        if (data != null) {
-            error.put("data", data);
-        }
-        response.put("error", error);
-        return response;
-    }
 }
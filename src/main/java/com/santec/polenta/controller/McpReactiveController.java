@@ -0,0 +1,298 @@
+package com.santec.polenta.controller;
+
+import com.santec.polenta.config.BatchConfig;
+import com.santec.polenta.config.StreamingConfig;
+import com.santec.polenta.service.McpSession;
+import com.santec.polenta.service.SessionManager;
+import com.santec.polenta.service.ToolRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.net.InetSocketAddress;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The /mcp endpoint of the reactive deployment mode (profile {@code reactive}): the same JSON-RPC
+ * protocol as {@link McpJsonRpcController}, served by WebFlux.
+ *
+ * <p>Requests are decoded and responses serialized on the event loop. Dispatch is blocking: it runs on
+ * the {@code mcpJdbcScheduler} bounded elastic scheduler, and the tool runs on that same thread (the
+ * profile sets {@code mcp.tools.run-on-caller}), so each call in flight pins exactly one scheduler
+ * thread for the whole JDBC query and nothing else. Batch calls run concurrently on that scheduler.
+ *
+ * <p>Plain JSON results are built in memory as maps before being serialized; only the Server-Sent
+ * Events stream emits rows as they are read, and its producer keeps its scheduler thread blocked while
+ * it waits for the subscriber's demand.
+ */
+@RestController
+@CrossOrigin(origins = "*", exposedHeaders = McpJsonRpcController.SESSION_HEADER)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Tag(name = "MCP JSON-RPC", description = "Standard MCP JSON-RPC endpoint (reactive)")
+public class McpReactiveController {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpReactiveController.class);
+
+    private final JsonRpcHandler jsonRpcHandler;
+    private final SessionManager sessionManager;
+    private final ToolRegistry toolRegistry;
+    private final BatchConfig batchConfig;
+    private final StreamingConfig streamingConfig;
+    private final Scheduler mcpJdbcScheduler;
+    private final DistributionSummary batchSizes;
+    private final Timer batchLatency;
+
+    public McpReactiveController(JsonRpcHandler jsonRpcHandler, SessionManager sessionManager,
+                                 ToolRegistry toolRegistry, BatchConfig batchConfig, StreamingConfig streamingConfig,
+                                 Scheduler mcpJdbcScheduler, MeterRegistry meterRegistry) {
+        this.jsonRpcHandler = jsonRpcHandler;
+        this.sessionManager = sessionManager;
+        this.toolRegistry = toolRegistry;
+        this.batchConfig = batchConfig;
+        this.streamingConfig = streamingConfig;
+        this.mcpJdbcScheduler = mcpJdbcScheduler;
+        this.batchSizes = DistributionSummary.builder("mcp.batch.size")
+                .description("Number of requests per JSON-RPC batch")
+                .register(meterRegistry);
+        this.batchLatency = Timer.builder("mcp.batch.latency")
+                .description("Time to execute a whole JSON-RPC batch")
+                .register(meterRegistry);
+    }
+
+    @PostMapping(value = "/mcp", consumes = "application/json", produces = {"application/json", "text/event-stream"})
+    @Operation(
+            summary = "MCP JSON-RPC endpoint",
+            description = "Standard MCP-compliant JSON-RPC endpoint for all MCP methods. Accepts a single request or a JSON-RPC 2.0 batch (array). "
+                    + "A single tools/call sent with 'Accept: text/event-stream' is answered as a Server-Sent Events stream: "
+                    + "row chunks and progress notifications first, then the JSON-RPC response"
+    )
+    @SuppressWarnings("unchecked")
+    public Mono<ResponseEntity<Object>> handleJsonRpc(@RequestBody Object request, ServerHttpRequest httpRequest) {
+        String sessionId = resolveSessionId(httpRequest);
+        if (request instanceof List<?> batch) {
+            return handleBatch(batch, sessionId);
+        }
+        if (!(request instanceof Map<?, ?>)) {
+            logger.warn("JSON-RPC request is neither an object nor an array");
+            return Mono.just(ResponseEntity.ok(createJsonRpcError(null, -32600, "Invalid Request", null)));
+        }
+        Map<String, Object> single = (Map<String, Object>) request;
+        if ("initialize".equals(single.get("method"))) {
+            return handleInitialize(single, httpRequest);
+        }
+        if (acceptsEventStream(httpRequest) && "tools/call".equals(single.get("method")) && single.get("id") != null) {
+            return Mono.just(ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(handleStreaming(single, sessionId)));
+        }
+        if ("tools/list".equals(single.get("method"))) {
+            // Lets clients tell whether the tool definitions changed since they last listed them.
+            return dispatch(single, sessionId)
+                    .map(response -> ResponseEntity.ok().eTag(toolRegistry.getToolsEtag()).body(response));
+        }
+        return dispatch(single, sessionId).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Starts a new session: the id is returned in the {@code Mcp-Session-Id} header for the client
+     * to send with its next requests, as in the servlet endpoint.
+     */
+    private Mono<ResponseEntity<Object>> handleInitialize(Map<String, Object> request, ServerHttpRequest httpRequest) {
+        String sessionId = sessionManager.newSessionId();
+        return dispatch(request, sessionId).map(response -> {
+            if (!response.containsKey("result")) {
+                return ResponseEntity.ok(response);
+            }
+            sessionManager.bindClient(clientKey(httpRequest), sessionId);
+            return ResponseEntity.ok().header(McpJsonRpcController.SESSION_HEADER, sessionId).body(response);
+        });
+    }
+
+    /**
+     * Ends the session named by the {@code Mcp-Session-Id} header, closing the streams it still has open.
+     */
+    @DeleteMapping("/mcp")
+    @Operation(summary = "Ends an MCP session", description = "Terminates the session given in the Mcp-Session-Id header")
+    public ResponseEntity<Void> closeSession(
+            @RequestHeader(value = McpJsonRpcController.SESSION_HEADER, required = false) String sessionId) {
+        if (sessionId == null || sessionId.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return sessionManager.clearSession(sessionId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Answers a tools/call as a Server-Sent Events stream. The call runs on the JDBC scheduler when
+     * the response is subscribed, and each row chunk is emitted only once the client asked for it;
+     * the JSON-RPC response closes the stream.
+     */
+    @SuppressWarnings("unchecked")
+    private Flux<ServerSentEvent<Object>> handleStreaming(Map<String, Object> request, String sessionId) {
+        Object id = request.get("id");
+        Map<String, Object> params = request.get("params") instanceof Map ? (Map<String, Object>) request.get("params") : null;
+        Object progressToken = params != null && params.get("_meta") instanceof Map<?, ?> meta ? meta.get("progressToken") : null;
+        logger.info("Streaming JSON-RPC request {} as Server-Sent Events", id);
+        return Flux.<ServerSentEvent<Object>>create(emitter -> {
+            FluxRowSink sink = new FluxRowSink(emitter, id, progressToken, streamingConfig.getChunkSize(),
+                    streamingConfig.getTimeoutMs());
+            // Ending the session closes the stream, which aborts the query at the next chunk.
+            McpSession session = sessionManager.getSession(sessionId);
+            AutoCloseable stream = emitter::complete;
+            if (session != null) {
+                session.register(stream);
+            }
+            try {
+                Map<String, Object> response = jsonRpcHandler.handle(request, sessionId, sink);
+                if (response.get("result") instanceof Map<?, ?> result && Boolean.TRUE.equals(result.get("streamed"))) {
+                    ((Map<String, Object>) result).put("chunks", sink.getChunks());
+                }
+                sink.send(response);
+                emitter.complete();
+            } catch (SQLException e) {
+                logger.warn("Stream for request {} closed before completion: {}", id, e.getMessage());
+                emitter.error(e);
+            } finally {
+                if (session != null) {
+                    session.release(stream);
+                }
+            }
+        }, FluxSink.OverflowStrategy.BUFFER)
+                // Requests must not queue behind the producer, which holds the scheduler worker while it waits for them.
+                .subscribeOn(mcpJdbcScheduler, false);
+    }
+
+    private boolean acceptsEventStream(ServerHttpRequest request) {
+        String accept = request.getHeaders().getFirst("Accept");
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    /**
+     * Handles a JSON-RPC 2.0 batch. Calls run concurrently on the JDBC scheduler with at most
+     * {@code mcp.batch.max-concurrency} of them in flight per batch; responses keep the order of the
+     * requests and notifications (no id) get no response.
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<ResponseEntity<Object>> handleBatch(List<?> batch, String sessionId) {
+        long start = System.nanoTime();
+        logger.info("Received JSON-RPC batch of {} requests", batch.size());
+        if (batch.isEmpty()) {
+            return Mono.just(ResponseEntity.ok(createJsonRpcError(null, -32600, "Invalid Request: empty batch", null)));
+        }
+        if (batch.size() > batchConfig.getMaxSize()) {
+            return Mono.just(ResponseEntity.ok(createJsonRpcError(null, -32600,
+                    "Invalid Request: batch exceeds " + batchConfig.getMaxSize() + " requests", null)));
+        }
+        batchSizes.record(batch.size());
+
+        return Flux.fromIterable(batch)
+                .flatMapSequential(entry -> {
+                    if (!(entry instanceof Map<?, ?>)) {
+                        return Mono.just(createJsonRpcError(null, -32600, "Invalid Request", null));
+                    }
+                    Map<String, Object> call = (Map<String, Object>) entry;
+                    // A notification is still executed, but its response is dropped.
+                    return dispatch(call, sessionId).filter(response -> call.containsKey("id"));
+                }, batchConfig.getMaxConcurrency())
+                .collectList()
+                .map(results -> {
+                    batchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    logger.info("JSON-RPC batch of {} requests completed in {} ms", batch.size(),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    return results.isEmpty() ? ResponseEntity.accepted().build() : ResponseEntity.ok(results);
+                });
+    }
+
+    /**
+     * Runs one request on the JDBC scheduler. When the scheduler queue is full the call is answered
+     * with a server busy error instead of waiting.
+     */
+    private Mono<Map<String, Object>> dispatch(Map<String, Object> request, String sessionId) {
+        return Mono.fromCallable(() -> jsonRpcHandler.handle(request, sessionId, null))
+                .subscribeOn(mcpJdbcScheduler)
+                .onErrorResume(RejectedExecutionException.class, e -> {
+                    logger.warn("JDBC scheduler saturated, rejecting request {}", request.get("id"));
+                    return Mono.just(createJsonRpcError(request.get("id"), -32000, "Server busy, retry later", null));
+                });
+    }
+
+    private Map<String, Object> createJsonRpcError(Object id, int code, String message, Object data) {
+        return JsonRpcHandler.createJsonRpcError(id, code, message, data);
+    }
+
+    @GetMapping("/mcp/tools/docs/full")
+    @Operation(
+        summary = "Enriched documentation and self-discovery for MCP tools",
+        description = "Returns the full documentation for all MCP tools. Supports If-None-Match."
+    )
+    public Mono<ResponseEntity<McpJsonRpcController.McpResponse<Map<String, Object>>>> toolsDocsFull(ServerWebExchange exchange) {
+        String traceId = UUID.randomUUID().toString();
+        logger.info("[tools/docs/full] Enriched documentation requested | trace_id={}", traceId);
+        if (exchange.checkNotModified(toolRegistry.getDocsEtag())) {
+            return Mono.empty();
+        }
+        Map<String, Object> docs = new HashMap<>();
+        docs.put("tools", toolRegistry.getDocsJson());
+        docs.put("trace_id", traceId);
+        return Mono.just(ResponseEntity.ok(new McpJsonRpcController.McpResponse<>(traceId, "success", docs, null)));
+    }
+
+    /**
+     * The session of the request: the one named by the {@code Mcp-Session-Id} header or, for clients
+     * that do not send it, the one last initialized from the same address and user agent.
+     */
+    private String resolveSessionId(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(McpJsonRpcController.SESSION_HEADER);
+        if (header != null && !header.isBlank()) {
+            return header;
+        }
+        String clientKey = clientKey(request);
+        String bound = sessionManager.sessionForClient(clientKey);
+        return bound != null ? bound : clientKey;
+    }
+
+    private String clientKey(ServerHttpRequest request) {
+        return getClientIpAddress(request) + "|" + request.getHeaders().getFirst("User-Agent");
+    }
+
+    private String getClientIpAddress(ServerHttpRequest request) {
+        String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            return xForwardedFor.split(",")[0].trim();
+        }
+        String xRealIp = request.getHeaders().getFirst("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null ? remoteAddress.getHostString() : null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.santec.polenta.controller;
+
+import com.santec.polenta.config.SlowQueryConfig;
+import com.santec.polenta.service.SlowQueryLog;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /actuator/slowqueries}) listing the slow tool calls kept by the
+ * {@link SlowQueryLog}. A DELETE clears them.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+    private final SlowQueryConfig config;
+
+    public SlowQueryEndpoint(SlowQueryLog slowQueryLog, SlowQueryConfig config) {
+        this.slowQueryLog = slowQueryLog;
+        this.config = config;
+    }
+
+    @ReadOperation
+    public Map<String, Object> slowQueries() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("enabled", config.isEnabled());
+        result.put("threshold_ms", config.getThresholdMs());
+        result.put("recent", slowQueryLog.getRecent().stream().map(SlowQueryLog.Entry::toMap).toList());
+        result.put("slowest", slowQueryLog.getSlowest().stream().map(SlowQueryLog.Entry::toMap).toList());
+        return result;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryLog.clear();
+    }
+}
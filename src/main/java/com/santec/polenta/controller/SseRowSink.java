@@ -0,0 +1,39 @@
+package com.santec.polenta.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Sends query rows to an SSE stream in chunks as they are read from the cursor.
+ *
+ * @see ChunkedRowSink
+ */
+class SseRowSink extends ChunkedRowSink {
+
+    private final SseEmitter emitter;
+
+    SseRowSink(SseEmitter emitter, Object requestId, Object progressToken, int chunkSize) {
+        super(requestId, progressToken, chunkSize);
+        this.emitter = emitter;
+    }
+
+    @Override
+    protected void send(Map<String, Object> message) throws SQLException {
+        try {
+            emitter.send(message(message));
+        } catch (IOException | IllegalStateException e) {
+            throw new SQLException("Client stopped reading the result stream", e);
+        }
+    }
+
+    /**
+     * Wraps a JSON-RPC message in an SSE "message" event, as the MCP Streamable HTTP transport expects.
+     */
+    static SseEmitter.SseEventBuilder message(Object message) {
+        return SseEmitter.event().name("message").data(message, MediaType.APPLICATION_JSON);
+    }
+}
@@ -0,0 +1,196 @@
+package com.santec.polenta.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.config.MetricsConfig;
+import com.santec.polenta.service.SessionManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MCP stdio transport (profile {@code stdio}): newline-delimited JSON-RPC on stdin/stdout, for local
+ * clients that launch the server as a subprocess. The application starts without a web server and
+ * logs go to stderr, so stdout only carries JSON-RPC messages.
+ *
+ * <p>The process serves a single client, so there is one session: the one created by the last
+ * initialize. Requests are dispatched on the batch executor as they are read and every response is
+ * written as one line when it is ready, so a slow query does not hold back the requests after it;
+ * clients match responses by id. End of input shuts the application down once the calls in flight
+ * have answered.
+ */
+@Component
+@ConditionalOnProperty(name = "mcp.transport", havingValue = "stdio")
+public class StdioTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(StdioTransport.class);
+
+    /** Session used by requests sent before initialize, which the dispatcher rejects */
+    static final String NO_SESSION = "stdio";
+
+    private final JsonRpcHandler jsonRpcHandler;
+    private final SessionManager sessionManager;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService mcpBatchExecutor;
+    private final Timer serialization;
+
+    private volatile String sessionId = NO_SESSION;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    public StdioTransport(JsonRpcHandler jsonRpcHandler, SessionManager sessionManager, ObjectMapper objectMapper,
+                          ExecutorService mcpBatchExecutor, MeterRegistry meterRegistry) {
+        this.jsonRpcHandler = jsonRpcHandler;
+        this.sessionManager = sessionManager;
+        this.objectMapper = objectMapper;
+        this.mcpBatchExecutor = mcpBatchExecutor;
+        this.serialization = MetricsConfig.serializationTimer("stdio", meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(() -> {
+            try {
+                serve(System.in, System.out);
+            } catch (IOException e) {
+                logger.error("stdio transport failed: {}", e.getMessage(), e);
+            }
+            logger.info("stdin closed, shutting down");
+            System.exit(SpringApplication.exit(applicationContext));
+        }, "mcp-stdio");
+        thread.start();
+        logger.info("MCP stdio transport ready");
+    }
+
+    /**
+     * Reads requests from {@code in} until end of input and writes their responses to {@code out},
+     * returning once every response has been written.
+     */
+    @SuppressWarnings("unchecked")
+    void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Phaser inFlight = new Phaser(1);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Object request;
+            try {
+                request = objectMapper.readValue(line, Object.class);
+            } catch (JsonProcessingException e) {
+                logger.warn("Unparseable JSON-RPC message on stdin: {}", e.getOriginalMessage());
+                write(out, JsonRpcHandler.createJsonRpcError(null, -32700, "Parse error", null));
+                continue;
+            }
+            if (request instanceof Map<?, ?> single && "initialize".equals(single.get("method"))) {
+                // Handled in line: the requests that follow belong to the new session.
+                write(out, handleInitialize((Map<String, Object>) single));
+                continue;
+            }
+            inFlight.register();
+            try {
+                mcpBatchExecutor.execute(() -> {
+                    try {
+                        Object response = handle(request);
+                        if (response != null) {
+                            write(out, response);
+                        }
+                    } finally {
+                        inFlight.arriveAndDeregister();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.arriveAndDeregister();
+                write(out, JsonRpcHandler.createJsonRpcError(idOf(request), -32000, "Server busy, retry later", null));
+            }
+        }
+        inFlight.arriveAndAwaitAdvance();
+    }
+
+    private Map<String, Object> handleInitialize(Map<String, Object> request) {
+        String newSessionId = sessionManager.newSessionId();
+        Map<String, Object> response = jsonRpcHandler.handle(request, newSessionId, null);
+        if (response.containsKey("result")) {
+            String previous = sessionId;
+            sessionId = newSessionId;
+            if (!NO_SESSION.equals(previous)) {
+                sessionManager.clearSession(previous);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * @return the response to write, or {@code null} for notifications
+     */
+    @SuppressWarnings("unchecked")
+    private Object handle(Object request) {
+        if (request instanceof List<?> batch) {
+            if (batch.isEmpty()) {
+                return JsonRpcHandler.createJsonRpcError(null, -32600, "Invalid Request: empty batch", null);
+            }
+            List<Map<String, Object>> responses = new ArrayList<>();
+            for (Object entry : batch) {
+                Object response = handle(entry);
+                if (response != null) {
+                    responses.add((Map<String, Object>) response);
+                }
+            }
+            return responses.isEmpty() ? null : responses;
+        }
+        if (!(request instanceof Map<?, ?>)) {
+            return JsonRpcHandler.createJsonRpcError(null, -32600, "Invalid Request", null);
+        }
+        Map<String, Object> single = (Map<String, Object>) request;
+        Map<String, Object> response = jsonRpcHandler.handle(single, sessionId, null);
+        return single.containsKey("id") ? response : null;
+    }
+
+    private Object idOf(Object request) {
+        return request instanceof Map<?, ?> single ? single.get("id") : null;
+    }
+
+    /**
+     * Writes one message as a single line. Responses finish on several threads, so writes are
+     * serialized to keep lines whole. The time to serialize the message is recorded in
+     * {@code mcp.response.serialization}.
+     */
+    private void write(OutputStream out, Object message) {
+        try {
+            long start = System.nanoTime();
+            byte[] json = objectMapper.writeValueAsBytes(message);
+            serialization.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            synchronized (out) {
+                out.write(json);
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write JSON-RPC message to stdout: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.santec.polenta.service;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.FieldType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes the rows of a query as an Arrow IPC stream: the schema comes from the JDBC metadata and the
+ * rows are copied from the cursor into column vectors, written out as a record batch every
+ * {@value #BATCH_SIZE} rows.
+ *
+ * <p>Integers, floating point, decimals, booleans, dates and timestamps (microseconds, no time zone)
+ * keep their type; every other column is sent as UTF-8 text.
+ */
+class ArrowResultSink extends EncodedResultSink {
+
+    static final int BATCH_SIZE = 4096;
+
+    private static final BufferAllocator ROOT_ALLOCATOR = new RootAllocator();
+
+    @FunctionalInterface
+    private interface ColumnWriter {
+        void write(ResultSet resultSet, int column, int row) throws SQLException;
+    }
+
+    private BufferAllocator allocator;
+    private VectorSchemaRoot root;
+    private ArrowStreamWriter writer;
+    private ColumnWriter[] writers;
+    private int rowsInBatch;
+    private int batches;
+
+    @Override
+    protected void open(ResultSetMetaData metaData) throws SQLException {
+        allocator = ROOT_ALLOCATOR.newChildAllocator("query-result", 0, Long.MAX_VALUE);
+        int columnCount = metaData.getColumnCount();
+        List<FieldVector> vectors = new ArrayList<>(columnCount);
+        writers = new ColumnWriter[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            FieldVector vector = createVector(metaData, i + 1);
+            vectors.add(vector);
+            writers[i] = writerFor(vector);
+        }
+        root = new VectorSchemaRoot(vectors);
+        root.allocateNew();
+        writer = new ArrowStreamWriter(root, null, Channels.newChannel(out));
+        try {
+            writer.start();
+        } catch (IOException e) {
+            throw encodingFailed(e);
+        }
+    }
+
+    private FieldVector createVector(ResultSetMetaData metaData, int column) throws SQLException {
+        String name = metaData.getColumnLabel(column);
+        switch (metaData.getColumnType(column)) {
+            case Types.BIGINT:
+                return new BigIntVector(name, allocator);
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return new IntVector(name, allocator);
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return new Float8Vector(name, allocator);
+            case Types.REAL:
+                return new Float4Vector(name, allocator);
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return new BitVector(name, allocator);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                int precision = metaData.getPrecision(column);
+                if (precision > 0 && precision <= 38) {
+                    return new DecimalVector(name, allocator, precision, metaData.getScale(column));
+                }
+                break;
+            case Types.DATE:
+                return new DateDayVector(name, allocator);
+            case Types.TIMESTAMP:
+                return new TimeStampMicroVector(name,
+                        FieldType.nullable(new ArrowType.Timestamp(org.apache.arrow.vector.types.TimeUnit.MICROSECOND, null)),
+                        allocator);
+            default:
+                break;
+        }
+        return new VarCharVector(name, allocator);
+    }
+
+    private static ColumnWriter writerFor(FieldVector vector) {
+        if (vector instanceof BigIntVector v) {
+            return (rs, c, row) -> {
+                long value = rs.getLong(c);
+                if (rs.wasNull()) {
+                    v.setNull(row);
+                } else {
+                    v.setSafe(row, value);
+                }
+            };
+        }
+        if (vector instanceof IntVector v) {
+            return (rs, c, row) -> {
+                int value = rs.getInt(c);
+                if (rs.wasNull()) {
+                    v.setNull(row);
+                } else {
+                    v.setSafe(row, value);
+                }
+            };
+        }
+        if (vector instanceof Float8Vector v) {
+            return (rs, c, row) -> {
+                double value = rs.getDouble(c);
+                if (rs.wasNull()) {
+                    v.setNull(row);
+                } else {
+                    v.setSafe(row, value);
+                }
+            };
+        }
+        if (vector instanceof Float4Vector v) {
+            return (rs, c, row) -> {
+                float value = rs.getFloat(c);
+                if (rs.wasNull()) {
+                    v.setNull(row);
+                } else {
+                    v.setSafe(row, value);
+                }
+            };
+        }
+        if (vector instanceof BitVector v) {
+            return (rs, c, row) -> {
+                boolean value = rs.getBoolean(c);
+                if (rs.wasNull()) {
+                    v.setNull(row);
+                } else {
+                    v.setSafe(row, value ? 1 : 0);
+                }
+            };
+        }
+        if (vector instanceof DecimalVector v) {
+            return (rs, c, row) -> {
+                BigDecimal value = rs.getBigDecimal(c);
+                if (value == null) {
+                    v.setNull(row);
+                } else {
+                    v.setSafe(row, value.setScale(v.getScale(), RoundingMode.HALF_UP));
+                }
+            };
+        }
+        if (vector instanceof DateDayVector v) {
+            return (rs, c, row) -> {
+                Date value = rs.getDate(c);
+                if (value == null) {
+                    v.setNull(row);
+                } else {
+                    v.setSafe(row, (int) value.toLocalDate().toEpochDay());
+                }
+            };
+        }
+        if (vector instanceof TimeStampMicroVector v) {
+            return (rs, c, row) -> {
+                Timestamp value = rs.getTimestamp(c);
+                if (value == null) {
+                    v.setNull(row);
+                } else {
+                    LocalDateTime local = value.toLocalDateTime();
+                    v.setSafe(row, local.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + local.getNano() / 1_000);
+                }
+            };
+        }
+        VarCharVector v = (VarCharVector) vector;
+        return (rs, c, row) -> {
+            String value = rs.getString(c);
+            if (value == null) {
+                v.setNull(row);
+            } else {
+                v.setSafe(row, value.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+    }
+
+    @Override
+    public void row(ResultSet resultSet) throws SQLException {
+        for (int i = 0; i < writers.length; i++) {
+            writers[i].write(resultSet, i + 1, rowsInBatch);
+        }
+        rowsInBatch++;
+        if (rowsInBatch == BATCH_SIZE) {
+            writeBatch();
+        }
+    }
+
+    @Override
+    public void end(long rowCount) throws SQLException {
+        if (rowsInBatch > 0 || batches == 0) {
+            writeBatch();
+        }
+        try {
+            writer.end();
+        } catch (IOException e) {
+            throw encodingFailed(e);
+        }
+    }
+
+    private void writeBatch() throws SQLException {
+        root.setRowCount(rowsInBatch);
+        try {
+            writer.writeBatch();
+        } catch (IOException e) {
+            throw encodingFailed(e);
+        }
+        batches++;
+        rowsInBatch = 0;
+        root.allocateNew();
+    }
+
+    @Override
+    public void close() {
+        if (root != null) {
+            root.close();
+        }
+        if (allocator != null) {
+            allocator.close();
+        }
+    }
+}
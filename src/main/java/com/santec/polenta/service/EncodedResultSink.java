@@ -0,0 +1,198 @@
+package com.santec.polenta.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Encodes the rows of a query in one of the compact {@link ResultFormat}s, reading them straight from
+ * the cursor.
+ *
+ * <p>When the client's sink is a {@link PayloadSink} the bytes go to it as they are produced;
+ * otherwise they are kept in memory, up to a maximum size past which the query fails. Progress
+ * reports are forwarded to the client's sink either way.
+ *
+ * <p>NDJSON writes one JSON object per line; CBOR and Smile write an array of row objects with the
+ * same typed column writers as the JSON response. Arrow is handled by {@link ArrowResultSink}.
+ */
+public abstract class EncodedResultSink implements RowSink, AutoCloseable {
+
+    /** Where the encoded bytes go, set when the query returns its first result */
+    protected OutputStream out;
+
+    private ResultFormat format;
+    private RowSink client;
+    private long maxBytes = Long.MAX_VALUE;
+    private ByteArrayOutputStream buffer;
+    private long payloadBytes;
+    private boolean started;
+
+    /**
+     * A sink keeping the whole payload in memory, with no size limit.
+     */
+    public static EncodedResultSink forFormat(ResultFormat format) {
+        return forFormat(format, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * A sink sending the payload to {@code client} if it is a {@link PayloadSink}, or keeping it in
+     * memory up to {@code maxBytes} otherwise.
+     *
+     * @param client the sink of the client's transport, or {@code null}
+     */
+    public static EncodedResultSink forFormat(ResultFormat format, RowSink client, long maxBytes) {
+        EncodedResultSink sink = switch (format) {
+            case NDJSON -> new JacksonResultSink(new JsonFactory(), false);
+            case CBOR -> new JacksonResultSink(new CBORFactory(), true);
+            case SMILE -> new JacksonResultSink(new SmileFactory(), true);
+            case ARROW -> new ArrowResultSink();
+            case JSON -> throw new IllegalArgumentException("JSON results are not encoded into a payload");
+        };
+        sink.format = format;
+        sink.client = client;
+        sink.maxBytes = maxBytes;
+        return sink;
+    }
+
+    @Override
+    public final void start(ResultSetMetaData metaData) throws SQLException {
+        started = true;
+        OutputStream target = client instanceof PayloadSink payloadSink ? payloadSink.startPayload(format) : null;
+        if (target == null) {
+            buffer = new ByteArrayOutputStream();
+            target = buffer;
+        }
+        out = new FilterOutputStream(target) {
+            @Override
+            public void write(int b) throws IOException {
+                count(1);
+                super.out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                count(len);
+                super.out.write(b, off, len);
+            }
+        };
+        open(metaData);
+    }
+
+    private void count(int length) throws IOException {
+        payloadBytes += length;
+        if (buffer != null && payloadBytes > maxBytes) {
+            throw new IOException("the " + format.name().toLowerCase(Locale.ROOT) + " payload exceeds "
+                    + maxBytes + " bytes, add a LIMIT to the query");
+        }
+    }
+
+    protected abstract void open(ResultSetMetaData metaData) throws SQLException;
+
+    @Override
+    public void progress(QueryProgress progress) throws SQLException {
+        if (client != null) {
+            client.progress(progress);
+        }
+    }
+
+    /**
+     * Whether a query ran and the payload holds its result.
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Whether the payload was sent to the client's {@link PayloadSink} rather than kept in memory.
+     */
+    public boolean isStreamed() {
+        return started && buffer == null;
+    }
+
+    /**
+     * Size of the encoded payload, before any base64 encoding.
+     */
+    public long getPayloadBytes() {
+        return payloadBytes;
+    }
+
+    /**
+     * The payload kept in memory; empty if it was streamed.
+     */
+    public byte[] toByteArray() {
+        return buffer != null ? buffer.toByteArray() : new byte[0];
+    }
+
+    static SQLException encodingFailed(IOException e) {
+        return new SQLException("Could not encode the result: " + e.getMessage(), e);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static final class JacksonResultSink extends EncodedResultSink {
+
+        private final JsonFactory factory;
+        private final boolean array;
+        private JsonGenerator generator;
+        private JsonRowWriter rowWriter;
+
+        private JacksonResultSink(JsonFactory factory, boolean array) {
+            // The codec serializes the columns without a typed writer.
+            this.factory = new ObjectMapper(factory).getFactory();
+            this.array = array;
+        }
+
+        @Override
+        protected void open(ResultSetMetaData metaData) throws SQLException {
+            rowWriter = JsonRowWriter.forMetaData(metaData);
+            try {
+                generator = factory.createGenerator(out);
+                if (array) {
+                    generator.writeStartArray();
+                } else {
+                    // Rows are separated by the newline written after each of them.
+                    generator.setRootValueSeparator(null);
+                }
+            } catch (IOException e) {
+                throw encodingFailed(e);
+            }
+        }
+
+        @Override
+        public void row(ResultSet resultSet) throws SQLException {
+            try {
+                rowWriter.writeRow(resultSet, generator);
+                if (!array) {
+                    generator.writeRaw('\n');
+                }
+            } catch (IOException e) {
+                throw encodingFailed(e);
+            }
+        }
+
+        @Override
+        public void end(long rowCount) throws SQLException {
+            try {
+                if (array) {
+                    generator.writeEndArray();
+                }
+                generator.close();
+            } catch (IOException e) {
+                throw encodingFailed(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.santec.polenta.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable index from stemmed English/Spanish words to the tables whose names contain them,
+ * built once per metadata snapshot so that entity resolution is a hash lookup.
+ *
+ * <p>Table names are split on {@code _} and {@code -}; each part and the whole name are stemmed
+ * with {@link #stem(String)} (accents folded, singular and plural reduced to the same form).
+ * A table whose whole name matches the entity scores 1.0; a table that only contains it as
+ * one of its parts scores lower the more parts the name has.
+ */
+public final class EntityIndex {
+
+    private static final Comparator<Candidate> RANKING = Comparator
+            .comparingDouble(Candidate::score).reversed()
+            .thenComparing(Candidate::schema)
+            .thenComparing(Candidate::table);
+
+    private static final EntityIndex EMPTY = new EntityIndex(Map.of());
+
+    private final Map<String, List<Candidate>> candidatesByStem;
+
+    private EntityIndex(Map<String, List<Candidate>> candidatesByStem) {
+        this.candidatesByStem = candidatesByStem;
+    }
+
+    public static EntityIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds the index from a schema -> table -> columns snapshot.
+     */
+    public static EntityIndex build(Map<String, Map<String, List<String>>> metadata) {
+        Map<String, Map<String, Candidate>> index = new HashMap<>();
+        for (Map.Entry<String, Map<String, List<String>>> schema : metadata.entrySet()) {
+            for (String table : schema.getValue().keySet()) {
+                String[] parts = table.toLowerCase(Locale.ROOT).split("[_\\-]+");
+                add(index, stem(table.toLowerCase(Locale.ROOT)), new Candidate(schema.getKey(), table, 1.0));
+                for (String part : parts) {
+                    if (part.isEmpty() || Character.isDigit(part.charAt(0))) {
+                        continue;
+                    }
+                    double score = parts.length == 1 ? 1.0 : 0.5 + 0.4 / parts.length;
+                    add(index, stem(part), new Candidate(schema.getKey(), table, score));
+                }
+            }
+        }
+        Map<String, List<Candidate>> ranked = new HashMap<>();
+        index.forEach((stem, byTable) -> {
+            List<Candidate> candidates = new ArrayList<>(byTable.values());
+            candidates.sort(RANKING);
+            ranked.put(stem, List.copyOf(candidates));
+        });
+        return new EntityIndex(Collections.unmodifiableMap(ranked));
+    }
+
+    private static void add(Map<String, Map<String, Candidate>> index, String stem, Candidate candidate) {
+        // Keep only the best score per table for a given stem.
+        index.computeIfAbsent(stem, k -> new LinkedHashMap<>())
+                .merge(candidate.schema() + "." + candidate.table(), candidate,
+                        (a, b) -> a.score() >= b.score() ? a : b);
+    }
+
+    /**
+     * Returns the tables matching the entity in every schema, best match first.
+     */
+    public List<Candidate> lookup(String entity) {
+        if (entity == null || entity.isBlank()) {
+            return List.of();
+        }
+        return candidatesByStem.getOrDefault(stem(entity), List.of());
+    }
+
+    /**
+     * Returns the tables matching the entity in the given schema, best match first.
+     */
+    public List<Candidate> lookup(String entity, String schema) {
+        List<Candidate> candidates = lookup(entity);
+        List<Candidate> inSchema = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (candidate.schema().equalsIgnoreCase(schema)) {
+                inSchema.add(candidate);
+            }
+        }
+        return inSchema;
+    }
+
+    public int size() {
+        return candidatesByStem.size();
+    }
+
+    /**
+     * Reduces an English or Spanish word to a form shared by its singular and plural:
+     * lower case, accents folded, then "-ies" to "-y", "-es" after r/l/n/d/z/j/s/x dropped,
+     * a plural "-s" dropped, and finally a trailing "e" after a consonant dropped
+     * (clientes/cliente -> client, vendedores/vendedor -> vendedor, países/país -> pais,
+     * countries/country -> country, sales/sale -> sal).
+     */
+    static String stem(String word) {
+        String w = Normalizer.normalize(word.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "");
+        int n = w.length();
+        if (n > 4 && w.endsWith("ies")) {
+            w = w.substring(0, n - 3) + "y";
+        } else if (n > 4 && w.endsWith("es") && "rlndzjsx".indexOf(w.charAt(n - 3)) >= 0) {
+            w = w.substring(0, n - 2);
+        } else if (n > 3 && w.endsWith("s") && "sui".indexOf(w.charAt(n - 2)) < 0) {
+            w = w.substring(0, n - 1);
+        }
+        n = w.length();
+        if (n > 3 && w.charAt(n - 1) == 'e' && "aeiou".indexOf(w.charAt(n - 2)) < 0) {
+            w = w.substring(0, n - 1);
+        }
+        return w;
+    }
+
+    public record Candidate(String schema, String table, double score) {
+    }
+}
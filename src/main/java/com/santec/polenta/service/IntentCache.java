@@ -0,0 +1,105 @@
+package com.santec.polenta.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache from normalized query text to its {@link ParsedIntent}, so that repeated
+ * phrasings skip intent matching, extraction and table resolution. Entries belong to one
+ * metadata snapshot and the whole cache is dropped when {@link MetadataCacheService} reloads. A
+ * lookup still carrying an older version (read before the reload) is a miss and leaves the cache as is.
+ *
+ * <p>Hits and misses are counted for the {@code mcp.cache.requests} metric.
+ */
+@Component
+public class IntentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntentCache.class);
+
+    private final int maxSize;
+    private final Map<String, ParsedIntent> entries;
+    private long snapshotVersion = -1;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public IntentCache(@Value("${mcp.intent-cache.max-size:1000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedIntent> eldest) {
+                return size() > IntentCache.this.maxSize;
+            }
+        };
+    }
+
+    public synchronized ParsedIntent get(String query, long metadataVersion) {
+        if (metadataVersion != snapshotVersion) {
+            if (metadataVersion > snapshotVersion) {
+                if (!entries.isEmpty()) {
+                    logger.debug("Metadata snapshot changed ({} -> {}), dropping {} cached intents",
+                            snapshotVersion, metadataVersion, entries.size());
+                }
+                entries.clear();
+                snapshotVersion = metadataVersion;
+            }
+            misses.increment();
+            return null;
+        }
+        ParsedIntent intent = entries.get(normalize(query));
+        (intent != null ? hits : misses).increment();
+        return intent;
+    }
+
+    public synchronized void put(String query, long metadataVersion, ParsedIntent intent) {
+        if (maxSize <= 0 || metadataVersion != snapshotVersion) {
+            return;
+        }
+        entries.put(normalize(query), intent);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Lower-cases the query, collapses blanks and drops trailing punctuation so that trivially
+     * different phrasings ("Show sample data from customers?") share one entry.
+     */
+    static String normalize(String query) {
+        StringBuilder sb = new StringBuilder(query.length());
+        boolean blank = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                blank = sb.length() > 0;
+            } else {
+                if (blank) {
+                    sb.append(' ');
+                    blank = false;
+                }
+                sb.append(c);
+            }
+        }
+        int end = sb.length();
+        while (end > 0 && ".?!;".indexOf(sb.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,169 @@
+package com.santec.polenta.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiled keyword automaton that classifies a natural language query into an intent.
+ *
+ * <p>Each rule is a sequence of token steps written in a small DSL:
+ * <ul>
+ *   <li>{@code word} matches the token literally, {@code a|b} matches any of the alternatives</li>
+ *   <li>{@code *} matches any single token</li>
+ *   <li>{@code ..} allows any number of tokens between the surrounding steps; steps written
+ *       without it must be adjacent</li>
+ *   <li>a leading {@code ^} anchors the rule to the first token</li>
+ * </ul>
+ * Rules are matched simultaneously with a shift-and automaton (one bit per step), so the
+ * query is scanned once regardless of the number of rules. When several rules match, the one
+ * registered first wins, which makes the result independent of any hash iteration order.
+ */
+public final class IntentMatcher {
+
+    private static final long[] NO_MATCH = new long[0];
+
+    private final String[] intents;
+    private final long[] acceptMasks;
+    private final long[] gapMasks;
+    private final long[] anyMasks;
+    private final long[] initialStates;
+    private final Map<String, long[]> tokenMasks;
+    private final String defaultIntent;
+
+    private IntentMatcher(Builder builder) {
+        int n = builder.rules.size();
+        this.intents = new String[n];
+        this.acceptMasks = new long[n];
+        this.gapMasks = new long[n];
+        this.anyMasks = new long[n];
+        this.initialStates = new long[n];
+        Map<String, long[]> masks = new HashMap<>();
+        for (int r = 0; r < n; r++) {
+            Rule rule = builder.rules.get(r);
+            intents[r] = rule.intent;
+            acceptMasks[r] = 1L << rule.steps.size();
+            initialStates[r] = 1L;
+            if (!rule.anchored) {
+                gapMasks[r] |= 1L;
+            }
+            for (int i = 0; i < rule.steps.size(); i++) {
+                Step step = rule.steps.get(i);
+                if (step.gapBefore) {
+                    gapMasks[r] |= 1L << i;
+                }
+                if (step.tokens == null) {
+                    anyMasks[r] |= 1L << i;
+                    continue;
+                }
+                for (String token : step.tokens) {
+                    masks.computeIfAbsent(token, k -> new long[n])[r] |= 1L << i;
+                }
+            }
+        }
+        this.tokenMasks = Collections.unmodifiableMap(masks);
+        this.defaultIntent = builder.defaultIntent;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Classifies the query.
+     *
+     * @return the intent of the highest priority matching rule, or the default intent
+     */
+    public String match(String query) {
+        long[] states = initialStates.clone();
+        int n = intents.length;
+        int best = n;
+        int length = query.length();
+        int i = 0;
+        while (i < length && best > 0) {
+            while (i < length && !isTokenChar(query.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int start = i;
+            while (i < length && isTokenChar(query.charAt(i))) {
+                i++;
+            }
+            long[] masks = tokenMasks.getOrDefault(token(query, start, i), NO_MATCH);
+            // Only rules with a higher priority than the best match so far can still change the result.
+            for (int r = 0; r < best; r++) {
+                long match = anyMasks[r] | (masks.length == 0 ? 0L : masks[r]);
+                long state = ((states[r] & match) << 1) | (states[r] & gapMasks[r]);
+                states[r] = state;
+                if ((state & acceptMasks[r]) != 0) {
+                    best = r;
+                }
+            }
+        }
+        return best < n ? intents[best] : defaultIntent;
+    }
+
+    private static boolean isTokenChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static String token(String query, int start, int end) {
+        return query.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    private record Step(String[] tokens, boolean gapBefore) {
+    }
+
+    private record Rule(String intent, List<Step> steps, boolean anchored) {
+    }
+
+    public static final class Builder {
+        private final List<Rule> rules = new ArrayList<>();
+        private String defaultIntent;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a rule with lower priority than every rule added before it.
+         */
+        public Builder rule(String intent, String expression) {
+            String[] parts = expression.trim().toLowerCase(Locale.ROOT).split("\\s+");
+            boolean anchored = parts[0].startsWith("^");
+            if (anchored) {
+                parts[0] = parts[0].substring(1);
+            }
+            List<Step> steps = new ArrayList<>();
+            boolean gap = false;
+            for (String part : parts) {
+                if (part.equals("..")) {
+                    gap = true;
+                    continue;
+                }
+                String[] tokens = part.equals("*") ? null : part.split("\\|");
+                // The first step of an unanchored rule may start anywhere in the query.
+                steps.add(new Step(tokens, gap && !steps.isEmpty()));
+                gap = false;
+            }
+            if (steps.isEmpty() || steps.size() > 62) {
+                throw new IllegalArgumentException("Invalid intent rule for " + intent + ": " + expression);
+            }
+            rules.add(new Rule(intent, List.copyOf(steps), anchored));
+            return this;
+        }
+
+        public Builder defaultIntent(String intent) {
+            this.defaultIntent = intent;
+            return this;
+        }
+
+        public IntentMatcher build() {
+            return new IntentMatcher(this);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.santec.polenta.service;
+
+import java.util.Map;
+
+/**
+ * Tool arguments that do not satisfy the tool's input schema, with the errors by argument path.
+ */
+public class InvalidParamsException extends IllegalArgumentException {
+
+    private final Map<String, String> errors;
+
+    public InvalidParamsException(Map<String, String> errors) {
+        super("Invalid params: " + errors);
+        this.errors = Map.copyOf(errors);
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,224 @@
+package com.santec.polenta.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes the current row of a {@link ResultSet} as a JSON object straight to a {@link JsonGenerator},
+ * without building a map per row.
+ *
+ * <p>Column names are serialized once and every column gets a writer chosen from its JDBC type, which
+ * reads the value with the primitive getter (no boxing for integers, floats and booleans). Timestamps
+ * and dates are written as ISO-8601 local values, as they are stored in Trino; types without a
+ * dedicated writer fall back to the generator's codec.
+ *
+ * <p>{@link #readRow} reads a row into a map with the same conversions, for copies of a streamed result
+ * that must serialize exactly as it was streamed.
+ */
+public final class JsonRowWriter {
+
+    @FunctionalInterface
+    interface ColumnWriter {
+        void write(ResultSet resultSet, int column, JsonGenerator generator) throws SQLException, IOException;
+    }
+
+    @FunctionalInterface
+    interface ColumnReader {
+        Object read(ResultSet resultSet, int column) throws SQLException;
+    }
+
+    private static final ColumnWriter LONG = (rs, c, gen) -> {
+        long value = rs.getLong(c);
+        if (rs.wasNull()) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    };
+
+    private static final ColumnWriter DOUBLE = (rs, c, gen) -> {
+        double value = rs.getDouble(c);
+        if (rs.wasNull()) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    };
+
+    private static final ColumnWriter FLOAT = (rs, c, gen) -> {
+        float value = rs.getFloat(c);
+        if (rs.wasNull()) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    };
+
+    private static final ColumnWriter BOOLEAN = (rs, c, gen) -> {
+        boolean value = rs.getBoolean(c);
+        if (rs.wasNull()) {
+            gen.writeNull();
+        } else {
+            gen.writeBoolean(value);
+        }
+    };
+
+    private static final ColumnWriter DECIMAL = (rs, c, gen) -> {
+        BigDecimal value = rs.getBigDecimal(c);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    };
+
+    private static final ColumnWriter VARCHAR = (rs, c, gen) -> {
+        String value = rs.getString(c);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    };
+
+    private static final ColumnWriter TIMESTAMP = (rs, c, gen) -> {
+        Timestamp value = rs.getTimestamp(c);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value.toLocalDateTime().toString());
+        }
+    };
+
+    private static final ColumnWriter DATE = (rs, c, gen) -> {
+        Date value = rs.getDate(c);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value.toLocalDate().toString());
+        }
+    };
+
+    private static final ColumnWriter OBJECT = (rs, c, gen) -> gen.writeObject(rs.getObject(c));
+
+    private static final ColumnReader READ_LONG = (rs, c) -> {
+        long value = rs.getLong(c);
+        return rs.wasNull() ? null : value;
+    };
+
+    private static final ColumnReader READ_DOUBLE = (rs, c) -> {
+        double value = rs.getDouble(c);
+        return rs.wasNull() ? null : value;
+    };
+
+    private static final ColumnReader READ_FLOAT = (rs, c) -> {
+        float value = rs.getFloat(c);
+        return rs.wasNull() ? null : value;
+    };
+
+    private static final ColumnReader READ_BOOLEAN = (rs, c) -> {
+        boolean value = rs.getBoolean(c);
+        return rs.wasNull() ? null : value;
+    };
+
+    private static final ColumnReader READ_TIMESTAMP = (rs, c) -> {
+        Timestamp value = rs.getTimestamp(c);
+        return value == null ? null : value.toLocalDateTime().toString();
+    };
+
+    private static final ColumnReader READ_DATE = (rs, c) -> {
+        Date value = rs.getDate(c);
+        return value == null ? null : value.toLocalDate().toString();
+    };
+
+    private final SerializedString[] names;
+    private final ColumnWriter[] writers;
+    private final ColumnReader[] readers;
+
+    private JsonRowWriter(SerializedString[] names, ColumnWriter[] writers, ColumnReader[] readers) {
+        this.names = names;
+        this.writers = writers;
+        this.readers = readers;
+    }
+
+    public static JsonRowWriter forMetaData(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        SerializedString[] names = new SerializedString[columnCount];
+        ColumnWriter[] writers = new ColumnWriter[columnCount];
+        ColumnReader[] readers = new ColumnReader[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            names[i] = new SerializedString(metaData.getColumnLabel(i + 1));
+            writers[i] = writerFor(metaData.getColumnType(i + 1));
+            readers[i] = readerFor(metaData.getColumnType(i + 1));
+        }
+        return new JsonRowWriter(names, writers, readers);
+    }
+
+    static ColumnWriter writerFor(int sqlType) {
+        return switch (sqlType) {
+            case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> LONG;
+            case Types.DOUBLE, Types.FLOAT -> DOUBLE;
+            case Types.REAL -> FLOAT;
+            case Types.DECIMAL, Types.NUMERIC -> DECIMAL;
+            case Types.BOOLEAN, Types.BIT -> BOOLEAN;
+            case Types.VARCHAR, Types.CHAR, Types.LONGVARCHAR, Types.NVARCHAR, Types.NCHAR -> VARCHAR;
+            case Types.TIMESTAMP -> TIMESTAMP;
+            case Types.DATE -> DATE;
+            default -> OBJECT;
+        };
+    }
+
+    static ColumnReader readerFor(int sqlType) {
+        return switch (sqlType) {
+            case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> READ_LONG;
+            case Types.DOUBLE, Types.FLOAT -> READ_DOUBLE;
+            case Types.REAL -> READ_FLOAT;
+            case Types.DECIMAL, Types.NUMERIC -> ResultSet::getBigDecimal;
+            case Types.BOOLEAN, Types.BIT -> READ_BOOLEAN;
+            case Types.VARCHAR, Types.CHAR, Types.LONGVARCHAR, Types.NVARCHAR, Types.NCHAR -> ResultSet::getString;
+            case Types.TIMESTAMP -> READ_TIMESTAMP;
+            case Types.DATE -> READ_DATE;
+            default -> ResultSet::getObject;
+        };
+    }
+
+    /**
+     * Reads the row the cursor is positioned on into a map that serializes as {@link #writeRow} writes it.
+     */
+    public Map<String, Object> readRow(ResultSet resultSet) throws SQLException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            row.put(names[i].getValue(), readers[i].read(resultSet, i + 1));
+        }
+        return row;
+    }
+
+    /**
+     * Writes the row the cursor is positioned on as one JSON object.
+     */
+    public void writeRow(ResultSet resultSet, JsonGenerator generator) throws SQLException, IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < names.length; i++) {
+            generator.writeFieldName(names[i]);
+            try {
+                writers[i].write(resultSet, i + 1, generator);
+            } catch (SQLException e) {
+                // Writers read before writing: give the pending field a value so the output stays well-formed.
+                generator.writeNull();
+                throw e;
+            }
+        }
+        generator.writeEndObject();
+    }
+}
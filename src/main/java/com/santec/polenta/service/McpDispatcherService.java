@@ -1,6 +1,10 @@
 package com.santec.polenta.service;
 
+import com.santec.polenta.config.MetricsConfig;
 import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.tool.ToolBusyException;
+import com.santec.polenta.service.tool.ToolExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,59 +13,110 @@ import org.springframework.stereotype.Service;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Dispatches MCP methods to their handlers.
+ *
+ * <p>Every method is timed in {@code mcp.requests}, tagged by {@code method} and {@code outcome}
+ * ({@code success}, {@code invalid}, {@code rejected} or {@code error}), and every tool call in
+ * {@code mcp.tool.calls}, tagged by {@code tool}, {@code intent} (the type of result) and
+ * {@code outcome} ({@code success}, {@code error} or {@code busy}).
+ *
+ * <p>Each tool call collects its {@link RequestTimings}; the stages are aggregated in
+ * {@code mcp.tool.stages}, tagged by {@code tool} and {@code stage}, and the breakdown is returned in
+ * the result's {@code timings} field when {@code mcp.timings.include-in-response} is set or the call
+ * asks for it with {@code _meta.timings: true}. Being part of the result, that breakdown cannot include
+ * the serialization of the response body, which the transports time in {@code mcp.response.serialization}.
+ * Slow calls are kept in the {@link SlowQueryLog}.
+ * Each tool call is also traced as an {@code mcp.tool} span.
+ */
 @Service
 public class McpDispatcherService {
 
     private static final Logger logger = LoggerFactory.getLogger(McpDispatcherService.class);
 
-    private final QueryIntelligenceService queryIntelligenceService;
+    private static final Set<String> METHODS = Set.of("initialize", "ping", "tools/list", "tools/call");
+
     private final SessionManager sessionManager;
     private final ToolRegistry toolRegistry;
-    private final MetadataCacheTool metadataCacheTool;
+    private final ToolExecutor toolExecutor;
+    private final RateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final SlowQueryLog slowQueryLog;
+    private final McpTracing tracing;
 
     private final String serverName;
     private final String serverVersion;
     private final String serverDescription;
+    private final boolean timingsInResponse;
 
     public McpDispatcherService(
-            QueryIntelligenceService queryIntelligenceService,
             SessionManager sessionManager,
             ToolRegistry toolRegistry,
-            MetadataCacheTool metadataCacheTool,
+            ToolExecutor toolExecutor,
+            RateLimiter rateLimiter,
+            MeterRegistry meterRegistry,
+            SlowQueryLog slowQueryLog,
+            McpTracing tracing,
             @Value("${mcp.server.name}") String serverName,
             @Value("${mcp.server.version}") String serverVersion,
-            @Value("${mcp.server.description}") String serverDescription) {
-        this.queryIntelligenceService = queryIntelligenceService;
+            @Value("${mcp.server.description}") String serverDescription,
+            @Value("${mcp.timings.include-in-response:false}") boolean timingsInResponse) {
         this.sessionManager = sessionManager;
         this.toolRegistry = toolRegistry;
-        this.metadataCacheTool = metadataCacheTool;
+        this.toolExecutor = toolExecutor;
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.slowQueryLog = slowQueryLog;
+        this.tracing = tracing;
         this.serverName = serverName;
         this.serverVersion = serverVersion;
         this.serverDescription = serverDescription;
+        this.timingsInResponse = timingsInResponse;
     }
 
     public Map<String, Object> dispatch(String method, Map<String, Object> params, String sessionId) {
+        return dispatch(method, params, sessionId, null);
+    }
+
+    /**
+     * Dispatches the method, streaming the rows returned by {@code query_data} and {@code sample_data}
+     * to the sink when one is given. Other methods and tools ignore the sink.
+     *
+     * @throws ToolBusyException if the executor of the called tool is saturated
+     * @throws RateLimitExceededException if the session called the tool too often
+     */
+    public Map<String, Object> dispatch(String method, Map<String, Object> params, String sessionId, RowSink sink) {
         logger.info("Dispatching method: {} with params: {} for session: {}", method, params, sessionId);
+        long start = System.nanoTime();
+        String outcome = "error";
         try {
-            switch (method) {
-                case "initialize":
-                    return handleInitialize(sessionId);
-                case "ping":
-                    return handlePing(sessionId);
-                case "tools/list":
-                    return handleToolsList();
-                case "tools/call":
-                    return handleToolsCall(params);
-                default:
-                    throw new IllegalArgumentException("Unknown method: " + method);
-            }
-        } catch (IllegalArgumentException | IllegalStateException e) {
+            Map<String, Object> result = switch (method) {
+                case "initialize" -> handleInitialize(sessionId);
+                case "ping" -> handlePing(sessionId);
+                case "tools/list" -> handleToolsList();
+                case "tools/call" -> handleToolsCall(params, sessionId, sink);
+                default -> throw new IllegalArgumentException("Unknown method: " + method);
+            };
+            outcome = "success";
+            return result;
+        } catch (IllegalArgumentException e) {
+            outcome = "invalid";
+            throw e;
+        } catch (IllegalStateException e) {
+            outcome = "rejected";
             throw e;
         } catch (Exception e) {
             logger.error("Internal error dispatching method {}: {}", method, e.getMessage(), e);
             throw new RuntimeException("Internal error: " + e.getMessage(), e);
+        } finally {
+            MetricsConfig.latencyTimer("mcp.requests", "Time to handle an MCP method")
+                    .tags("method", method != null && METHODS.contains(method) ? method : "unknown", "outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
@@ -90,13 +145,13 @@ public class McpDispatcherService {
 
     private Map<String, Object> handleToolsList() {
         logger.info("Handling tools/list");
-        List<McpTool> tools = toolRegistry.getTools();
         Map<String, Object> result = new HashMap<>();
-        result.put("tools", tools);
+        // Serialized once at startup and written verbatim.
+        result.put("tools", toolRegistry.getToolsJson());
         return result;
     }
 
-    private Map<String, Object> handleToolsCall(Map<String, Object> params) {
+    private Map<String, Object> handleToolsCall(Map<String, Object> params, String sessionId, RowSink sink) {
         logger.info("Handling tools/call with params: {}", params);
 
         if (params == null) {
@@ -112,90 +167,36 @@ public class McpDispatcherService {
         }
 
         // Buscar la tool
-        McpTool tool = toolRegistry.getTools().stream()
-                .filter(t -> toolName.equals(t.getName()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Unknown tool: " + toolName));
-
-        // Validar argumentos según el input_schema
-        Map<String, Object> inputSchema = tool.getInputSchema();
-        List<String> required = inputSchema != null && inputSchema.get("required") instanceof List ?
-                (List<String>) inputSchema.get("required") : List.of();
-        Map<String, Object> properties = inputSchema != null && inputSchema.get("properties") instanceof Map ?
-                (Map<String, Object>) inputSchema.get("properties") : Map.of();
-        Map<String, Object> validationErrors = new HashMap<>();
-        // Validar requeridos
-        for (String req : required) {
-            if (!arguments.containsKey(req) || arguments.get(req) == null || arguments.get(req).toString().isEmpty()) {
-                validationErrors.put(req, "Missing required parameter");
-            }
-        }
-        // Validar tipos básicos (solo string, number, boolean)
-        for (String key : arguments.keySet()) {
-            if (properties.containsKey(key)) {
-                Object propSchema = properties.get(key);
-                String type = propSchema instanceof Map ? (String) ((Map<?, ?>) propSchema).get("type") : null;
-                Object value = arguments.get(key);
-                if (type != null && value != null) {
-                    boolean valid = switch (type) {
-                        case "string" -> value instanceof String;
-                        case "number" -> value instanceof Number;
-                        case "boolean" -> value instanceof Boolean;
-                        default -> true;
-                    };
-                    if (!valid) {
-                        validationErrors.put(key, "Invalid type: expected " + type);
-                    }
-                }
-            }
+        McpTool tool = toolRegistry.getTool(toolName);
+        if (tool == null) {
+            throw new IllegalArgumentException("Unknown tool: " + toolName);
         }
+
+        // Validar argumentos con el validador compilado del input_schema
+        Map<String, String> validationErrors = toolRegistry.getValidator(toolName).validate(arguments);
         if (!validationErrors.isEmpty()) {
-            throw new IllegalArgumentException("Invalid params: " + validationErrors);
+            throw new InvalidParamsException(validationErrors);
         }
 
-        return executeToolCall(toolName, arguments);
+        // Limitar la frecuencia de llamadas por sesión y tool
+        rateLimiter.acquire(sessionId, toolName);
+
+        boolean includeTimings = timingsInResponse
+                || (params.get("_meta") instanceof Map<?, ?> meta && Boolean.TRUE.equals(meta.get("timings")));
+        return executeToolCall(toolName, arguments, sink, sessionId, includeTimings);
     }
 
-    private Map<String, Object> executeToolCall(String toolName, Map<String, Object> arguments) {
-        Map<String, Object> result;
+    private Map<String, Object> executeToolCall(String toolName, Map<String, Object> arguments, RowSink sink,
+                                                String sessionId, boolean includeTimings) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        Map<String, Object> result = null;
+        RequestTimings timings = new RequestTimings();
+        RequestTimings previous = RequestTimings.bind(timings);
+        McpTracing.SpanScope span = tracing.start("mcp.tool").tag("mcp.tool.name", toolName);
         try {
-            switch (toolName) {
-                case "query_data":
-                    if (arguments == null || arguments.get("query") == null) {
-                        throw new IllegalArgumentException("Parameter 'query' is required and cannot be null");
-                    }
-                    String query = (String) arguments.get("query");
-                    result = queryIntelligenceService.processNaturalQuery(query);
-                    break;
-                case "metadata":
-                    String schema = arguments != null ? (String) arguments.get("schema") : null;
-                    String table = arguments != null ? (String) arguments.get("table") : null;
-                    result = metadataCacheTool.metadata(schema, table);
-                    break;
-                case "sample_data":
-                    if (arguments == null || arguments.get("table_name") == null) {
-                        throw new IllegalArgumentException("Parameter 'table_name' is required and cannot be null");
-                    }
-                    String sampleTable = (String) arguments.get("table_name");
-                    result = queryIntelligenceService.processNaturalQuery("show sample data from " + sampleTable);
-                    break;
-                case "search_tables":
-                    if (arguments == null || arguments.get("keyword") == null) {
-                        throw new IllegalArgumentException("Parameter 'keyword' is required and cannot be null");
-                    }
-                    String keyword = (String) arguments.get("keyword");
-                    result = queryIntelligenceService.processNaturalQuery("search for " + keyword);
-                    break;
-                case "get_suggestions":
-                    Map<String, Object> suggestions = new HashMap<>();
-                    suggestions.put("type", "suggestions");
-                    suggestions.put("suggestions", queryIntelligenceService.getQuerySuggestions());
-                    suggestions.put("message", "Helpful query suggestions");
-                    result = suggestions;
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown tool: " + toolName);
-            }
+            // Cada tool corre en su propio executor acotado
+            result = toolExecutor.execute(toolName, arguments, sink);
             result.putIfAbsent("status", "success");
             result.putIfAbsent("execution_id", UUID.randomUUID().toString());
             result.putIfAbsent("timestamp", System.currentTimeMillis());
@@ -203,13 +204,35 @@ public class McpDispatcherService {
                 result.put("user_message", result.get("message"));
             }
             // next_suggestions puede ser generado aquí si lo deseas
+            outcome = "error".equals(result.get("status")) || "error".equals(result.get("type")) ? "error" : "success";
+        } catch (ToolBusyException e) {
+            outcome = "busy";
+            throw e;
         } catch (Exception e) {
+            span.error(e);
             result = new HashMap<>();
             result.put("status", "error");
             result.put("error_message", e.getMessage());
             result.put("execution_id", UUID.randomUUID().toString());
             result.put("timestamp", System.currentTimeMillis());
             result.put("user_message", "An error occurred while executing the tool.");
+        } finally {
+            RequestTimings.bind(previous);
+            Object intent = result != null ? result.get("type") : null;
+            MetricsConfig.latencyTimer("mcp.tool.calls", "Time to execute a tool call")
+                    .tags("tool", toolName, "intent", intent instanceof String type ? type : "none", "outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            timings.getStages().forEach((stage, nanos) ->
+                    MetricsConfig.latencyTimer("mcp.tool.stages", "Time spent in each stage of a tool call")
+                            .tags("tool", toolName, "stage", stage)
+                            .register(meterRegistry)
+                            .record(nanos, TimeUnit.NANOSECONDS));
+            slowQueryLog.record(toolName, sessionId, outcome, timings);
+            span.tag("mcp.tool.intent", intent).tag("mcp.tool.outcome", outcome).close();
+        }
+        if (includeTimings) {
+            result.put("timings", timings.toMap());
         }
         return result;
     }
@@ -0,0 +1,120 @@
+package com.santec.polenta.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * State kept for one MCP session between requests: named attributes (rate counters, cached values...)
+ * and resources open on behalf of the session, such as result streams still being read.
+ *
+ * <p>When the session ends (closed by the client, expired or evicted) its resources and the
+ * attributes that are {@link AutoCloseable} are closed; a resource registered afterwards is closed at once.
+ */
+public class McpSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpSession.class);
+
+    private final String id;
+    private final long createdAt;
+    private volatile long lastAccessedAt;
+    private volatile boolean closed;
+    private volatile String clientKey;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final Set<AutoCloseable> resources = ConcurrentHashMap.newKeySet();
+
+    McpSession(String id, long now) {
+        this.id = id;
+        this.createdAt = now;
+        this.lastAccessedAt = now;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    String getClientKey() {
+        return clientKey;
+    }
+
+    void setClientKey(String clientKey) {
+        this.clientKey = clientKey;
+    }
+
+    void touch(long now) {
+        lastAccessedAt = now;
+    }
+
+    /**
+     * Returns the attribute, creating it on first use.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String name, Supplier<T> factory) {
+        return (T) attributes.computeIfAbsent(name, key -> factory.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String name) {
+        return (T) attributes.get(name);
+    }
+
+    /**
+     * Registers a resource to close if the session ends while it is open.
+     */
+    public void register(AutoCloseable resource) {
+        resources.add(resource);
+        if (closed && resources.remove(resource)) {
+            closeQuietly(resource);
+        }
+    }
+
+    /**
+     * Forgets a resource that was closed normally.
+     */
+    public void release(AutoCloseable resource) {
+        resources.remove(resource);
+    }
+
+    int getOpenResources() {
+        return resources.size();
+    }
+
+    void close() {
+        closed = true;
+        for (AutoCloseable resource : resources) {
+            if (resources.remove(resource)) {
+                closeQuietly(resource);
+            }
+        }
+        for (Object attribute : attributes.values()) {
+            if (attribute instanceof AutoCloseable closeable) {
+                closeQuietly(closeable);
+            }
+        }
+        attributes.clear();
+    }
+
+    private void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            logger.warn("Error closing resource of session {}: {}", id, e.getMessage());
+        }
+    }
+}
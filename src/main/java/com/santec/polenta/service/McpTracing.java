@@ -0,0 +1,150 @@
+package com.santec.polenta.service;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Spans of the MCP server over the Micrometer {@link Tracer} (OpenTelemetry, exported over OTLP).
+ * Without a tracer bean, as in the unit tests, spans are no-ops.
+ *
+ * <p>A span started here becomes the current one on the thread until its {@link SpanScope} is
+ * closed, so spans started below it (intent parsing, connection, query...) are its children. Work
+ * handed to another thread is wrapped with {@link #wrap} to keep the current span as its parent,
+ * as {@link RequestTimings} are rebound in the tool workers.
+ */
+@Component
+public class McpTracing {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpTracing.class);
+
+    public static final McpTracing NOOP = new McpTracing(Tracer.NOOP);
+
+    private final Tracer tracer;
+
+    @Autowired
+    public McpTracing(ObjectProvider<Tracer> tracer) {
+        this(tracer.getIfAvailable(() -> Tracer.NOOP));
+    }
+
+    public McpTracing(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Starts a child of the current span (or a new trace) and makes it current.
+     */
+    public SpanScope start(String name) {
+        Span span = tracer.nextSpan().name(name).start();
+        return new SpanScope(span, tracer.withSpan(span));
+    }
+
+    /**
+     * The W3C trace id of the current span, or {@code null} when there is none.
+     */
+    public String currentTraceId() {
+        Span span = tracer.currentSpan();
+        return span != null ? traceId(span) : null;
+    }
+
+    /**
+     * Runs the task with the span current now as the current span, whatever thread runs it.
+     */
+    public <T> Callable<T> wrap(Callable<T> task) {
+        Span parent = tracer.currentSpan();
+        return () -> {
+            try (Tracer.SpanInScope ignored = tracer.withSpan(parent)) {
+                return task.call();
+            }
+        };
+    }
+
+    public Runnable wrap(Runnable task) {
+        Span parent = tracer.currentSpan();
+        return () -> {
+            try (Tracer.SpanInScope ignored = tracer.withSpan(parent)) {
+                task.run();
+            }
+        };
+    }
+
+    private static String traceId(Span span) {
+        String traceId = span.context().traceId();
+        return traceId == null || traceId.isEmpty() ? null : traceId;
+    }
+
+    /**
+     * A started span, current until closed. Closing ends it.
+     */
+    public static final class SpanScope implements AutoCloseable {
+        private final Span span;
+        private final Tracer.SpanInScope scope;
+
+        private SpanScope(Span span, Tracer.SpanInScope scope) {
+            this.span = span;
+            this.scope = scope;
+        }
+
+        /**
+         * Tags the span; {@code null} values are skipped.
+         */
+        public SpanScope tag(String key, Object value) {
+            if (value != null) {
+                span.tag(key, String.valueOf(value));
+            }
+            return this;
+        }
+
+        public SpanScope tag(String key, long value) {
+            span.tag(key, value);
+            return this;
+        }
+
+        /**
+         * Tags the span with a value that is costly to compute, computed only when the span is sampled.
+         * If computing it fails the tag is skipped: a tag must never fail the traced operation.
+         */
+        public SpanScope tagSampled(String key, Supplier<?> value) {
+            if (!isSampled()) {
+                return this;
+            }
+            try {
+                return tag(key, value.get());
+            } catch (RuntimeException | StackOverflowError e) {
+                logger.debug("Could not compute span tag {}: {}", key, e.toString());
+                return this;
+            }
+        }
+
+        /**
+         * Whether the span is recorded and exported, {@code false} with tracing off or not sampled.
+         */
+        public boolean isSampled() {
+            return !span.isNoop() && Boolean.TRUE.equals(span.context().sampled());
+        }
+
+        public void error(Throwable error) {
+            span.error(error);
+        }
+
+        /**
+         * The W3C trace id of the span, or {@code null} when tracing is off.
+         */
+        public String traceId() {
+            return McpTracing.traceId(span);
+        }
+
+        @Override
+        public void close() {
+            scope.close();
+            span.end();
+        }
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.stereotype.Service;
 
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class MetadataCacheService {
@@ -16,12 +18,27 @@ public class MetadataCacheService {
     @Autowired
     private PrestoService prestoService;
 
-    // Estructura: esquema -> tabla -> columnas
-    private final Map<String, Map<String, List<String>>> metadata = new HashMap<>();
+    @Autowired
+    private McpTracing tracing;
+
+    // Estructura: esquema -> tabla -> columnas. Se reemplaza completa en cada carga.
+    private volatile Map<String, Map<String, List<String>>> metadata = Collections.emptyMap();
+
+    // Índice de entidades (inglés/español) -> tablas, construido junto con cada instantánea
+    private volatile EntityIndex entityIndex = EntityIndex.empty();
+
+    // Versión de la instantánea actual, para invalidar cachés derivadas (p. ej. IntentCache)
+    private final AtomicLong version = new AtomicLong();
+
+    // Búsquedas de tablas y columnas que encontraron (o no) el esquema/tabla en la instantánea
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
     @PostConstruct
     public void loadMetadata() {
         logger.info("Cargando metadatos de esquemas, tablas y columnas en memoria...");
+        Map<String, Map<String, List<String>>> metadata = new HashMap<>();
+        McpTracing.SpanScope span = tracing.start("mcp.metadata.load");
         try {
             List<String> schemas = prestoService.getSchemas();
             for (String schema : schemas) {
@@ -43,9 +60,16 @@ public class MetadataCacheService {
                 }
                 metadata.put(schema, tablesMap);
             }
-            logger.info("Metadatos cargados en memoria: {} esquemas", metadata.size());
+            EntityIndex index = EntityIndex.build(metadata);
+            this.metadata = metadata;
+            this.entityIndex = index;
+            version.incrementAndGet();
+            logger.info("Metadatos cargados en memoria: {} esquemas, {} términos indexados", metadata.size(), index.size());
         } catch (SQLException e) {
             logger.error("Error cargando metadatos: {}", e.getMessage(), e);
+            span.error(e);
+        } finally {
+            span.tag("mcp.metadata.schemas", metadata.size()).close();
         }
     }
 
@@ -53,18 +77,37 @@ public class MetadataCacheService {
         return metadata;
     }
 
+    public EntityIndex getEntityIndex() {
+        return entityIndex;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
     public Set<String> getSchemas() {
         return metadata.keySet();
     }
 
     public Set<String> getTables(String schema) {
         Map<String, List<String>> tables = metadata.get(schema);
+        (tables != null ? hits : misses).increment();
         return tables != null ? tables.keySet() : Collections.emptySet();
     }
 
     public List<String> getColumns(String schema, String table) {
         Map<String, List<String>> tables = metadata.get(schema);
-        return tables != null ? tables.getOrDefault(table, Collections.emptyList()) : Collections.emptyList();
+        List<String> columns = tables != null ? tables.get(table) : null;
+        (columns != null ? hits : misses).increment();
+        return columns != null ? columns : Collections.emptyList();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
     }
 }
 
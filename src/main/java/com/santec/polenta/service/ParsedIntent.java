@@ -0,0 +1,12 @@
+package com.santec.polenta.service;
+
+/**
+ * Result of parsing a natural language query: the intent type plus the table, schema,
+ * search keyword or entity resolved for it. Fields that do not apply to the intent are null.
+ */
+public record ParsedIntent(String type, String schema, String table, String keyword, String entity) {
+
+    public static ParsedIntent of(String type) {
+        return new ParsedIntent(type, null, null, null, null);
+    }
+}
@@ -0,0 +1,19 @@
+package com.santec.polenta.service;
+
+import java.io.OutputStream;
+import java.sql.SQLException;
+
+/**
+ * A {@link RowSink} that can also send a result encoded in one of the compact {@link ResultFormat}s
+ * while it is being produced, so that {@link EncodedResultSink} does not have to keep it in memory.
+ */
+public interface PayloadSink extends RowSink {
+
+    /**
+     * Called instead of {@link #start} when the query returns its first result. The raw encoded bytes
+     * are written to the returned stream, which is closed once the payload is complete.
+     *
+     * @return the stream, or {@code null} if the payload has to be kept in memory and returned in the result
+     */
+    OutputStream startPayload(ResultFormat format) throws SQLException;
+}
@@ -1,6 +1,15 @@
 package com.santec.polenta.service;
 
+import com.santec.polenta.config.MetricsConfig;
 import com.santec.polenta.config.PrestoConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.trino.jdbc.QueryStats;
+import io.trino.jdbc.TrinoResultSet;
+import io.trino.jdbc.TrinoStatement;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,7 +17,25 @@ import org.springframework.stereotype.Service;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
+/**
+ * Runs statements against Presto/Trino over JDBC.
+ *
+ * <p>Query latency is timed in {@code mcp.presto.queries} (tagged by {@code outcome}), the time to
+ * open a connection in {@code mcp.presto.connection.acquire}, and rows read in {@code mcp.presto.rows}.
+ * Within a tool call, the stages of each query are also added to its {@link RequestTimings}.
+ *
+ * <p>On Trino, the statistics reported by the driver while a query runs are forwarded to the sink
+ * as {@link QueryProgress} (for queries running longer than {@code presto.progress-interval-ms}, at
+ * most once per interval), and the final ones are recorded in {@code mcp.presto.processed.rows},
+ * {@code mcp.presto.processed.bytes}, {@code mcp.presto.wall} and {@code mcp.presto.cpu}.
+ *
+ * <p>Each query is traced as a {@code presto.query} span tagged with the statement's
+ * {@link SqlFingerprint} and the Presto query id, with a {@code presto.connection} child.
+ */
 @Service
 public class PrestoService {
 
@@ -17,30 +44,208 @@ public class PrestoService {
     @Autowired
     private PrestoConfig prestoConfig;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private McpTracing tracing;
+
+    private Timer querySuccess;
+    private Timer queryError;
+    private Timer connectionAcquire;
+    private Counter rowsRead;
+    private DistributionSummary processedRows;
+    private DistributionSummary processedBytes;
+    private Timer wallTime;
+    private Timer cpuTime;
+
+    @PostConstruct
+    void registerMetrics() {
+        querySuccess = MetricsConfig.latencyTimer("mcp.presto.queries", "Time to execute a query and read its rows")
+                .tag("outcome", "success").register(meterRegistry);
+        queryError = MetricsConfig.latencyTimer("mcp.presto.queries", "Time to execute a query and read its rows")
+                .tag("outcome", "error").register(meterRegistry);
+        connectionAcquire = MetricsConfig.latencyTimer("mcp.presto.connection.acquire", "Time to open a JDBC connection")
+                .register(meterRegistry);
+        rowsRead = Counter.builder("mcp.presto.rows")
+                .description("Rows read from Presto")
+                .register(meterRegistry);
+        processedRows = DistributionSummary.builder("mcp.presto.processed.rows")
+                .description("Rows processed by Presto per query")
+                .baseUnit("rows")
+                .register(meterRegistry);
+        processedBytes = DistributionSummary.builder("mcp.presto.processed.bytes")
+                .description("Bytes processed by Presto per query")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        wallTime = MetricsConfig.latencyTimer("mcp.presto.wall", "Elapsed time of a query as reported by Presto")
+                .register(meterRegistry);
+        cpuTime = Timer.builder("mcp.presto.cpu")
+                .description("CPU time used by Presto per query")
+                .register(meterRegistry);
+    }
+
     public List<Map<String, Object>> executeQuery(String sql) throws SQLException {
+        RowCollector collector = new RowCollector();
+        executeQuery(sql, collector);
+        return collector.rows;
+    }
+
+    /**
+     * Executes the query and hands each row to the sink as it comes off the cursor.
+     *
+     * <p>Records the stages {@code connection}, {@code presto_queued} (time the query waited in
+     * Presto's queue), {@code execution} (until the first results are available, less the queueing),
+     * {@code fetch} (reading the rows) and {@code serialization} (the time spent in the sink: writing the
+     * rows to the response when the sink streams them, building the row maps otherwise) in the
+     * current {@link RequestTimings}, with the Presto query id. Progress reported by the driver goes
+     * to {@link RowSink#progress}.
+     *
+     * @return the number of rows read
+     */
+    public long executeQuery(String sql, RowSink sink) throws SQLException {
         logger.info("Executing query: {}", sql);
-        List<Map<String, Object>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        long rowCount = 0;
+        McpTracing.SpanScope span = tracing.start("presto.query").tag("db.system", "trino");
         try (Connection connection = getConnection();
-             Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(sql)) {
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            logger.debug("Columns detected: {}", columnCount);
-            while (resultSet.next()) {
-                Map<String, Object> row = new LinkedHashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnLabel(i);
-                    Object value = resultSet.getObject(i);
-                    row.put(columnName, value);
+             Statement statement = connection.createStatement()) {
+            span.tagSampled("db.statement", () -> SqlFingerprint.of(sql));
+            long submitted = System.nanoTime();
+            ProgressForwarder progress = monitorProgress(statement, sink, submitted);
+            try (ResultSet resultSet = statement.executeQuery(sql)) {
+                long firstResults = System.nanoTime();
+                recordPrestoStages(resultSet, firstResults - submitted);
+                long inSink = 0;
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                logger.debug("Columns detected: {}", metaData.getColumnCount());
+                long sinkStart = System.nanoTime();
+                sink.start(metaData);
+                inSink += System.nanoTime() - sinkStart;
+                while (resultSet.next()) {
+                    sinkStart = System.nanoTime();
+                    if (progress != null) {
+                        progress.forward(sinkStart);
+                    }
+                    sink.row(resultSet);
+                    inSink += System.nanoTime() - sinkStart;
+                    rowCount++;
                 }
-                results.add(row);
+                sinkStart = System.nanoTime();
+                sink.end(rowCount);
+                long end = System.nanoTime();
+                inSink += end - sinkStart;
+                RequestTimings.record("fetch", end - firstResults - inSink);
+                RequestTimings.record("serialization", inSink);
+                recordQueryStats(sql, rowCount, resultSet, span);
             }
-            logger.info("Query executed successfully, rows returned: {}", results.size());
+            logger.info("Query executed successfully, rows returned: {}", rowCount);
+            querySuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         } catch (SQLException e) {
             logger.error("Error executing query: {} | SQL: {}", e.getMessage(), sql, e);
+            queryError.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            span.error(e);
             throw e;
+        } finally {
+            rowsRead.increment(rowCount);
+            span.tag("db.rows", rowCount).close();
+        }
+        return rowCount;
+    }
+
+    /**
+     * Splits the time until the first results into queueing and execution with the statistics
+     * reported by the Trino driver. Other drivers (and mocks) report it all as execution.
+     */
+    private static void recordPrestoStages(ResultSet resultSet, long untilFirstResults) throws SQLException {
+        if (RequestTimings.current() == null) {
+            return;
+        }
+        long queued = 0;
+        if (resultSet.isWrapperFor(TrinoResultSet.class)) {
+            TrinoResultSet trinoResultSet = resultSet.unwrap(TrinoResultSet.class);
+            RequestTimings.recordPrestoQueryId(trinoResultSet.getQueryId());
+            queued = Math.min(TimeUnit.MILLISECONDS.toNanos(trinoResultSet.getStats().getQueuedTimeMillis()),
+                    untilFirstResults);
+            RequestTimings.record("presto_queued", queued);
+        }
+        RequestTimings.record("execution", untilFirstResults - queued);
+    }
+
+    /**
+     * Records the final statistics of a Trino query in the metrics and its span, and the statement in
+     * the current {@link RequestTimings}.
+     */
+    private void recordQueryStats(String sql, long rowCount, ResultSet resultSet, McpTracing.SpanScope span)
+            throws SQLException {
+        long bytes = 0;
+        if (resultSet.isWrapperFor(TrinoResultSet.class)) {
+            QueryStats stats = resultSet.unwrap(TrinoResultSet.class).getStats();
+            bytes = stats.getProcessedBytes();
+            span.tag("presto.query_id", stats.getQueryId()).tag("presto.processed_bytes", bytes);
+            processedRows.record(stats.getProcessedRows());
+            processedBytes.record(bytes);
+            wallTime.record(stats.getElapsedTimeMillis(), TimeUnit.MILLISECONDS);
+            cpuTime.record(stats.getCpuTimeMillis(), TimeUnit.MILLISECONDS);
+            logger.debug("Query {} processed {} rows, {} bytes, cpu {} ms, wall {} ms", stats.getQueryId(),
+                    stats.getProcessedRows(), bytes, stats.getCpuTimeMillis(), stats.getElapsedTimeMillis());
+        }
+        RequestTimings.recordStatement(sql, rowCount, bytes);
+    }
+
+    private ProgressForwarder monitorProgress(Statement statement, RowSink sink, long submitted) throws SQLException {
+        if (!statement.isWrapperFor(TrinoStatement.class)) {
+            return null;
+        }
+        ProgressForwarder forwarder = new ProgressForwarder(sink,
+                submitted, TimeUnit.MILLISECONDS.toNanos(prestoConfig.getProgressIntervalMs()));
+        statement.unwrap(TrinoStatement.class).setProgressMonitor(forwarder);
+        return forwarder;
+    }
+
+    /**
+     * Receives the statistics of a running query from the driver and hands them to the sink. While
+     * the query is executing the driver reports from the thread running it, but once rows are read
+     * pages may be fetched (and stats reported) on a driver thread: the sink is only called from the
+     * query thread, so stats reported elsewhere wait for the next row.
+     */
+    private static final class ProgressForwarder implements Consumer<QueryStats> {
+        private final RowSink sink;
+        private final Thread queryThread = Thread.currentThread();
+        private final long intervalNanos;
+        private final AtomicReference<QueryStats> pending = new AtomicReference<>();
+        private long nextNanos;
+
+        ProgressForwarder(RowSink sink, long submitted, long intervalNanos) {
+            this.sink = sink;
+            this.intervalNanos = intervalNanos;
+            this.nextNanos = submitted + intervalNanos;
+        }
+
+        @Override
+        public void accept(QueryStats stats) {
+            pending.set(stats);
+            if (Thread.currentThread() == queryThread) {
+                forward(System.nanoTime());
+            }
+        }
+
+        void forward(long now) {
+            if (now < nextNanos || pending.get() == null) {
+                return;
+            }
+            QueryStats stats = pending.getAndSet(null);
+            nextNanos = now + intervalNanos;
+            try {
+                sink.progress(new QueryProgress(stats.getQueryId(), stats.getState(),
+                        stats.getProgressPercentage().orElse(Double.NaN), stats.getCompletedSplits(),
+                        stats.getTotalSplits(), stats.getProcessedRows(), stats.getProcessedBytes(),
+                        stats.getCpuTimeMillis(), stats.getElapsedTimeMillis()));
+            } catch (SQLException e) {
+                // The client went away: the next row sent fails and aborts the query.
+                logger.debug("Could not send the progress of query {}: {}", stats.getQueryId(), e.getMessage());
+            }
         }
-        return results;
     }
 
     public List<String> getSchemas() throws SQLException {
@@ -57,7 +262,7 @@ public class PrestoService {
                 .map(row -> (String) row.getOrDefault("Schema", row.getOrDefault("schema_name", null)))
                 .filter(Objects::nonNull)
                 .toList();
-        logger.debug("Schemas found: {}", schemas);
+        logger.debug("Schemas found: {}", schemas.size());
         return schemas;
     }
 
@@ -68,7 +273,7 @@ public class PrestoService {
         List<String> tables = results.stream()
                 .map(row -> (String) row.get("Table"))
                 .toList();
-        logger.debug("Tables found in {}: {}", schema, tables);
+        logger.debug("Tables found in {}: {}", schema, tables.size());
         return tables;
     }
 
@@ -76,7 +281,7 @@ public class PrestoService {
         logger.debug("Getting columns from table: {}.{}", schema, table);
         String sql = String.format("DESCRIBE %s.%s", schema, table);
         List<Map<String, Object>> columns = executeQuery(sql);
-        logger.debug("Columns of {}.{}: {}", schema, table, columns);
+        logger.debug("Columns of {}.{}: {}", schema, table, columns.size());
         return columns;
     }
 
@@ -89,15 +294,20 @@ public class PrestoService {
         List<String> matchingTables = results.stream()
                 .map(row -> (String) row.get("table_schema") + "." + (String) row.get("table_name"))
                 .toList();
-        logger.debug("Tables found with keyword '{}': {}", keyword, matchingTables);
+        logger.debug("Tables found with keyword '{}': {}", keyword, matchingTables.size());
         return matchingTables;
     }
 
+    public long getSampleData(String schema, String table, RowSink sink) throws SQLException {
+        logger.debug("Streaming sample data from table: {}.{}", schema, table);
+        return executeQuery(String.format("SELECT * FROM %s.%s LIMIT 10", schema, table), sink);
+    }
+
     public List<Map<String, Object>> getSampleData(String schema, String table) throws SQLException {
         logger.debug("Getting sample data from table: {}.{}", schema, table);
         String sql = String.format("SELECT * FROM %s.%s LIMIT 10", schema, table);
         List<Map<String, Object>> data = executeQuery(sql);
-        logger.debug("Sample data from {}.{}: {}", schema, table, data);
+        logger.debug("Sample data from {}.{}: {} rows", schema, table, data.size());
         return data;
     }
 
@@ -118,11 +328,20 @@ public class PrestoService {
         //    int timeoutSeconds = (int) Math.ceil(prestoConfig.getConnectionTimeout() / 1000.0);
         //    DriverManager.setLoginTimeout(timeoutSeconds);
         //}
+        long start = System.nanoTime();
+        McpTracing.SpanScope span = tracing.start("presto.connection");
         try {
             Connection conn = DriverManager.getConnection(prestoConfig.getUrl(), properties);
             logger.debug("Connection established successfully");
             return conn;
+        } catch (SQLException e) {
+            span.error(e);
+            throw e;
         } finally {
+            span.close();
+            long elapsed = System.nanoTime() - start;
+            connectionAcquire.record(elapsed, TimeUnit.NANOSECONDS);
+            RequestTimings.record("connection", elapsed);
             // if (prestoConfig.getConnectionTimeout() > 0) {
             //    DriverManager.setLoginTimeout(previousLoginTimeout);
             // }
@@ -166,7 +385,36 @@ public class PrestoService {
                 accessibleTables.add(schema + "." + table);
             }
         }
-        logger.debug("Accessible tables: {}", accessibleTables);
+        logger.debug("Accessible tables: {}", accessibleTables.size());
         return accessibleTables;
     }
-}
\ No newline at end of file
+
+    /**
+     * Materializes the rows as column label -> value maps, in column order.
+     */
+    private static final class RowCollector implements RowSink {
+        private final List<Map<String, Object>> rows = new ArrayList<>();
+        private String[] labels;
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException {
+            labels = new String[metaData.getColumnCount()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = metaData.getColumnLabel(i + 1);
+            }
+        }
+
+        @Override
+        public void row(ResultSet resultSet) throws SQLException {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < labels.length; i++) {
+                row.put(labels[i], resultSet.getObject(i + 1));
+            }
+            rows.add(row);
+        }
+
+        @Override
+        public void end(long rowCount) {
+        }
+    }
+}
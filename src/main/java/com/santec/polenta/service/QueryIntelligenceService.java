@@ -13,6 +13,9 @@ public class QueryIntelligenceService {
 
     private static final Logger logger = LoggerFactory.getLogger(QueryIntelligenceService.class);
 
+    /** Upper bound applied to every row-returning statement generated from a natural language intent */
+    static final int MAX_ROWS = 100;
+
     private final PrestoService prestoService;
     private final TokenizerService tokenizerService;
     private final QueryParser queryParser;
@@ -20,6 +23,12 @@ public class QueryIntelligenceService {
     @Autowired
     private MetadataCacheService metadataCacheService;
 
+    @Autowired
+    private IntentCache intentCache;
+
+    @Autowired
+    private McpTracing tracing;
+
     @Autowired
     public QueryIntelligenceService(
             PrestoService prestoService,
@@ -31,38 +40,59 @@ public class QueryIntelligenceService {
     }
 
     public Map<String, Object> processNaturalQuery(String query) {
+        return processNaturalQuery(query, null);
+    }
+
+    /**
+     * Processes the query, streaming the rows of row-returning intents to the sink instead of
+     * collecting them in the response's "data" field. With a {@code null} sink the rows are
+     * returned in the response as usual.
+     */
+    public Map<String, Object> processNaturalQuery(String query, RowSink sink) {
         logger.info("Entering processNaturalQuery with query: {}", query);
         try {
-            String queryType = queryParser.identifyQueryType(query);
-            logger.debug("Identified query type: {}", queryType);
-            switch (queryType) {
+            ParsedIntent intent = parseIntent(query);
+            logger.debug("Identified query type: {}", intent.type());
+            switch (intent.type()) {
                 case "SHOW_TABLES":
-                    logger.info("Executing handleShowTables");
+                    logger.debug("Executing handleShowTables");
                     return handleShowTables(query);
                 case "ACCESSIBLE_TABLES":
-                    logger.info("Executing handleAccessibleTables");
+                    logger.debug("Executing handleAccessibleTables");
                     return handleAccessibleTables(query);
                 case "DESCRIBE_TABLE":
-                    logger.info("Executing handleDescribeTable");
-                    return handleDescribeTable(query);
+                    logger.debug("Executing handleDescribeTable");
+                    return handleDescribeTable(intent);
                 case "SAMPLE_DATA":
-                    logger.info("Executing handleSampleData");
-                    return handleSampleData(query);
+                    logger.debug("Executing handleSampleData");
+                    return handleSampleData(intent, sink);
                 case "SEARCH_TABLES":
-                    logger.info("Executing handleSearchTables");
-                    return handleSearchTables(query);
+                    logger.debug("Executing handleSearchTables");
+                    return handleSearchTables(intent);
                 case "LIST_ENTITY":
-                    logger.info("Executing handleListEntity");
-                    return handleListEntity(query);
+                    logger.debug("Executing handleListEntity");
+                    return handleListEntity(intent, sink);
+                case "COUNT_RECORDS":
+                    logger.debug("Executing handleCountRecords");
+                    return handleCountRecords(intent);
+                case "LIST_COLUMNS":
+                    logger.debug("Executing handleListColumns");
+                    return handleListColumns(intent);
+                case "TABLE_DATA":
+                    logger.debug("Executing handleTableData");
+                    return handleTableData(intent, sink);
+                case "FILTERED_QUERY":
+                    logger.debug("Executing handleFilteredQuery");
+                    return handleFilteredQuery(query, intent, sink);
                 case "DIRECT_SQL":
-                    logger.info("Executing handleDirectSQL");
-                    return handleDirectSQL(query);
+                    logger.debug("Executing handleDirectSQL");
+                    return handleDirectSQL(query, sink);
                 case "UNKNOWN":
                     logger.warn("Query type UNKNOWN");
                     return createErrorResponse("Could not determine the query type. Please refine your request.");
                 default:
-                    logger.info("Executing handleDirectSQL by default");
-                    return handleDirectSQL(query);
+                    logger.debug("Executing handleDirectSQL by default");
+                    return handleDirectSQL(query, sink);
             }
         } catch (Exception e) {
             logger.error("Error processing query: {}", e.getMessage(), e);
@@ -70,16 +100,85 @@ public class QueryIntelligenceService {
         }
     }
 
+    /**
+     * Parses the query into its intent and resolves table and schema against the metadata cache.
+     * Results are kept in the {@link IntentCache}, except for direct SQL and filtered queries whose
+     * handlers depend on the literal text (string values are case sensitive).
+     *
+     * <p>Records the stages {@code intent_parsing} and {@code table_resolution} (a cache hit counts
+     * as parsing) in the current {@link RequestTimings}, and traces them as an {@code mcp.intent.parse}
+     * span with an {@code mcp.metadata.lookup} child.
+     */
+    ParsedIntent parseIntent(String query) {
+        try (McpTracing.SpanScope span = tracing.start("mcp.intent.parse")) {
+            long start = System.nanoTime();
+            long metadataVersion = metadataCacheService.getVersion();
+            ParsedIntent cached = intentCache.get(query, metadataVersion);
+            if (cached != null) {
+                logger.debug("Intent cache hit: {}", cached);
+                RequestTimings.lap("intent_parsing", start);
+                span.tag("mcp.intent.type", cached.type()).tag("mcp.intent.cached", "true");
+                return cached;
+            }
+            String type = queryParser.identifyQueryType(query);
+            long parsed = RequestTimings.lap("intent_parsing", start);
+            span.tag("mcp.intent.type", type).tag("mcp.intent.cached", "false");
+            ParsedIntent intent;
+            try (McpTracing.SpanScope lookup = tracing.start("mcp.metadata.lookup")) {
+                intent = switch (type) {
+                    case "DESCRIBE_TABLE", "SAMPLE_DATA", "COUNT_RECORDS", "LIST_COLUMNS", "TABLE_DATA", "FILTERED_QUERY" ->
+                            resolveTableIntent(type, queryParser.extractTableName(query, tokenizerService));
+                    case "SEARCH_TABLES" ->
+                            new ParsedIntent(type, null, null, queryParser.extractSearchKeyword(query, tokenizerService), null);
+                    case "LIST_ENTITY" -> resolveEntityIntent(query);
+                    default -> ParsedIntent.of(type);
+                };
+                lookup.tag("db.namespace", intent.schema()).tag("db.sql.table", intent.table());
+            }
+            if (!type.equals("DIRECT_SQL") && !type.equals("FILTERED_QUERY")) {
+                intentCache.put(query, metadataVersion, intent);
+            }
+            RequestTimings.lap("table_resolution", parsed);
+            return intent;
+        }
+    }
+
+    private ParsedIntent resolveTableIntent(String type, String tableName) {
+        logger.debug("Table name extracted: {}", tableName);
+        if (tableName == null || tableName.isEmpty()) {
+            return ParsedIntent.of(type);
+        }
+        return resolveSchemaAndTable(tableName)
+                .map(st -> new ParsedIntent(type, st[0], st[1], null, null))
+                .orElse(new ParsedIntent(type, null, tableName, null, null));
+    }
+
+    private ParsedIntent resolveEntityIntent(String query) {
+        String entity = queryParser.extractEntityFromQuery(query, tokenizerService);
+        logger.debug("Entity extracted: {}", entity);
+        if (entity == null) {
+            return ParsedIntent.of("LIST_ENTITY");
+        }
+        String schema = extractSchemaFromQuery(query);
+        logger.debug("Schema extracted: {}", schema);
+        Optional<String[]> schemaTable = schema != null
+                ? findTableAndSchemaForEntityInSchema(entity, schema)
+                : findTableAndSchemaForEntity(entity);
+        return schemaTable
+                .map(st -> new ParsedIntent("LIST_ENTITY", st[0], st[1], null, entity))
+                .orElse(new ParsedIntent("LIST_ENTITY", schema, null, null, entity));
+    }
+
     private Map<String, Object> handleShowTables(String query) throws SQLException {
         logger.info("Entering handleShowTables with query: {}", query);
         Map<String, Object> response = new HashMap<>();
         List<String> schemas = prestoService.getSchemas();
-        logger.debug("Schemas obtained: {}", schemas);
+        logger.debug("Schemas obtained: {}", schemas.size());
         Map<String, List<String>> schemaTablesMap = new HashMap<>();
         for (String schema : schemas) {
             try {
                 List<String> tables = prestoService.getTables(schema);
-                logger.debug("Tables in schema {}: {}", schema, tables);
+                logger.debug("Tables in schema {}: {}", schema, tables.size());
                 if (!tables.isEmpty()) {
                     schemaTablesMap.put(schema, tables);
                 }
@@ -97,49 +196,27 @@ public class QueryIntelligenceService {
         logger.info("Entering handleAccessibleTables with query: {}", query);
         Map<String, Object> response = new HashMap<>();
         List<String> accessible = prestoService.getAccessibleTables();
-        logger.debug("Accessible tables: {}", accessible);
+        logger.debug("Accessible tables: {}", accessible.size());
         response.put("type", "accessible_table_list");
         response.put("tables", accessible);
         response.put("message", "Accessible tables for querying");
         return response;
     }
 
-    private Map<String, Object> handleDescribeTable(String query) throws SQLException {
-        logger.info("Entering handleDescribeTable with query: {}", query);
-        String tableName = queryParser.extractTableName(query, tokenizerService);
-        logger.debug("Table name extracted: {}", tableName);
-        if (tableName == null) {
+    private Map<String, Object> handleDescribeTable(ParsedIntent intent) throws SQLException {
+        logger.info("Entering handleDescribeTable with intent: {}", intent);
+        String table = intent.table();
+        if (table == null) {
             logger.warn("Could not identify the table name in the query");
             return createErrorResponse("Could not identify the table name in the query. Please specify a table.");
         }
-        String[] parts = tableName.split("\\.");
-        String schema;
-        String table;
-        if (parts.length > 1) {
-            schema = parts[0];
-            table = parts[1];
-        } else {
-            table = parts[0];
-            schema = null;
-            List<String> schemas = prestoService.getSchemas();
-            logger.debug("Searching for schema for table: {}", table);
-            for (String s : schemas) {
-                List<String> tables = prestoService.getTables(s);
-                for (String t : tables) {
-                    if (t.equalsIgnoreCase(table)) {
-                        schema = s;
-                        break;
-                    }
-                }
-                if (schema != null) break;
-            }
-            if (schema == null) {
-                logger.warn("Schema not found for table: {}", table);
-                return createErrorResponse("Schema not found for table: " + table);
-            }
+        String schema = intent.schema() != null ? intent.schema() : findSchemaForTable(table);
+        if (schema == null) {
+            logger.warn("Schema not found for table: {}", table);
+            return createErrorResponse("Schema not found for table: " + table);
         }
         List<Map<String, Object>> columns = prestoService.getTableColumns(schema, table);
-        logger.debug("Columns of table {}.{}: {}", schema, table, columns);
+        logger.debug("Columns of table {}.{}: {}", schema, table, columns.size());
         Map<String, Object> response = new HashMap<>();
         response.put("type", "table_description");
         response.put("schema", schema);
@@ -149,6 +226,22 @@ public class QueryIntelligenceService {
         return response;
     }
 
+    /**
+     * Looks a table up in Presto when it is not present in the metadata cache
+     * (e.g. it was created after the cache was loaded).
+     */
+    private String findSchemaForTable(String table) throws SQLException {
+        logger.debug("Searching for schema for table: {}", table);
+        for (String s : prestoService.getSchemas()) {
+            for (String t : prestoService.getTables(s)) {
+                if (t.equalsIgnoreCase(table)) {
+                    return s;
+                }
+            }
+        }
+        return null;
+    }
+
     // --- Standardized MCP response wrapper ---
     public static class McpResponse<T> {
         public String trace_id;
@@ -207,61 +300,45 @@ public class QueryIntelligenceService {
         return new McpResponse<>(traceId, "success", response, null);
     }
 
-    private Map<String, Object> handleSampleData(String query) throws SQLException {
-        logger.info("Entering handleSampleData with query: {}", query);
-        String tableName = queryParser.extractTableName(query, tokenizerService);
-        logger.debug("Table name extracted: {}", tableName);
-        if (tableName == null) {
+    private Map<String, Object> handleSampleData(ParsedIntent intent, RowSink sink) throws SQLException {
+        logger.info("Entering handleSampleData with intent: {}", intent);
+        String table = intent.table();
+        if (table == null) {
             logger.warn("Could not identify the table name in the query");
             return createErrorResponse("Could not identify the table name in the query. Please specify a table.");
         }
-        String[] parts = tableName.split("\\.");
-        String schema;
-        String table;
-        if (parts.length > 1) {
-            schema = parts[0];
-            table = parts[1];
-        } else {
-            table = parts[0];
-            schema = null;
-            List<String> schemas = prestoService.getSchemas();
-            logger.debug("Searching for schema for table: {}", table);
-            for (String s : schemas) {
-                List<String> tables = prestoService.getTables(s);
-                for (String t : tables) {
-                    if (t.equalsIgnoreCase(table)) {
-                        schema = s;
-                        break;
-                    }
-                }
-                if (schema != null) break;
-            }
-            if (schema == null) {
-                logger.warn("Schema not found for table: {}", table);
-                return createErrorResponse("Schema not found for table: " + table);
-            }
+        String schema = intent.schema() != null ? intent.schema() : findSchemaForTable(table);
+        if (schema == null) {
+            logger.warn("Schema not found for table: {}", table);
+            return createErrorResponse("Schema not found for table: " + table);
         }
-        List<Map<String, Object>> sampleData = prestoService.getSampleData(schema, table);
-        logger.debug("Sample data from {}.{}: {} rows", schema, table, sampleData.size());
         Map<String, Object> response = new HashMap<>();
+        long rowCount;
+        if (sink == null) {
+            List<Map<String, Object>> sampleData = prestoService.getSampleData(schema, table);
+            response.put("data", sampleData);
+            rowCount = sampleData.size();
+        } else {
+            rowCount = prestoService.getSampleData(schema, table, sink);
+            response.put("streamed", true);
+        }
+        logger.debug("Sample data from {}.{}: {} rows", schema, table, rowCount);
         response.put("type", "sample_data");
         response.put("schema", schema);
         response.put("table", table);
-        response.put("data", sampleData);
         response.put("message", String.format("Sample data from %s.%s (limited to 10 rows)", schema, table));
         return response;
     }
 
-    private Map<String, Object> handleSearchTables(String query) throws SQLException {
-        logger.info("Entering handleSearchTables with query: {}", query);
-        String keyword = queryParser.extractSearchKeyword(query, tokenizerService);
-        logger.debug("Search keyword extracted: {}", keyword);
+    private Map<String, Object> handleSearchTables(ParsedIntent intent) throws SQLException {
+        logger.info("Entering handleSearchTables with intent: {}", intent);
+        String keyword = intent.keyword();
         if (keyword == null) {
             logger.warn("Could not identify the search keyword in the query");
             return createErrorResponse("Could not identify the search keyword in the query.");
         }
         List<String> matchingTables = prestoService.searchTables(keyword);
-        logger.debug("Tables matching '{}': {}", keyword, matchingTables);
+        logger.debug("Tables matching '{}': {}", keyword, matchingTables.size());
         Map<String, Object> response = new HashMap<>();
         response.put("type", "table_search");
         response.put("keyword", keyword);
@@ -270,52 +347,184 @@ public class QueryIntelligenceService {
         return response;
     }
 
-    private Map<String, Object> handleDirectSQL(String query) throws SQLException {
+    private Map<String, Object> handleDirectSQL(String query, RowSink sink) throws SQLException {
         logger.info("Entering handleDirectSQL with query: {}", query);
-        List<Map<String, Object>> results = prestoService.executeQuery(query);
-        logger.debug("Results obtained: {} rows", results.size());
         Map<String, Object> response = new HashMap<>();
+        long rowCount = fetchRows(query, sink, response);
+        logger.debug("Results obtained: {} rows", rowCount);
         response.put("type", "query_result");
         response.put("sql", query);
-        response.put("data", results);
-        response.put("row_count", results.size());
-        response.put("message", String.format("Query executed successfully, %d rows returned", results.size()));
+        response.put("row_count", rowCount);
+        response.put("message", String.format("Query executed successfully, %d rows returned", rowCount));
         return response;
     }
 
-    private Map<String, Object> handleListEntity(String query) throws SQLException {
-        logger.info("Entering handleListEntity with query: {}", query);
-        String entity = queryParser.extractEntityFromQuery(query, tokenizerService);
-        logger.debug("Entity extracted: {}", entity);
+    private Map<String, Object> handleCountRecords(ParsedIntent intent) throws SQLException {
+        logger.info("Entering handleCountRecords with intent: {}", intent);
+        if (intent.schema() == null) {
+            return createErrorResponse("Could not identify the table in the query. Please specify an existing table.");
+        }
+        String schema = intent.schema();
+        String table = intent.table();
+        String sql = String.format("SELECT count(*) AS row_count FROM %s.%s", schema, table);
+        List<Map<String, Object>> results = prestoService.executeQuery(sql);
+        Object count = results.isEmpty() ? 0L : results.get(0).values().iterator().next();
+        logger.debug("Record count of {}.{}: {}", schema, table, count);
+        Map<String, Object> response = new HashMap<>();
+        response.put("type", "record_count");
+        response.put("schema", schema);
+        response.put("table", table);
+        response.put("sql", sql);
+        response.put("row_count", count);
+        response.put("message", String.format("Table %s.%s has %s records", schema, table, count));
+        return response;
+    }
+
+    private Map<String, Object> handleListColumns(ParsedIntent intent) throws SQLException {
+        logger.info("Entering handleListColumns with intent: {}", intent);
+        if (intent.schema() == null) {
+            return createErrorResponse("Could not identify the table in the query. Please specify an existing table.");
+        }
+        String schema = intent.schema();
+        String table = intent.table();
+        List<String> columns = metadataCacheService.getColumns(schema, table);
+        if (columns.isEmpty()) {
+            // Columns could not be cached at startup; fall back to describing the table.
+            logger.debug("No cached columns for {}.{}, describing the table", schema, table);
+            return handleDescribeTable(new ParsedIntent("DESCRIBE_TABLE", schema, table, null, null));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("type", "column_list");
+        response.put("schema", schema);
+        response.put("table", table);
+        response.put("columns", columns);
+        response.put("message", String.format("Columns of table %s.%s", schema, table));
+        return response;
+    }
+
+    private Map<String, Object> handleTableData(ParsedIntent intent, RowSink sink) throws SQLException {
+        logger.info("Entering handleTableData with intent: {}", intent);
+        if (intent.schema() == null) {
+            return createErrorResponse("Could not identify the table in the query. Please specify an existing table.");
+        }
+        String schema = intent.schema();
+        String table = intent.table();
+        String sql = String.format("SELECT * FROM %s.%s LIMIT %d", schema, table, MAX_ROWS);
+        Map<String, Object> response = new HashMap<>();
+        long rowCount = fetchRows(sql, sink, response);
+        logger.debug("Rows obtained from {}.{}: {}", schema, table, rowCount);
+        response.put("type", "table_data");
+        response.put("schema", schema);
+        response.put("table", table);
+        response.put("sql", sql);
+        response.put("row_count", rowCount);
+        response.put("message", String.format("Data from %s.%s (limited to %d rows)", schema, table, MAX_ROWS));
+        return response;
+    }
+
+    private Map<String, Object> handleFilteredQuery(String query, ParsedIntent intent, RowSink sink) throws SQLException {
+        logger.info("Entering handleFilteredQuery with query: {}", query);
+        if (intent.schema() == null) {
+            return createErrorResponse("Could not identify the table in the query. Please specify an existing table.");
+        }
+        String schema = intent.schema();
+        String table = intent.table();
+        List<String> selected = queryParser.extractSelectedColumns(query);
+        List<String[]> conditions = queryParser.extractFilterConditions(query);
+        if (selected == null || conditions == null || conditions.isEmpty()) {
+            return createErrorResponse("Could not understand the filter. Use: seleccionar <columnas> de la tabla <tabla> donde <columna> <operador> <valor>");
+        }
+        List<String> known = metadataCacheService.getColumns(schema, table);
+        List<String> referenced = new ArrayList<>(selected);
+        conditions.forEach(c -> referenced.add(c[0]));
+        for (String column : referenced) {
+            if (!known.isEmpty() && known.stream().noneMatch(column::equalsIgnoreCase)) {
+                return createErrorResponse(String.format("Column '%s' does not exist in table %s.%s", column, schema, table));
+            }
+        }
+        StringJoiner where = new StringJoiner(" AND ");
+        for (String[] condition : conditions) {
+            where.add(condition[0] + " " + condition[1] + " " + condition[2]);
+        }
+        String sql = String.format("SELECT %s FROM %s.%s WHERE %s LIMIT %d",
+                selected.isEmpty() ? "*" : String.join(", ", selected), schema, table, where, MAX_ROWS);
+        Map<String, Object> response = new HashMap<>();
+        long rowCount = fetchRows(sql, sink, response);
+        logger.debug("Filtered rows obtained from {}.{}: {}", schema, table, rowCount);
+        response.put("type", "filtered_query");
+        response.put("schema", schema);
+        response.put("table", table);
+        response.put("sql", sql);
+        response.put("row_count", rowCount);
+        response.put("message", String.format("Filtered data from %s.%s, %d rows returned (limited to %d rows)",
+                schema, table, rowCount, MAX_ROWS));
+        return response;
+    }
+
+    /**
+     * Runs a row-returning statement. Without a sink the rows go to the response's "data" field;
+     * with one they are streamed as they are read and the response is only flagged as streamed.
+     *
+     * @return the number of rows read
+     */
+    private long fetchRows(String sql, RowSink sink, Map<String, Object> response) throws SQLException {
+        if (sink == null) {
+            List<Map<String, Object>> results = prestoService.executeQuery(sql);
+            response.put("data", results);
+            return results.size();
+        }
+        long rowCount = prestoService.executeQuery(sql, sink);
+        response.put("streamed", true);
+        return rowCount;
+    }
+
+    /**
+     * Resolves a "table" or "schema.table" reference against the metadata cache so that no
+     * Presto round trip is needed to locate the schema.
+     */
+    private Optional<String[]> resolveSchemaAndTable(String tableName) {
+        if (tableName == null || tableName.isEmpty()) {
+            logger.warn("Could not identify the table name in the query");
+            return Optional.empty();
+        }
+        String[] parts = tableName.split("\\.");
+        if (parts.length > 1) {
+            return Optional.of(new String[]{parts[0], parts[1]});
+        }
+        for (String schema : metadataCacheService.getSchemas()) {
+            for (String table : metadataCacheService.getTables(schema)) {
+                if (table.equalsIgnoreCase(tableName)) {
+                    return Optional.of(new String[]{schema, table});
+                }
+            }
+        }
+        logger.warn("Schema not found for table: {}", tableName);
+        return Optional.empty();
+    }
+
+    private Map<String, Object> handleListEntity(ParsedIntent intent, RowSink sink) throws SQLException {
+        logger.info("Entering handleListEntity with intent: {}", intent);
+        String entity = intent.entity();
         if (entity == null) {
             logger.warn("Could not identify the entity in the query");
             return createErrorResponse("Could not identify the entity in the query.");
         }
-        String schema = extractSchemaFromQuery(query);
-        logger.debug("Schema extracted: {}", schema);
-        Optional<String[]> schemaTable;
-        if (schema != null) {
-            schemaTable = findTableAndSchemaForEntityInSchema(entity, schema);
-        } else {
-            schemaTable = findTableAndSchemaForEntity(entity);
-        }
-        if (schemaTable.isEmpty()) {
+        String schema = intent.schema();
+        if (intent.table() == null) {
             logger.warn("No table found for entity: {}{}", entity, (schema != null ? (" in schema: " + schema) : ""));
             return createErrorResponse("No table found for entity: " + entity + (schema != null ? (" in schema: " + schema) : ""));
         }
-        String foundSchema = schemaTable.get()[0];
-        String table = schemaTable.get()[1];
-        logger.debug("Entity found in {}.{}", foundSchema, table);
-        List<Map<String, Object>> results = prestoService.executeQuery("SELECT * FROM " + foundSchema + "." + table);
-        logger.debug("Rows obtained for entity {}: {}", entity, results.size());
+        String table = intent.table();
+        logger.debug("Entity found in {}.{}", schema, table);
         Map<String, Object> response = new HashMap<>();
+        long rowCount = fetchRows("SELECT * FROM " + schema + "." + table, sink, response);
+        logger.debug("Rows obtained for entity {}: {}", entity, rowCount);
         response.put("type", "entity_list");
         response.put("entity", entity);
-        response.put("schema", foundSchema);
+        response.put("schema", schema);
         response.put("table", table);
-        response.put("data", results);
-        response.put("row_count", results.size());
-        response.put("message", String.format("List of %s, %d found", entity, results.size()));
+        response.put("row_count", rowCount);
+        response.put("message", String.format("List of %s, %d found", entity, rowCount));
         return response;
     }
 
@@ -343,15 +552,7 @@ public class QueryIntelligenceService {
 
     public Optional<String[]> findTableAndSchemaForEntityInSchema(String entity, String schema) {
         logger.debug("Searching for entity '{}' in schema '{}'", entity, schema);
-        for (String table : metadataCacheService.getTables(schema)) {
-            String tableLower = table.toLowerCase();
-            if (tableLower.contains(entity) || tableLower.contains(entity + "s") || tableLower.contains(entity + "es")) {
-                logger.debug("Entity '{}' found in table '{}'", entity, table);
-                return Optional.of(new String[]{schema, table});
-            }
-        }
-        logger.debug("Entity '{}' not found in schema '{}'", entity, schema);
-        return Optional.empty();
+        return bestCandidate(entity, metadataCacheService.getEntityIndex().lookup(entity, schema));
     }
 
     private Map<String, Object> createErrorResponse(String message) {
@@ -382,17 +583,18 @@ public class QueryIntelligenceService {
 
     public Optional<String[]> findTableAndSchemaForEntity(String entity) {
         logger.debug("Searching for entity '{}' in all schemas", entity);
-        for (String schema : metadataCacheService.getSchemas()) {
-            for (String table : metadataCacheService.getTables(schema)) {
-                String tableLower = table.toLowerCase();
-                if (tableLower.contains(entity) || tableLower.contains(entity + "s") || tableLower.contains(entity + "es")) {
-                    logger.debug("Entity '{}' found in {}.{}", entity, schema, table);
-                    return Optional.of(new String[]{schema, table});
-                }
-            }
+        return bestCandidate(entity, metadataCacheService.getEntityIndex().lookup(entity));
+    }
+
+    private Optional<String[]> bestCandidate(String entity, List<EntityIndex.Candidate> candidates) {
+        if (candidates.isEmpty()) {
+            logger.debug("Entity '{}' not found", entity);
+            return Optional.empty();
         }
-        logger.debug("Entity '{}' not found in any schema", entity);
-        return Optional.empty();
+        EntityIndex.Candidate best = candidates.get(0);
+        logger.debug("Entity '{}' resolved to {}.{} (score {}, {} candidates)",
+                entity, best.schema(), best.table(), best.score(), candidates.size());
+        return Optional.of(new String[]{best.schema(), best.table()});
     }
 
     public McpResponse<Map<String, Object>> handleDescribeTableMcp(String query, String traceId) throws SQLException {
@@ -430,7 +632,7 @@ public class QueryIntelligenceService {
             }
         }
         List<Map<String, Object>> columns = prestoService.getTableColumns(schema, table);
-        logger.debug("Columns of table {}.{}: {}", schema, table, columns);
+        logger.debug("Columns of table {}.{}: {}", schema, table, columns.size());
         Map<String, Object> response = new HashMap<>();
         response.put("type", "table_description");
         response.put("schema", schema);
@@ -1,59 +1,74 @@
 package com.santec.polenta.service;
 
 import org.springframework.stereotype.Component;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.HashMap;
 
 @Component
 public class QueryParser {
-    private static final Map<Pattern, String> QUERY_PATTERNS;
-    static {
-        Map<Pattern, String> patterns = new HashMap<>();
-        // Inglés
-        patterns.put(Pattern.compile("(?i).*show.*tables.*"), "SHOW_TABLES");
-        patterns.put(Pattern.compile("(?i).*list.*tables.*"), "SHOW_TABLES");
-        patterns.put(Pattern.compile("(?i).*what.*tables.*"), "SHOW_TABLES");
-        patterns.put(Pattern.compile("(?i).*accessible.*tables.*"), "ACCESSIBLE_TABLES");
-        patterns.put(Pattern.compile("(?i).*tables.*can.*access.*"), "ACCESSIBLE_TABLES");
-        patterns.put(Pattern.compile("(?i).*describe\\s+table\\s+\\w+.*"), "DESCRIBE_TABLE");
-        patterns.put(Pattern.compile("(?i).*columns.*in.*"), "DESCRIBE_TABLE");
-        patterns.put(Pattern.compile("(?i).*structure.*of.*"), "DESCRIBE_TABLE");
-        patterns.put(Pattern.compile("(?i).*sample\\s+data\\s+from\\s+\\w+.*"), "SAMPLE_DATA");
-        patterns.put(Pattern.compile("(?i).*show.*data.*from.*"), "SAMPLE_DATA");
-        patterns.put(Pattern.compile("(?i).*preview.*"), "SAMPLE_DATA");
-        patterns.put(Pattern.compile("(?i).*find\\s+tables\\s+containing\\s+\\w+.*"), "SEARCH_TABLES");
-        // Español
-        patterns.put(Pattern.compile("(?i).*(todas|lista)\\s+las\\s+\\w+\\s+del\\s+esquema\\s+\\w+.*"), "LIST_ENTITY");
-        patterns.put(Pattern.compile("(?i).*lista\\s+de\\s+\\w+.*"), "LIST_ENTITY");
-        patterns.put(Pattern.compile("(?i).*buscar\\s+\\w+\\s+en\\s+el\\s+esquema\\s+\\w+.*"), "SEARCH_ENTITY");
-        patterns.put(Pattern.compile("(?i).*datos\\s+de\\s+la\\s+tabla\\s+\\w+.*"), "TABLE_DATA");
-        patterns.put(Pattern.compile("(?i).*contar\\s+registros\\s+en\\s+la\\s+tabla\\s+\\w+.*"), "COUNT_RECORDS");
-        patterns.put(Pattern.compile("(?i).*columnas\\s+de\\s+la\\s+tabla\\s+\\w+.*"), "LIST_COLUMNS");
-        patterns.put(Pattern.compile("(?i).*seleccionar\\s+.*\\s+de\\s+la\\s+tabla\\s+\\w+\\s+donde\\s+.*"), "FILTERED_QUERY");
-        QUERY_PATTERNS = java.util.Collections.unmodifiableMap(patterns);
-    }
+    /**
+     * Intent rules in priority order: when several rules match a query the first one wins.
+     * Specific multi-word phrases go before the generic keyword rules they overlap with.
+     */
+    private static final IntentMatcher INTENT_MATCHER = IntentMatcher.builder()
+            .rule("DIRECT_SQL", "^select")
+            // Español
+            .rule("FILTERED_QUERY", "seleccionar .. de la tabla * donde")
+            .rule("COUNT_RECORDS", "contar registros en la tabla *")
+            .rule("LIST_COLUMNS", "columnas de la tabla *")
+            .rule("TABLE_DATA", "datos de la tabla *")
+            .rule("SEARCH_ENTITY", "buscar * en el esquema *")
+            .rule("LIST_ENTITY", "todas|lista las * del esquema *")
+            .rule("LIST_ENTITY", "lista de *")
+            // Inglés
+            .rule("ACCESSIBLE_TABLES", "accessible .. tables")
+            .rule("ACCESSIBLE_TABLES", "tables .. can .. access")
+            .rule("DESCRIBE_TABLE", "describe table *")
+            .rule("DESCRIBE_TABLE", "columns .. in")
+            .rule("DESCRIBE_TABLE", "structure .. of")
+            .rule("SAMPLE_DATA", "sample data from *")
+            .rule("SAMPLE_DATA", "show .. data .. from")
+            .rule("SAMPLE_DATA", "preview")
+            .rule("SEARCH_TABLES", "find tables containing *")
+            .rule("SHOW_TABLES", "show .. tables")
+            .rule("SHOW_TABLES", "list .. tables")
+            .rule("SHOW_TABLES", "what .. tables")
+            .rule("SEARCH_TABLES", "find|search")
+            .rule("DIRECT_SQL", "^show|describe")
+            .defaultIntent("UNKNOWN")
+            .build();
+
+    private static final Set<String> ENTITY_MARKERS = Set.of("lista", "listar", "todas", "todos");
+    private static final Set<String> ENTITY_STOPWORDS = Set.of("de", "del", "las", "los", "el", "la");
+
+    private static final Pattern SELECTED_COLUMNS = Pattern.compile(
+            "seleccionar\\s+(.+?)\\s+de\\s+la\\s+tabla\\s", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE_CLAUSE = Pattern.compile(
+            "\\sdonde\\s+(.+)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CONDITION = Pattern.compile(
+            "\\s*([A-Za-z_]\\w*)"
+                    + "(?:\\s*(>=|<=|<>|!=|=|>|<)\\s*"
+                    + "|\\s+(es igual a|igual a|es distinto de|distinto de"
+                    + "|es mayor o igual a|mayor o igual a|es menor o igual a|menor o igual a"
+                    + "|es mayor que|mayor que|es menor que|menor que|contiene|es)\\s+)"
+                    + "('(?:[^']|'')*'|\"[^\"]*\"|[^\\s'\"]+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CONDITION_SEPARATOR = Pattern.compile("\\s+(?:y|and)\\s+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][\\w]*");
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
 
     public String identifyQueryType(String query) {
-        String q = query.toLowerCase().trim();
-        for (Map.Entry<Pattern, String> entry : QUERY_PATTERNS.entrySet()) {
-            if (entry.getKey().matcher(query).matches()) {
-                return entry.getValue();
-            }
-        }
-        if (q.contains("find") || q.contains("search")) {
-            return "SEARCH_TABLES";
-        }
-        if (q.startsWith("select") || q.startsWith("show") || q.startsWith("describe")) {
-            return "DIRECT_SQL";
-        }
-        return "UNKNOWN";
+        return INTENT_MATCHER.match(query);
     }
 
     public String extractTableName(String query, TokenizerService tokenizerService) {
         String[] words = query.toLowerCase().split("\\s+");
         for (int i = 0; i < words.length - 1; i++) {
-            if (words[i].equals("from") || words[i].equals("table") || words[i].equals("of")) {
+            if (words[i].equals("from") || words[i].equals("table") || words[i].equals("of") || words[i].equals("tabla")) {
                 return words[i + 1].replaceAll("[^a-zA-Z0-9._]", "");
             }
         }
@@ -64,25 +79,23 @@ public class QueryParser {
         return null;
     }
 
+    /**
+     * Extracts the entity of a listing request ("lista de países", "todas las sucursales del
+     * esquema ventas"). The word is returned as written, singular/plural and accents are
+     * handled by the {@link EntityIndex} lookup.
+     */
     public String extractEntityFromQuery(String query, TokenizerService tokenizerService) {
         String[] tokens = tokenizerService.tokenize(query);
         for (int i = 0; i < tokens.length; i++) {
-            if (tokens[i].equalsIgnoreCase("lista")) {
-                if (i + 2 < tokens.length && tokens[i + 1].equalsIgnoreCase("de")) {
-                    return tokens[i + 2].toLowerCase();
-                } else if (i + 1 < tokens.length) {
-                    return tokens[i + 1].toLowerCase();
+            if (ENTITY_MARKERS.contains(tokens[i].toLowerCase(Locale.ROOT))) {
+                for (int j = i + 1; j < tokens.length; j++) {
+                    String token = tokens[j].toLowerCase(Locale.ROOT);
+                    if (!ENTITY_STOPWORDS.contains(token) && Character.isLetter(token.charAt(0))) {
+                        return token;
+                    }
                 }
             }
         }
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile("lista de ([a-zA-Záéíóúñ]+)", java.util.regex.Pattern.CASE_INSENSITIVE);
-        java.util.regex.Matcher m = p.matcher(query);
-        if (m.find()) {
-            String entity = m.group(1).toLowerCase();
-            if (entity.endsWith("es")) entity = entity.substring(0, entity.length() - 2);
-            else if (entity.endsWith("s")) entity = entity.substring(0, entity.length() - 1);
-            return entity;
-        }
         return null;
     }
 
@@ -95,4 +108,101 @@ public class QueryParser {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Extracts the column list of a Spanish filtered query
+     * ("seleccionar nombre, ciudad de la tabla clientes donde ...").
+     *
+     * @return the requested columns, an empty list when every column was requested
+     *         ("todo", "todos", "*") or {@code null} if a column is not a valid identifier
+     */
+    public List<String> extractSelectedColumns(String query) {
+        Matcher m = SELECTED_COLUMNS.matcher(query);
+        if (!m.find()) {
+            return null;
+        }
+        String selection = m.group(1).trim().toLowerCase(Locale.ROOT);
+        if (selection.equals("*") || selection.startsWith("todo") || selection.startsWith("todas")) {
+            return List.of();
+        }
+        List<String> columns = new ArrayList<>();
+        for (String column : selection.split("\\s*,\\s*|\\s+y\\s+")) {
+            if (!IDENTIFIER.matcher(column).matches()) {
+                return null;
+            }
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    /**
+     * Extracts the conditions after "donde" as {column, SQL operator, SQL literal} triples.
+     * Conditions are joined with "y"/"and"; literals are always rendered as quoted strings or
+     * plain numbers so they can be concatenated into the statement safely.
+     *
+     * @return the parsed conditions, or {@code null} if the clause cannot be understood
+     */
+    public List<String[]> extractFilterConditions(String query) {
+        Matcher where = WHERE_CLAUSE.matcher(query.trim());
+        if (!where.find()) {
+            return null;
+        }
+        String clause = where.group(1).replaceAll("[.;!?]+$", "");
+        List<String[]> conditions = new ArrayList<>();
+        Matcher condition = CONDITION.matcher(clause);
+        Matcher separator = CONDITION_SEPARATOR.matcher(clause);
+        int pos = 0;
+        while (true) {
+            condition.region(pos, clause.length());
+            if (!condition.lookingAt()) {
+                return null;
+            }
+            String operator = toSqlOperator(condition.group(2) != null ? condition.group(2) : condition.group(3));
+            String literal = toSqlLiteral(condition.group(4), operator.equals("LIKE"));
+            conditions.add(new String[]{condition.group(1).toLowerCase(Locale.ROOT), operator, literal});
+            pos = condition.end();
+            if (pos == clause.length() || clause.substring(pos).isBlank()) {
+                return conditions;
+            }
+            separator.region(pos, clause.length());
+            if (!separator.lookingAt()) {
+                return null;
+            }
+            pos = separator.end();
+        }
+    }
+
+    private String toSqlOperator(String operator) {
+        String op = operator.toLowerCase(Locale.ROOT);
+        if (op.startsWith("es ")) {
+            op = op.substring(3);
+        }
+        return switch (op) {
+            case "=", "es", "igual a" -> "=";
+            case "<>", "!=", "distinto de" -> "<>";
+            case "mayor que" -> ">";
+            case "menor que" -> "<";
+            case "mayor o igual a" -> ">=";
+            case "menor o igual a" -> "<=";
+            case "contiene" -> "LIKE";
+            default -> op;
+        };
+    }
+
+    private String toSqlLiteral(String value, boolean like) {
+        String raw;
+        if (value.startsWith("'") && value.endsWith("'") && value.length() > 1) {
+            raw = value.substring(1, value.length() - 1).replace("''", "'");
+        } else if (value.startsWith("\"") && value.endsWith("\"") && value.length() > 1) {
+            raw = value.substring(1, value.length() - 1);
+        } else if (!like && NUMBER.matcher(value).matches()) {
+            return value;
+        } else {
+            raw = value;
+        }
+        if (like) {
+            raw = "%" + raw + "%";
+        }
+        return "'" + raw.replace("'", "''") + "'";
+    }
+}
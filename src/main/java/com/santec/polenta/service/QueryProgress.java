@@ -0,0 +1,43 @@
+package com.santec.polenta.service;
+
+import java.util.Locale;
+
+/**
+ * Progress of a running Presto query, as reported by the Trino driver.
+ *
+ * @param percentage completion from 0 to 100, or {@code NaN} while the driver cannot estimate it
+ */
+public record QueryProgress(String queryId, String state, double percentage, int completedSplits, int totalSplits,
+                            long processedRows, long processedBytes, long cpuTimeMillis, long elapsedTimeMillis) {
+
+    public boolean hasPercentage() {
+        return !Double.isNaN(percentage);
+    }
+
+    /**
+     * A one-line summary such as {@code RUNNING 63% (120/190 splits), 1.2M rows, 310 MB processed}.
+     */
+    public String describe() {
+        StringBuilder description = new StringBuilder(state);
+        if (hasPercentage()) {
+            description.append(' ').append(Math.round(percentage)).append('%');
+        }
+        description.append(" (").append(completedSplits).append('/').append(totalSplits).append(" splits), ")
+                .append(abbreviate(processedRows, "")).append(" rows, ")
+                .append(abbreviate(processedBytes, "B")).append(" processed");
+        return description.toString();
+    }
+
+    private static String abbreviate(long value, String unit) {
+        String[] prefixes = {"", "K", "M", "G", "T"};
+        double scaled = value;
+        int prefix = 0;
+        while (scaled >= 1000 && prefix < prefixes.length - 1) {
+            scaled /= 1000;
+            prefix++;
+        }
+        String number = prefix == 0 ? Long.toString(value) : String.format(Locale.ROOT, "%.1f", scaled);
+        String suffix = prefixes[prefix] + unit;
+        return suffix.isEmpty() ? number : number + (unit.isEmpty() ? suffix : " " + suffix);
+    }
+}
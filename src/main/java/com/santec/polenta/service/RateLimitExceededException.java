@@ -0,0 +1,18 @@
+package com.santec.polenta.service;
+
+/**
+ * A tool call rejected because the session used up its calls of the tool for now.
+ */
+public class RateLimitExceededException extends IllegalStateException {
+
+    private final long retryAfterMs;
+
+    public RateLimitExceededException(String toolName, long retryAfterMs) {
+        super("Rate limit exceeded for tool " + toolName + ", retry after " + retryAfterMs + " ms");
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
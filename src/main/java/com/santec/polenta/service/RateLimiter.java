@@ -0,0 +1,105 @@
+package com.santec.polenta.service;
+
+import com.santec.polenta.config.RateLimitConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the tool calls of each session with a {@link TokenBucket} per session and tool, so that a
+ * client calling in a loop is throttled before its queries reach Presto.
+ *
+ * <p>The buckets of a live session are kept in its {@link McpSession} state and go away with it.
+ * Calls from clients without a session are tracked by their session key, up to
+ * {@code mcp.rate-limit.max-anonymous-clients}; beyond that, the least recently seen client is dropped
+ * (and starts again with full buckets if it comes back).
+ *
+ * <p>Throttled calls are counted in {@code mcp.ratelimit.throttled}, tagged by tool.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    static final String SESSION_ATTRIBUTE = "rate-limit.buckets";
+
+    private final RateLimitConfig config;
+    private final SessionManager sessionManager;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+    private final Map<String, Map<String, TokenBucket>> anonymousBuckets;
+
+    @Autowired
+    public RateLimiter(RateLimitConfig config, SessionManager sessionManager, MeterRegistry meterRegistry) {
+        this(config, sessionManager, meterRegistry, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitConfig config, SessionManager sessionManager, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.config = config;
+        this.sessionManager = sessionManager;
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        // In access order, so the eldest entry is the least recently seen client.
+        this.anonymousBuckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, TokenBucket>> eldest) {
+                return size() > config.getMaxAnonymousClients();
+            }
+        };
+    }
+
+    /**
+     * Takes one call of the tool from the session's allowance.
+     *
+     * @throws RateLimitExceededException if the session has no calls of the tool left, with the time to wait
+     */
+    public void acquire(String sessionId, String toolName) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        RateLimitConfig.Limit limit = config.getTools().getOrDefault(toolName, config.getDefaults());
+        if (limit == null || limit.getCapacity() <= 0) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        TokenBucket bucket = bucketsOf(sessionId).computeIfAbsent(toolName,
+                name -> new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond(), now));
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            long retryAfterMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos + 999_999));
+            Counter.builder("mcp.ratelimit.throttled")
+                    .description("Tool calls rejected by the rate limiter")
+                    .tag("tool", toolName)
+                    .register(meterRegistry)
+                    .increment();
+            logger.debug("Throttled {} for session {}, retry after {} ms", toolName, sessionId, retryAfterMs);
+            throw new RateLimitExceededException(toolName, retryAfterMs);
+        }
+    }
+
+    private Map<String, TokenBucket> bucketsOf(String sessionId) {
+        McpSession session = sessionManager.getSession(sessionId);
+        if (session != null) {
+            return session.getAttribute(SESSION_ATTRIBUTE, ConcurrentHashMap::new);
+        }
+        String key = sessionId != null ? sessionId : "";
+        synchronized (anonymousBuckets) {
+            return anonymousBuckets.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        }
+    }
+
+    int getAnonymousClients() {
+        synchronized (anonymousBuckets) {
+            return anonymousBuckets.size();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.santec.polenta.service;
+
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Forwards rows to the client's sink while keeping a copy of them, up to a maximum, so a streamed
+ * result can be stored for replay. The copy is read with the conversions of {@link JsonRowWriter}, so a
+ * replay serializes like the rows that were streamed.
+ *
+ * <p>If the client's sink fails (the client went away) the query normally aborts; while the rows
+ * still fit in the copy it keeps running instead, so that the retry finds the complete result.
+ * An encoded payload is passed through to the client's sink when it takes one, and is not kept.
+ */
+final class RecordingRowSink implements PayloadSink {
+
+    private final RowSink delegate;
+    private final int maxRows;
+
+    private JsonRowWriter reader;
+    private List<Map<String, Object>> rows = new ArrayList<>();
+    private SQLException delegateError;
+
+    RecordingRowSink(RowSink delegate, int maxRows) {
+        this.delegate = delegate;
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public void start(ResultSetMetaData metaData) throws SQLException {
+        reader = JsonRowWriter.forMetaData(metaData);
+        forward(() -> delegate.start(metaData));
+    }
+
+    @Override
+    public OutputStream startPayload(ResultFormat format) throws SQLException {
+        rows = null;
+        return delegate instanceof PayloadSink payloadSink ? payloadSink.startPayload(format) : null;
+    }
+
+    @Override
+    public void row(ResultSet resultSet) throws SQLException {
+        forward(() -> delegate.row(resultSet));
+        if (rows != null) {
+            if (rows.size() >= maxRows) {
+                rows = null;
+            } else {
+                rows.add(reader.readRow(resultSet));
+            }
+        }
+        if (delegateError != null && rows == null) {
+            throw delegateError;
+        }
+    }
+
+    @Override
+    public void end(long rowCount) throws SQLException {
+        forward(() -> delegate.end(rowCount));
+    }
+
+    @Override
+    public void progress(QueryProgress progress) throws SQLException {
+        forward(() -> delegate.progress(progress));
+    }
+
+    /**
+     * @return the rows, or {@code null} if there were more than could be kept
+     */
+    List<Map<String, Object>> getRows() {
+        return rows;
+    }
+
+    private interface SinkCall {
+        void run() throws SQLException;
+    }
+
+    private void forward(SinkCall call) throws SQLException {
+        if (delegateError != null) {
+            return;
+        }
+        try {
+            call.run();
+        } catch (SQLException e) {
+            if (rows == null) {
+                throw e;
+            }
+            delegateError = e;
+        }
+    }
+}
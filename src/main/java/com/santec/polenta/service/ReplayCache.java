@@ -0,0 +1,201 @@
+package com.santec.polenta.service;
+
+import com.santec.polenta.config.IdempotencyConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Makes retried tool calls idempotent: a call repeated in the same session with the same key (the
+ * JSON-RPC id, or an explicit idempotency key) attaches to the execution still in flight, or gets
+ * its result while it is stored, instead of running the query again.
+ *
+ * <p>Results are kept for {@code mcp.idempotency.ttl-ms}, at most {@code mcp.idempotency.max-entries}
+ * of them, and go away with their session. Rows streamed to the client are copied for replay up to
+ * {@code mcp.idempotency.max-rows}; larger results and failed calls are not stored. A replay is
+ * answered with the rows inline and flagged {@code replayed}. A key reused with different
+ * parameters runs as a new call. A retry waits for the call in flight up to
+ * {@code mcp.idempotency.in-flight-wait-ms} and is then answered busy.
+ *
+ * <p>Replays are counted in {@code mcp.idempotency.replays}, tagged {@code in_flight} or
+ * {@code stored}; {@code mcp.idempotency.entries} gauges the calls kept.
+ */
+@Component
+public class ReplayCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayCache.class);
+
+    private static final class Entry {
+        final Object call;
+        final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        volatile long storedAt;
+
+        Entry(Object call) {
+            this.call = call;
+        }
+
+        boolean isExpired(long now, long ttlMs) {
+            return result.isDone() && now - storedAt > ttlMs;
+        }
+    }
+
+    private final IdempotencyConfig config;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReplayCache(IdempotencyConfig config, SessionManager sessionManager, MeterRegistry meterRegistry) {
+        this(config, sessionManager, meterRegistry, System::currentTimeMillis);
+    }
+
+    ReplayCache(IdempotencyConfig config, SessionManager sessionManager, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        Gauge.builder("mcp.idempotency.entries", entries, Map::size)
+                .description("Tool calls kept for replay")
+                .register(meterRegistry);
+        sessionManager.addEvictionListener((session, reason) -> evictSession(session.getId()));
+    }
+
+    /**
+     * Runs the call, or replays it if the same key was used in the session recently.
+     *
+     * @param key       the idempotency key or JSON-RPC id; calls without one always run
+     * @param signature what is called (tool and arguments), compared to tell a retry from a reused key
+     * @param call      the call, given the sink to stream its rows to
+     */
+    public Map<String, Object> execute(String sessionId, Object key, Object signature, RowSink sink,
+                                       Function<RowSink, Map<String, Object>> call) {
+        if (!config.isEnabled() || key == null) {
+            return call.apply(sink);
+        }
+        String cacheKey = sessionId + "|" + key;
+        Entry entry = new Entry(signature);
+        Entry existing = entries.putIfAbsent(cacheKey, entry);
+        while (existing != null && existing.isExpired(clock.getAsLong(), config.getTtlMs())) {
+            entries.remove(cacheKey, existing);
+            existing = entries.putIfAbsent(cacheKey, entry);
+        }
+        if (existing != null) {
+            return replay(existing, key, signature, sink, call);
+        }
+        evictIfFull();
+
+        RecordingRowSink recorder = sink != null ? new RecordingRowSink(sink, config.getMaxRows()) : null;
+        Map<String, Object> result;
+        try {
+            result = call.apply(recorder);
+        } catch (RuntimeException e) {
+            entries.remove(cacheKey, entry);
+            entry.result.complete(null);
+            throw e;
+        }
+        Map<String, Object> stored = storable(result, recorder);
+        if (stored == null) {
+            entries.remove(cacheKey, entry);
+        }
+        entry.storedAt = clock.getAsLong();
+        entry.result.complete(stored);
+        return result;
+    }
+
+    private Map<String, Object> replay(Entry existing, Object key, Object signature, RowSink sink,
+                                       Function<RowSink, Map<String, Object>> call) {
+        if (!Objects.equals(existing.call, signature)) {
+            logger.debug("Idempotency key {} reused with different parameters, running the call", key);
+            return call.apply(sink);
+        }
+        String source = existing.result.isDone() ? "stored" : "in_flight";
+        Map<String, Object> stored;
+        try {
+            stored = existing.result.get(config.getInFlightWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Tool call {} still running after {} ms, answering the retry busy", key, config.getInFlightWaitMs());
+            throw new IllegalStateException("Call " + key + " is still running, try again later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for call " + key, e);
+        } catch (ExecutionException e) {
+            stored = null;
+        }
+        if (stored == null) {
+            // The first execution failed or its result could not be kept.
+            return call.apply(sink);
+        }
+        Counter.builder("mcp.idempotency.replays")
+                .description("Tool calls answered from a previous execution")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+        logger.info("Replaying tool call {} ({})", key, source);
+        Map<String, Object> replayed = new HashMap<>(stored);
+        replayed.put("replayed", true);
+        return replayed;
+    }
+
+    /**
+     * The copy of the result to keep, or {@code null} if it must not be replayed.
+     */
+    private Map<String, Object> storable(Map<String, Object> result, RecordingRowSink recorder) {
+        if (result == null || "error".equals(result.get("status"))) {
+            return null;
+        }
+        Map<String, Object> stored = new HashMap<>(result);
+        if (Boolean.TRUE.equals(stored.remove("streamed"))) {
+            if (recorder == null || recorder.getRows() == null) {
+                return null;
+            }
+            stored.put("data", recorder.getRows());
+        }
+        return stored;
+    }
+
+    private void evictIfFull() {
+        if (entries.size() <= config.getMaxEntries()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        entries.values().removeIf(e -> e.isExpired(now, config.getTtlMs()));
+        while (entries.size() > config.getMaxEntries()) {
+            String oldest = null;
+            long oldestAt = Long.MAX_VALUE;
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                if (e.getValue().result.isDone() && e.getValue().storedAt < oldestAt) {
+                    oldest = e.getKey();
+                    oldestAt = e.getValue().storedAt;
+                }
+            }
+            if (oldest == null) {
+                // Only calls in flight: they are bounded by the tool executors.
+                return;
+            }
+            entries.remove(oldest);
+        }
+    }
+
+    private void evictSession(String sessionId) {
+        String prefix = sessionId + "|";
+        entries.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
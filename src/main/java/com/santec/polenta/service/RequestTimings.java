@@ -0,0 +1,145 @@
+package com.santec.polenta.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stage-by-stage timing breakdown of one tool call, with the Presto queries it ran: their ids,
+ * statements, rows read and bytes processed.
+ *
+ * <p>The timings of the call in progress are bound to the thread running it, so the code measuring
+ * a stage (intent parsing in {@link QueryIntelligenceService}, connection, execution and row fetch
+ * in {@link PrestoService}...) records it with the static methods without having the timings passed
+ * down; outside a tool call they do nothing. A stage recorded several times (a tool running more
+ * than one query) accumulates its durations.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> stages = new LinkedHashMap<>();
+    private final List<String> prestoQueryIds = new ArrayList<>();
+    private final List<String> statements = new ArrayList<>();
+    private long rows;
+    private long processedBytes;
+
+    /**
+     * The timings bound to this thread, or {@code null} outside a tool call.
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds the timings to this thread ({@code null} unbinds them).
+     *
+     * @return the timings previously bound, to restore them afterwards
+     */
+    public static RequestTimings bind(RequestTimings timings) {
+        RequestTimings previous = CURRENT.get();
+        if (timings == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(timings);
+        }
+        return previous;
+    }
+
+    /**
+     * Adds the duration to the stage of the timings bound to this thread, if any.
+     */
+    public static void record(String stage, long nanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.add(stage, nanos);
+        }
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} in the stage.
+     *
+     * @return the current {@link System#nanoTime()}, the start of the next stage
+     */
+    public static long lap(String stage, long startNanos) {
+        long now = System.nanoTime();
+        record(stage, now - startNanos);
+        return now;
+    }
+
+    public static void recordPrestoQueryId(String queryId) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null && queryId != null) {
+            synchronized (timings) {
+                timings.prestoQueryIds.add(queryId);
+            }
+        }
+    }
+
+    /**
+     * Records a statement run by the call, with the rows it returned and the bytes Presto processed
+     * for it (0 when unknown).
+     */
+    public static void recordStatement(String sql, long rows, long processedBytes) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            synchronized (timings) {
+                timings.statements.add(sql);
+                timings.rows += rows;
+                timings.processedBytes += processedBytes;
+            }
+        }
+    }
+
+    public synchronized void add(String stage, long nanos) {
+        stages.merge(stage, Math.max(nanos, 0), Long::sum);
+    }
+
+    /**
+     * Duration of each stage in nanoseconds, in the order they were first recorded.
+     */
+    public synchronized Map<String, Long> getStages() {
+        return new LinkedHashMap<>(stages);
+    }
+
+    public synchronized List<String> getPrestoQueryIds() {
+        return new ArrayList<>(prestoQueryIds);
+    }
+
+    public synchronized List<String> getStatements() {
+        return new ArrayList<>(statements);
+    }
+
+    public synchronized long getRows() {
+        return rows;
+    }
+
+    public synchronized long getProcessedBytes() {
+        return processedBytes;
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * The breakdown as returned in the {@code timings} field of a tool result: {@code total_ms},
+     * {@code stages} (milliseconds per stage) and {@code presto_query_ids}.
+     */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> stagesMs = new LinkedHashMap<>();
+        stages.forEach((stage, nanos) -> stagesMs.put(stage, millis(nanos)));
+        Map<String, Object> result = new HashMap<>();
+        result.put("total_ms", millis(getElapsedNanos()));
+        result.put("stages", stagesMs);
+        result.put("presto_query_ids", new ArrayList<>(prestoQueryIds));
+        return result;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
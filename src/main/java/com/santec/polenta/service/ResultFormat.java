@@ -0,0 +1,41 @@
+package com.santec.polenta.service;
+
+import java.util.Locale;
+
+/**
+ * Encodings offered by {@code query_data} through its {@code format} argument. JSON is the regular
+ * response; the others are returned as a base64 payload with their MIME type.
+ */
+public enum ResultFormat {
+
+    JSON("application/json"),
+    NDJSON("application/x-ndjson"),
+    CBOR("application/cbor"),
+    SMILE("application/x-jackson-smile"),
+    ARROW("application/vnd.apache.arrow.stream");
+
+    private final String mimeType;
+
+    ResultFormat(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    /**
+     * Parses the {@code format} tool argument; {@code null} means JSON.
+     */
+    public static ResultFormat fromArgument(String format) {
+        if (format == null || format.isBlank()) {
+            return JSON;
+        }
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported format: " + format
+                    + ". Use one of json, ndjson, cbor, smile, arrow");
+        }
+    }
+}
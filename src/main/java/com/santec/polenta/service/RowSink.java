@@ -0,0 +1,35 @@
+package com.santec.polenta.service;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Receives the rows of a query while the JDBC cursor is being read, so results can be
+ * forwarded to the client without materializing the whole result set in memory.
+ */
+public interface RowSink {
+
+    /**
+     * Called once before the first row, when the columns are known.
+     */
+    void start(ResultSetMetaData metaData) throws SQLException;
+
+    /**
+     * Called for each row with the cursor positioned on it. The result set must not be advanced.
+     */
+    void row(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Called after the last row.
+     */
+    void end(long rowCount) throws SQLException;
+
+    /**
+     * Called from time to time while the query runs with its progress, for sinks that can report it
+     * to the client. May come before {@link #start} (while the query is queued or planning) and
+     * between rows.
+     */
+    default void progress(QueryProgress progress) throws SQLException {
+    }
+}
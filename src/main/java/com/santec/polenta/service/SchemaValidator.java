@@ -0,0 +1,215 @@
+package com.santec.polenta.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Validator compiled once from a tool's JSON Schema, so that checking the arguments of a call does
+ * not walk the schema map again.
+ *
+ * <p>Supports the subset used by tool input schemas: {@code type} (object, string, number, integer,
+ * boolean, array), {@code properties}, {@code required}, {@code additionalProperties: false},
+ * {@code enum}, {@code minimum}/{@code maximum}, {@code minLength}/{@code maxLength},
+ * {@code pattern}, {@code items} and {@code minItems}/{@code maxItems}. Other keywords
+ * (descriptions, examples, defaults...) are ignored.
+ *
+ * <p>Errors are reported as a map from the argument path ({@code name}, {@code filter.column},
+ * {@code columns[2]}) to a message; an empty map means the arguments are valid.
+ */
+public final class SchemaValidator {
+
+    private interface Node {
+        void validate(Object value, String path, Map<String, String> errors);
+    }
+
+    private static final Node ANY = (value, path, errors) -> { };
+
+    private final Node root;
+
+    private SchemaValidator(Node root) {
+        this.root = root;
+    }
+
+    public static SchemaValidator compile(Map<String, Object> schema) {
+        return new SchemaValidator(schema == null ? ANY : compileNode(schema));
+    }
+
+    /**
+     * Validates the value against the schema.
+     *
+     * @return the errors by argument path, empty if the value is valid
+     */
+    public Map<String, String> validate(Object value) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        root.validate(value, "", errors);
+        return errors;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Node compileNode(Map<String, Object> schema) {
+        Object type = schema.get("type");
+        Node node;
+        if ("object".equals(type) || (type == null && schema.containsKey("properties"))) {
+            node = compileObject(schema);
+        } else if ("string".equals(type)) {
+            node = compileString(schema);
+        } else if ("number".equals(type) || "integer".equals(type)) {
+            node = compileNumber(schema, "integer".equals(type));
+        } else if ("boolean".equals(type)) {
+            node = (value, path, errors) -> {
+                if (!(value instanceof Boolean)) {
+                    errors.put(path, "Invalid type: expected boolean");
+                }
+            };
+        } else if ("array".equals(type)) {
+            node = compileArray(schema);
+        } else {
+            node = ANY;
+        }
+        Object values = schema.get("enum");
+        if (values instanceof Collection<?> allowed) {
+            Set<Object> options = new LinkedHashSet<>((Collection<Object>) allowed);
+            Node typed = node;
+            node = (value, path, errors) -> {
+                int before = errors.size();
+                typed.validate(value, path, errors);
+                if (errors.size() == before && !options.contains(value)) {
+                    errors.put(path, "Must be one of " + options);
+                }
+            };
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Node compileObject(Map<String, Object> schema) {
+        Map<String, Object> properties = schema.get("properties") instanceof Map
+                ? (Map<String, Object>) schema.get("properties") : Map.of();
+        String[] names = new String[properties.size()];
+        Node[] nodes = new Node[properties.size()];
+        int i = 0;
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            names[i] = property.getKey();
+            nodes[i] = property.getValue() instanceof Map
+                    ? compileNode((Map<String, Object>) property.getValue()) : ANY;
+            i++;
+        }
+        String[] required = schema.get("required") instanceof List
+                ? ((List<String>) schema.get("required")).toArray(new String[0]) : new String[0];
+        Set<String> known = Set.copyOf(properties.keySet());
+        boolean closed = Boolean.FALSE.equals(schema.get("additionalProperties"));
+
+        return (value, path, errors) -> {
+            if (!(value instanceof Map)) {
+                errors.put(path, "Invalid type: expected object");
+                return;
+            }
+            Map<String, Object> object = (Map<String, Object>) value;
+            for (String name : required) {
+                Object argument = object.get(name);
+                if (argument == null || (argument instanceof String s && s.isEmpty())) {
+                    errors.put(child(path, name), "Missing required parameter");
+                }
+            }
+            for (int p = 0; p < names.length; p++) {
+                Object argument = object.get(names[p]);
+                String childPath = child(path, names[p]);
+                if (argument != null && !errors.containsKey(childPath)) {
+                    nodes[p].validate(argument, childPath, errors);
+                }
+            }
+            if (closed) {
+                for (String name : object.keySet()) {
+                    if (!known.contains(name)) {
+                        errors.put(child(path, name), "Unknown parameter");
+                    }
+                }
+            }
+        };
+    }
+
+    private static Node compileString(Map<String, Object> schema) {
+        int minLength = intValue(schema.get("minLength"), -1);
+        int maxLength = intValue(schema.get("maxLength"), -1);
+        Pattern pattern = schema.get("pattern") instanceof String regex ? Pattern.compile(regex) : null;
+        return (value, path, errors) -> {
+            if (!(value instanceof String s)) {
+                errors.put(path, "Invalid type: expected string");
+            } else if (minLength >= 0 && s.length() < minLength) {
+                errors.put(path, "Must be at least " + minLength + " characters long");
+            } else if (maxLength >= 0 && s.length() > maxLength) {
+                errors.put(path, "Must be at most " + maxLength + " characters long");
+            } else if (pattern != null && !pattern.matcher(s).find()) {
+                errors.put(path, "Must match pattern " + pattern.pattern());
+            }
+        };
+    }
+
+    private static Node compileNumber(Map<String, Object> schema, boolean integer) {
+        BigDecimal minimum = decimalValue(schema.get("minimum"));
+        BigDecimal maximum = decimalValue(schema.get("maximum"));
+        String expected = integer ? "integer" : "number";
+        return (value, path, errors) -> {
+            if (!(value instanceof Number number)) {
+                errors.put(path, "Invalid type: expected " + expected);
+                return;
+            }
+            if (integer && !(number instanceof Integer || number instanceof Long || number instanceof Short
+                    || number instanceof Byte || number instanceof BigInteger)) {
+                errors.put(path, "Invalid type: expected integer");
+                return;
+            }
+            if (minimum == null && maximum == null) {
+                return;
+            }
+            BigDecimal decimal = new BigDecimal(number.toString());
+            if (minimum != null && decimal.compareTo(minimum) < 0) {
+                errors.put(path, "Must be greater than or equal to " + minimum);
+            } else if (maximum != null && decimal.compareTo(maximum) > 0) {
+                errors.put(path, "Must be less than or equal to " + maximum);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Node compileArray(Map<String, Object> schema) {
+        Node items = schema.get("items") instanceof Map ? compileNode((Map<String, Object>) schema.get("items")) : ANY;
+        int minItems = intValue(schema.get("minItems"), -1);
+        int maxItems = intValue(schema.get("maxItems"), -1);
+        return (value, path, errors) -> {
+            if (!(value instanceof List<?> list)) {
+                errors.put(path, "Invalid type: expected array");
+                return;
+            }
+            if (minItems >= 0 && list.size() < minItems) {
+                errors.put(path, "Must have at least " + minItems + " items");
+            } else if (maxItems >= 0 && list.size() > maxItems) {
+                errors.put(path, "Must have at most " + maxItems + " items");
+            }
+            if (items != ANY) {
+                for (int i = 0; i < list.size(); i++) {
+                    items.validate(list.get(i), path + "[" + i + "]", errors);
+                }
+            }
+        };
+    }
+
+    private static String child(String path, String name) {
+        return path.isEmpty() ? name : path + "." + name;
+    }
+
+    private static int intValue(Object value, int defaultValue) {
+        return value instanceof Number number ? number.intValue() : defaultValue;
+    }
+
+    private static BigDecimal decimalValue(Object value) {
+        return value instanceof Number number ? new BigDecimal(number.toString()) : null;
+    }
+}
@@ -1,25 +1,238 @@
 package com.santec.polenta.service;
 
+import com.santec.polenta.config.SessionConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import java.util.Set;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 /**
  * Handles the management of initialized sessions.
+ *
+ * <p>Sessions expire after {@code mcp.sessions.ttl-ms} without requests and at most
+ * {@code mcp.sessions.max-sessions} are kept: creating one more evicts the least recently used.
+ * Expired sessions are dropped when looked up and by a periodic sweep. An ended session closes its
+ * {@link McpSession} state and is reported to the eviction listeners.
+ *
+ * <p>Clients that do not send the {@code Mcp-Session-Id} header are tracked through a client key
+ * bound to the session they last initialized.
+ *
+ * <p>Publishes the gauge {@code mcp.sessions.active} and the counter {@code mcp.sessions.evicted},
+ * tagged with the reason: {@code expired}, {@code size} or {@code closed}.
  */
 @Component
 public class SessionManager {
-    private final Set<String> initializedSessions = ConcurrentHashMap.newKeySet();
 
-    public void addSession(String sessionId) {
-        initializedSessions.add(sessionId);
+    private static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
+
+    /**
+     * Called when a session ends, after its state has been closed.
+     */
+    public interface EvictionListener {
+        void onEviction(McpSession session, String reason);
+    }
+
+    private final SessionConfig config;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+    private final Map<String, McpSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, String> clientSessions = new ConcurrentHashMap<>();
+    private final List<EvictionListener> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService sweeper;
+
+    @Autowired
+    public SessionManager(SessionConfig config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, System::currentTimeMillis);
+    }
+
+    SessionManager(SessionConfig config, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        Gauge.builder("mcp.sessions.active", sessions, Map::size)
+                .description("Live MCP sessions")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startSweeper() {
+        if (config.getSweepIntervalMs() <= 0) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::evictExpired,
+                config.getSweepIntervalMs(), config.getSweepIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopSweeper() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    public String newSessionId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Starts the session, or refreshes it if it is already live.
+     */
+    public McpSession addSession(String sessionId) {
+        long now = clock.getAsLong();
+        McpSession session = sessions.compute(sessionId, (id, existing) -> {
+            if (existing != null && !isExpired(existing, now)) {
+                existing.touch(now);
+                return existing;
+            }
+            return new McpSession(id, now);
+        });
+        if (sessions.size() > config.getMaxSessions()) {
+            evictOverflow(sessionId);
+        }
+        return session;
     }
 
     public boolean isSessionInitialized(String sessionId) {
-        return initializedSessions.contains(sessionId);
+        return getSession(sessionId) != null;
+    }
+
+    /**
+     * Returns the live session and marks it as used, or {@code null} if there is none or it expired.
+     */
+    public McpSession getSession(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        McpSession session = sessions.get(sessionId);
+        if (session == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (isExpired(session, now)) {
+            evict(sessionId, "expired");
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    /**
+     * Ends the session at the client's request.
+     *
+     * @return whether the session was live
+     */
+    public boolean clearSession(String sessionId) {
+        return evict(sessionId, "closed");
+    }
+
+    /**
+     * Binds a client that does not send the session header to the session it just initialized.
+     */
+    public void bindClient(String clientKey, String sessionId) {
+        McpSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.setClientKey(clientKey);
+            clientSessions.put(clientKey, sessionId);
+        }
+    }
+
+    /**
+     * Returns the session last initialized by the client, or {@code null}.
+     */
+    public String sessionForClient(String clientKey) {
+        return clientSessions.get(clientKey);
+    }
+
+    public void addEvictionListener(EvictionListener listener) {
+        listeners.add(listener);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Drops the sessions idle for longer than the TTL.
+     *
+     * @return the number of sessions evicted
+     */
+    public int evictExpired() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+        for (McpSession session : sessions.values()) {
+            if (isExpired(session, now) && evict(session.getId(), "expired")) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("Evicted {} expired sessions, {} live", evicted, sessions.size());
+        }
+        return evicted;
+    }
+
+    private void evictOverflow(String keep) {
+        evictExpired();
+        while (sessions.size() > config.getMaxSessions()) {
+            McpSession eldest = null;
+            for (McpSession session : sessions.values()) {
+                if (!session.getId().equals(keep)
+                        && (eldest == null || session.getLastAccessedAt() < eldest.getLastAccessedAt())) {
+                    eldest = session;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            evict(eldest.getId(), "size");
+        }
+    }
+
+    private boolean isExpired(McpSession session, long now) {
+        return now - session.getLastAccessedAt() > config.getTtlMs();
     }
 
-    public void clearSession(String sessionId) {
-        initializedSessions.remove(sessionId);
+    private boolean evict(String sessionId, String reason) {
+        McpSession session = sessionId != null ? sessions.remove(sessionId) : null;
+        if (session == null) {
+            return false;
+        }
+        if (session.getClientKey() != null) {
+            clientSessions.remove(session.getClientKey(), sessionId);
+        }
+        session.close();
+        Counter.builder("mcp.sessions.evicted")
+                .description("MCP sessions ended, by reason")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        logger.info("Session {} ended ({})", sessionId, reason);
+        for (EvictionListener listener : listeners) {
+            try {
+                listener.onEviction(session, reason);
+            } catch (RuntimeException e) {
+                logger.warn("Eviction listener failed for session {}: {}", sessionId, e.getMessage());
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,179 @@
+package com.santec.polenta.service;
+
+import com.santec.polenta.config.SlowQueryConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the tool calls slower than {@code mcp.slow-queries.threshold-ms}: the most recent ones in a
+ * ring buffer and the slowest ones since startup, served by the {@code slowqueries} actuator endpoint.
+ *
+ * <p>Both are fixed arrays updated with atomic operations only, so recording from the tool workers
+ * never blocks: a slot of the ring buffer is claimed with an increment, and an entry enters the
+ * slowest set by compare-and-set over the fastest one it beats. Statements are kept as their
+ * {@link SqlFingerprint}, and sessions as a short hash of their id, enough to group the calls of a
+ * session without exposing ids that still authenticate requests. Logged calls are counted in
+ * {@code mcp.slow_queries}.
+ */
+@Component
+public class SlowQueryLog {
+
+    /**
+     * A logged tool call.
+     *
+     * @param sessionHash hash of the session id, see {@link #sessionHash(String)}
+     * @param bytes       bytes processed by Presto, 0 when the driver does not report them
+     */
+    public record Entry(long timestamp, String tool, String sessionHash, String outcome, long durationNanos,
+                        Map<String, Long> stages, List<String> statements, long rows, long bytes,
+                        List<String> prestoQueryIds) {
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> stagesMs = new LinkedHashMap<>();
+            stages.forEach((stage, nanos) -> stagesMs.put(stage, millis(nanos)));
+            Map<String, Object> map = new HashMap<>();
+            map.put("timestamp", timestamp);
+            map.put("tool", tool);
+            map.put("session_hash", sessionHash);
+            map.put("outcome", outcome);
+            map.put("duration_ms", millis(durationNanos));
+            map.put("stages", stagesMs);
+            map.put("statements", statements);
+            map.put("rows", rows);
+            map.put("bytes", bytes);
+            map.put("presto_query_ids", prestoQueryIds);
+            return map;
+        }
+
+        private static double millis(long nanos) {
+            return Math.round(nanos / 1_000.0) / 1_000.0;
+        }
+    }
+
+    private static final Comparator<Entry> SLOWEST_FIRST =
+            Comparator.comparingLong(Entry::durationNanos).reversed();
+
+    private final SlowQueryConfig config;
+    private final Counter logged;
+    private final AtomicReferenceArray<Entry> recent;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicReferenceArray<Entry> slowest;
+
+    public SlowQueryLog(SlowQueryConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.logged = Counter.builder("mcp.slow_queries")
+                .description("Tool calls slower than the slow query threshold")
+                .register(meterRegistry);
+        this.recent = new AtomicReferenceArray<>(Math.max(config.getRecentCapacity(), 1));
+        this.slowest = new AtomicReferenceArray<>(Math.max(config.getSlowestCapacity(), 1));
+    }
+
+    /**
+     * Logs the call if it took at least the threshold.
+     */
+    public void record(String tool, String sessionId, String outcome, RequestTimings timings) {
+        long durationNanos = timings.getElapsedNanos();
+        if (!config.isEnabled() || durationNanos < TimeUnit.MILLISECONDS.toNanos(config.getThresholdMs())) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), tool, sessionHash(sessionId), outcome, durationNanos,
+                timings.getStages(),
+                timings.getStatements().stream().map(SqlFingerprint::of).toList(),
+                timings.getRows(), timings.getProcessedBytes(), timings.getPrestoQueryIds());
+        add(entry);
+    }
+
+    /**
+     * The first 12 hex digits of the MD5 of the session id, or {@code null} without a session.
+     */
+    static String sessionHash(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        return DigestUtils.md5DigestAsHex(sessionId.getBytes(StandardCharsets.UTF_8)).substring(0, 12);
+    }
+
+    void add(Entry entry) {
+        logged.increment();
+        recent.set((int) (next.getAndIncrement() % recent.length()), entry);
+        offerSlowest(entry);
+    }
+
+    private void offerSlowest(Entry entry) {
+        while (true) {
+            int fastestSlot = -1;
+            Entry fastest = null;
+            for (int i = 0; i < slowest.length(); i++) {
+                Entry current = slowest.get(i);
+                if (current == null) {
+                    fastestSlot = i;
+                    fastest = null;
+                    break;
+                }
+                if (fastest == null || current.durationNanos() < fastest.durationNanos()) {
+                    fastestSlot = i;
+                    fastest = current;
+                }
+            }
+            if (fastest != null && entry.durationNanos() <= fastest.durationNanos()) {
+                return;
+            }
+            if (slowest.compareAndSet(fastestSlot, fastest, entry)) {
+                return;
+            }
+            // Another call took the slot in the meantime: look again.
+        }
+    }
+
+    /**
+     * The slow calls kept in the ring buffer, most recent first.
+     */
+    public List<Entry> getRecent() {
+        List<Entry> entries = new ArrayList<>();
+        long end = next.get();
+        for (long i = end - 1; i >= 0 && i >= end - recent.length(); i--) {
+            Entry entry = recent.get((int) (i % recent.length()));
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * The slowest calls kept, slowest first.
+     */
+    public List<Entry> getSlowest() {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < slowest.length(); i++) {
+            Entry entry = slowest.get(i);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        entries.sort(SLOWEST_FIRST);
+        return entries;
+    }
+
+    public void clear() {
+        for (int i = 0; i < recent.length(); i++) {
+            recent.set(i, null);
+        }
+        for (int i = 0; i < slowest.length(); i++) {
+            slowest.set(i, null);
+        }
+    }
+}
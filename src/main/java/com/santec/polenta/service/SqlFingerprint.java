@@ -0,0 +1,36 @@
+package com.santec.polenta.service;
+
+import java.util.regex.Pattern;
+
+/**
+ * Reduces a SQL statement to its shape, so that statements differing only in their literal values
+ * are grouped together and the values themselves (customer names, ids...) are not kept.
+ *
+ * <p>String and numeric literals become {@code ?}, lists of them in {@code IN (...)} collapse to one
+ * {@code ?} and whitespace is normalized: {@code SELECT * FROM t WHERE id IN (1, 2) AND name = 'x'}
+ * gives {@code SELECT * FROM t WHERE id IN (?) AND name = ?}.
+ *
+ * <p>Repetitions are possessive and the literal pattern is unrolled (no alternation under a quantifier), so
+ * matching runs in a loop rather than recursing per character: long literals and {@code IN} lists cannot
+ * overflow the stack.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern STRING = Pattern.compile("'[^']*+(?:''[^']*+)*+'");
+    private static final Pattern NUMBER = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?(?![\\w.])");
+    private static final Pattern LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String fingerprint = STRING.matcher(sql).replaceAll("?");
+        fingerprint = NUMBER.matcher(fingerprint).replaceAll("?");
+        fingerprint = LIST.matcher(fingerprint).replaceAll("(?)");
+        return WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+    }
+}
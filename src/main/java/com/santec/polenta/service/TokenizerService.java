@@ -7,25 +7,71 @@ import org.springframework.stereotype.Service;
 import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class TokenizerService {
-    private TokenizerME tokenizer;
+
+    /** Inputs longer than this always go through the statistical model */
+    static final int FAST_PATH_MAX_LENGTH = 256;
+
+    private static final String[] EMPTY = new String[0];
+
+    private volatile TokenizerModel model;
+
+    // TokenizerME keeps per-call state and is not thread-safe, while the model is immutable:
+    // every request thread gets its own tokenizer backed by the single shared model.
+    private final ThreadLocal<TokenizerME> tokenizers = ThreadLocal.withInitial(() -> new TokenizerME(model));
 
     @PostConstruct
     public void init() {
         try (InputStream modelIn = getClass().getResourceAsStream("/en-token.bin")) {
-            TokenizerModel model = new TokenizerModel(modelIn);
-            tokenizer = new TokenizerME(model);
+            model = new TokenizerModel(modelIn);
         } catch (IOException e) {
             throw new RuntimeException("Could not load the tokenization model", e);
         }
     }
 
     public String[] tokenize(String text) {
-        if (tokenizer == null) {
+        if (model == null) {
             throw new IllegalStateException("The tokenization model is not initialized");
         }
-        return tokenizer.tokenize(text);
+        String[] tokens = tokenizeSimple(text);
+        return tokens != null ? tokens : tokenizers.get().tokenize(text);
+    }
+
+    /**
+     * Fast path for short queries made only of ASCII letters, digits, underscores and blanks:
+     * the model never splits such words, so splitting on blanks gives the same tokens.
+     *
+     * @return the tokens, or {@code null} if the text needs the statistical model
+     */
+    private String[] tokenizeSimple(String text) {
+        int length = text.length();
+        if (length > FAST_PATH_MAX_LENGTH) {
+            return null;
+        }
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == ' ' || c == '\t') {
+                if (start >= 0) {
+                    tokens.add(text.substring(start, i));
+                    start = -1;
+                }
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_') {
+                if (start < 0) {
+                    start = i;
+                }
+            } else {
+                return null;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(text.substring(start));
+        }
+        return tokens.toArray(EMPTY);
     }
 }
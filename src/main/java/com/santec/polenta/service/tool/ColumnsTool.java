@@ -0,0 +1,80 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.MetadataCacheTool;
+import com.santec.polenta.service.RowSink;
+import org.springframework.core.annotation.Order;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists the column names of a table, from the metadata cache.
+ */
+@McpToolHandler(name = "columns")
+@Order(9)
+public class ColumnsTool implements ToolHandler {
+
+    private static final McpTool DEFINITION = new McpTool(
+        "columns",
+        "Returns the list of columns in a specific table.",
+        Map.of(
+            "type", "object",
+            "properties", Map.of(
+                "schema", Map.of(
+                    "type", "string",
+                    "description", "Name of the schema. Example: 'default', 'finance', 'tiny'"
+                ),
+                "table", Map.of(
+                    "type", "string",
+                    "description", "Name of the table. Example: 'customers', 'nation'"
+                )
+            ),
+            "required", List.of("schema", "table"),
+            "examples", List.of(Map.of("schema", "default", "table", "customers")),
+            "description_long", "The 'schema' and 'table' parameters are mandatory. Returns all columns in the specified table."
+        ),
+        Map.of(
+            "result_type", "columns_list",
+            "fields", List.of("schema", "table", "columns"),
+            "examples", List.of(
+                Map.of("schema", "default", "table", "customers", "columns", List.of("customer_id", "name", "signup_date")),
+                Map.of("schema", "tiny", "table", "nation", "columns", List.of("nationkey", "name", "regionkey"))
+            ),
+            "usage_examples", List.of(
+                "List columns of customers in default",
+                "What columns does the nation table have in tiny?",
+                "Show columns of sales in finance"
+            ),
+            "tags", List.of("metadata", "columns", "exploration", "tables"),
+            "version", "1.0",
+            "author", "Data Lake Team",
+            "last_updated", "2025-08-11",
+            "description_long", "Returns all columns in the specified table."
+        )
+    );
+
+    private final MetadataCacheTool metadataCacheTool;
+
+    public ColumnsTool(MetadataCacheTool metadataCacheTool) {
+        this.metadataCacheTool = metadataCacheTool;
+    }
+
+    @Override
+    public McpTool definition() {
+        return DEFINITION;
+    }
+
+    @Override
+    public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+        String schema = (String) arguments.get("schema");
+        String table = (String) arguments.get("table");
+        Map<String, Object> result = new HashMap<>();
+        result.put("schema", schema);
+        result.put("table", table);
+        result.put("columns", metadataCacheTool.columns(schema, table));
+        result.put("message", "Columns of table " + schema + "." + table);
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.QueryIntelligenceService;
+import com.santec.polenta.service.RowSink;
+import org.springframework.core.annotation.Order;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes the columns of a table.
+ */
+@McpToolHandler(name = "describe_table")
+@Order(3)
+public class DescribeTableTool implements ToolHandler {
+
+    private static final McpTool DEFINITION = new McpTool(
+        "describe_table",
+        "Returns the structure of a specific table. Example: 'Describe the customers table' or 'What columns does sales have?'",
+        Map.of(
+            "type", "object",
+            "properties", Map.of(
+                "table_name", Map.of(
+                    "type", "string",
+                    "description", "Name of the table to describe (format: schema.table or just table). Example: 'customers', 'default.sales'.",
+                    "examples", List.of("customers", "default.sales", "sales", "finance.payments")
+                )
+            ),
+            "required", List.of("table_name"),
+            "examples", List.of(
+                Map.of("table_name", "customers"),
+                Map.of("table_name", "default.sales"),
+                Map.of("table_name", "finance.payments")
+            ),
+            "description_long", "The 'table_name' parameter must be the exact name of the table, with or without schema."
+        ),
+        Map.of(
+            "result_type", "table_description",
+            "fields", List.of("schema", "table", "columns"),
+            "examples", List.of(
+                Map.of(
+                    "schema", "default",
+                    "table", "customers",
+                    "columns", List.of(Map.of("name", "customer_id", "type", "int"), Map.of("name", "name", "type", "string"))
+                ),
+                Map.of(
+                    "schema", "finance",
+                    "table", "payments",
+                    "columns", List.of(Map.of("name", "payment_id", "type", "int"), Map.of("name", "amount", "type", "decimal"), Map.of("name", "date", "type", "date"))
+                )
+            ),
+            "usage_examples", List.of(
+                "Describe the customers table",
+                "What columns does sales have?",
+                "Structure of default.sales",
+                "What is the table finance.payments like?"
+            ),
+            "tags", List.of("metadata", "tables", "structure", "describe", "columns"),
+            "version", "1.2",
+            "author", "Data Lake Team",
+            "last_updated", "2025-08-11",
+            "description_long", "Returns the column names and types of a table, useful for exploration and data validation. Includes name, type, and order of the columns."
+        )
+    );
+
+    private final QueryIntelligenceService queryIntelligenceService;
+
+    public DescribeTableTool(QueryIntelligenceService queryIntelligenceService) {
+        this.queryIntelligenceService = queryIntelligenceService;
+    }
+
+    @Override
+    public McpTool definition() {
+        return DEFINITION;
+    }
+
+    @Override
+    public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+        return queryIntelligenceService.processNaturalQuery("describe table " + arguments.get("table_name"));
+    }
+}
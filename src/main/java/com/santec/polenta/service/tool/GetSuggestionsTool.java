@@ -0,0 +1,77 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.QueryIntelligenceService;
+import com.santec.polenta.service.RowSink;
+import org.springframework.core.annotation.Order;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Returns example queries for users exploring the data lake.
+ */
+@McpToolHandler(name = "get_suggestions")
+@Order(6)
+public class GetSuggestionsTool implements ToolHandler {
+
+    private static final McpTool DEFINITION = new McpTool(
+        "get_suggestions",
+        "Gets useful query suggestions for the user.",
+        Map.of(
+            "type", "object",
+            "properties", Map.of(),
+            "required", List.of(),
+            "examples", List.of(Map.of()),
+            "description_long", "Does not require parameters. Returns a list of useful query suggestions for new users or those seeking inspiration."
+        ),
+        Map.of(
+            "result_type", "suggestions",
+            "fields", List.of("suggestions", "message"),
+            "examples", List.of(
+                Map.of(
+                    "suggestions", List.of(
+                        "Show all tables",
+                        "Describe table customers",
+                        "SELECT * FROM sales LIMIT 10",
+                        "How many new customers were there in July?",
+                        "Show me the average sales per customer in 2024"
+                    ),
+                    "message", "Query suggestions"
+                )
+            ),
+            "usage_examples", List.of(
+                "What can I query?",
+                "Suggestions to get started",
+                "Query help",
+                "How do I explore the data?"
+            ),
+            "tags", List.of("suggestions", "query", "help", "tips", "inspiration"),
+            "version", "1.2",
+            "author", "Data Lake Team",
+            "last_updated", "2025-08-11",
+            "description_long", "Returns a list of useful query suggestions for new users or those seeking inspiration. Includes examples of questions and SQL statements."
+        )
+    );
+
+    private final QueryIntelligenceService queryIntelligenceService;
+
+    public GetSuggestionsTool(QueryIntelligenceService queryIntelligenceService) {
+        this.queryIntelligenceService = queryIntelligenceService;
+    }
+
+    @Override
+    public McpTool definition() {
+        return DEFINITION;
+    }
+
+    @Override
+    public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("type", "suggestions");
+        result.put("suggestions", queryIntelligenceService.getQuerySuggestions());
+        result.put("message", "Helpful query suggestions");
+        return result;
+    }
+}
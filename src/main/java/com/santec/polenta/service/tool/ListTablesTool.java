@@ -0,0 +1,66 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.QueryIntelligenceService;
+import com.santec.polenta.service.RowSink;
+import org.springframework.core.annotation.Order;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists the tables of the data lake, grouped by schema.
+ */
+@McpToolHandler(name = "list_tables")
+@Order(2)
+public class ListTablesTool implements ToolHandler {
+
+    private static final McpTool DEFINITION = new McpTool(
+        "list_tables",
+        "Lists all tables available in the data lake.",
+        Map.of(
+            "type", "object",
+            "properties", Map.of(),
+            "required", List.of(),
+            "examples", List.of(Map.of()),
+            "description_long", "Does not require parameters. Returns a list grouped by schema of all tables accessible in the data lake."
+        ),
+        Map.of(
+            "result_type", "table_list",
+            "fields", List.of("schemas"),
+            "examples", List.of(
+                Map.of(
+                    "schemas", Map.of("default", List.of("customers", "sales"), "finance", List.of("payments", "invoices"))),
+                Map.of(
+                    "schemas", Map.of("default", List.of("products", "suppliers")))
+            ),
+            "usage_examples", List.of(
+                "What tables are there?",
+                "List all tables",
+                "Show available tables",
+                "What are the tables in the finance schema?"
+            ),
+            "tags", List.of("metadata", "tables", "listing", "exploration", "schemas"),
+            "version", "1.2",
+            "author", "Data Lake Team",
+            "last_updated", "2025-08-11",
+            "description_long", "Returns a list grouped by schema of all tables accessible in the data lake. Useful for exploration and data discovery."
+        )
+    );
+
+    private final QueryIntelligenceService queryIntelligenceService;
+
+    public ListTablesTool(QueryIntelligenceService queryIntelligenceService) {
+        this.queryIntelligenceService = queryIntelligenceService;
+    }
+
+    @Override
+    public McpTool definition() {
+        return DEFINITION;
+    }
+
+    @Override
+    public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+        return queryIntelligenceService.processNaturalQuery("show tables");
+    }
+}
@@ -0,0 +1,33 @@
+package com.santec.polenta.service.tool;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link ToolHandler} as an MCP tool. Annotated handlers are picked up by component scanning,
+ * registered in the {@link com.santec.polenta.service.ToolRegistry} under {@link #name()} and run on
+ * their own bounded executor, sized by {@link #maxConcurrency()} and {@link #queueCapacity()} unless
+ * overridden under {@code mcp.tools.bulkheads.<name>}.
+ *
+ * <p>The order of the tools in {@code tools/list} follows the handlers' {@code @Order}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Component
+public @interface McpToolHandler {
+
+    /** Tool name, as returned by {@link ToolHandler#definition()} */
+    String name();
+
+    /** Calls of this tool executed at the same time */
+    int maxConcurrency() default 4;
+
+    /** Calls waiting for a free worker; further calls are rejected until the queue drains */
+    int queueCapacity() default 16;
+}
@@ -0,0 +1,83 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.MetadataCacheTool;
+import com.santec.polenta.service.RowSink;
+import org.springframework.core.annotation.Order;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Navigates the metadata: schemas, the tables of a schema, or the structure of a table, depending on
+ * the arguments given.
+ */
+@McpToolHandler(name = "metadata")
+@Order(10)
+public class MetadataTool implements ToolHandler {
+
+    private static final McpTool DEFINITION = new McpTool(
+        "metadata",
+        "Navigates the data lake metadata: lists schemas, the tables of a schema, or the columns of a table.",
+        Map.of(
+            "type", "object",
+            "properties", Map.of(
+                "schema", Map.of(
+                    "type", "string",
+                    "description", "Optional schema. Without it the available schemas are returned. Example: 'default', 'finance'."
+                ),
+                "table", Map.of(
+                    "type", "string",
+                    "description", "Optional table of the schema. With it the structure of the table is returned. Example: 'customers'."
+                )
+            ),
+            "required", List.of(),
+            "examples", List.of(
+                Map.of(),
+                Map.of("schema", "default"),
+                Map.of("schema", "default", "table", "customers")
+            ),
+            "description_long", "No parameters returns the schemas; 'schema' returns its tables; 'schema' and 'table' return the columns of the table with their types."
+        ),
+        Map.of(
+            "result_type", "metadata",
+            "fields", List.of("schemas", "schema", "tables", "table", "columns", "message"),
+            "examples", List.of(
+                Map.of("schemas", List.of("default", "finance"), "message", "List of available schemas"),
+                Map.of("schema", "default", "tables", List.of("customers", "sales"), "message", "List of tables in schema default"),
+                Map.of(
+                    "schema", "default",
+                    "table", "customers",
+                    "columns", List.of(Map.of("name", "customer_id", "type", "integer"), Map.of("name", "name", "type", "varchar")),
+                    "message", "Structure of table default.customers"
+                )
+            ),
+            "usage_examples", List.of(
+                "What schemas are there?",
+                "What tables are in default?",
+                "What is the structure of default.customers?"
+            ),
+            "tags", List.of("metadata", "schemas", "tables", "columns", "exploration"),
+            "version", "1.0",
+            "author", "Data Lake Team",
+            "last_updated", "2025-08-11",
+            "description_long", "Single entry point to explore the data lake catalog, from schemas down to the columns of a table."
+        )
+    );
+
+    private final MetadataCacheTool metadataCacheTool;
+
+    public MetadataTool(MetadataCacheTool metadataCacheTool) {
+        this.metadataCacheTool = metadataCacheTool;
+    }
+
+    @Override
+    public McpTool definition() {
+        return DEFINITION;
+    }
+
+    @Override
+    public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+        return metadataCacheTool.metadata((String) arguments.get("schema"), (String) arguments.get("table"));
+    }
+}
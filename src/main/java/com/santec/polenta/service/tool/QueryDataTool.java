@@ -0,0 +1,144 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.config.ToolsConfig;
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.EncodedResultSink;
+import com.santec.polenta.service.QueryIntelligenceService;
+import com.santec.polenta.service.ResultFormat;
+import com.santec.polenta.service.RowSink;
+import org.springframework.core.annotation.Order;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs a natural language or SQL query. Rows are streamed to the sink, or encoded in the requested
+ * {@link ResultFormat} and returned base64-encoded: written into the response as they are produced
+ * when the transport writes it directly, and otherwise kept in memory up to
+ * {@code mcp.tools.max-payload-bytes}.
+ */
+@McpToolHandler(name = "query_data", maxConcurrency = 8, queueCapacity = 32)
+@Order(1)
+public class QueryDataTool implements ToolHandler {
+
+    private static final McpTool DEFINITION = new McpTool(
+        "query_data",
+        "Executes a natural language or SQL query on the data lake. Example: 'Show me sales from last month' or 'SELECT * FROM sales LIMIT 10'",
+        Map.of(
+            "type", "object",
+            "properties", Map.of(
+                "query", Map.of(
+                    "type", "string",
+                    "description", "Natural language or SQL query. Can be a question in English or a full SQL statement. Examples: 'How many new customers were there in July?', 'SELECT * FROM customers WHERE signup_date >= \"2023-07-01\"'.",
+                    "examples", List.of(
+                        "How many new customers were there in July?",
+                        "SELECT * FROM customers WHERE signup_date >= '2023-07-01'",
+                        "Show me sales from last month",
+                        "What was the total sales in August?",
+                        "Show me the average sales per customer in 2024",
+                        "SELECT COUNT(*) FROM sales WHERE amount > 10000"
+                    ),
+                    "format", "string or SQL"
+                ),
+                "format", Map.of(
+                    "type", "string",
+                    "enum", List.of("json", "ndjson", "cbor", "smile", "arrow"),
+                    "default", "json",
+                    "description", "Encoding of the result rows. 'json' returns them in 'data'; 'ndjson', 'cbor', 'smile' and 'arrow' (Arrow IPC stream) return them base64-encoded in 'payload', with 'mime_type' and 'payload_bytes'."
+                )
+            ),
+            "required", List.of("query"),
+            "examples", List.of(
+                Map.of("query", "How many new customers were there in July?"),
+                Map.of("query", "SELECT * FROM customers WHERE signup_date >= '2023-07-01'"),
+                Map.of("query", "Show me the average sales per customer in 2024")
+            ),
+            "description_long", "The 'query' parameter accepts both natural language and SQL. The system will try to infer the meaning and return the most relevant data."
+        ),
+        Map.of(
+            "result_type", "query_result",
+            "fields", List.of("status", "execution_id", "timestamp", "user_message", "data"),
+            "examples", List.of(
+                Map.of(
+                    "status", "success",
+                    "data", List.of(Map.of("customer_id", 1, "name", "John")),
+                    "user_message", "Query executed successfully",
+                    "execution_id", "abc-123",
+                    "timestamp", 1723372800000L
+                ),
+                Map.of(
+                    "status", "success",
+                    "data", List.of(Map.of("sale_id", 101, "amount", 5000)),
+                    "user_message", "Sales from last month: 5000",
+                    "execution_id", "def-456",
+                    "timestamp", 1723372800000L
+                ),
+                Map.of(
+                    "status", "error",
+                    "user_message", "Syntax error in the query",
+                    "execution_id", "err-789",
+                    "timestamp", 1723372800000L
+                )
+            ),
+            "usage_examples", List.of(
+                "Show me sales from last month",
+                "How many new customers were there in July?",
+                "SELECT * FROM sales LIMIT 10",
+                "What was the total sales in August?",
+                "Show me the average sales per customer in 2024",
+                "SELECT COUNT(*) FROM sales WHERE amount > 10000"
+            ),
+            "tags", List.of("query", "sql", "data", "sales", "customers", "aggregates", "statistics"),
+            "version", "1.3",
+            "author", "Data Lake Team",
+            "last_updated", "2025-08-11",
+            "description_long", "Allows complex queries in natural language or SQL on the data lake, returning tabular or aggregated results as appropriate. Supports filters, groupings, and aggregation functions. Advanced usage example: 'Show me the top 5 best-selling products in 2024 grouped by month'."
+        )
+    );
+
+    private final QueryIntelligenceService queryIntelligenceService;
+    private final ToolsConfig toolsConfig;
+
+    public QueryDataTool(QueryIntelligenceService queryIntelligenceService, ToolsConfig toolsConfig) {
+        this.queryIntelligenceService = queryIntelligenceService;
+        this.toolsConfig = toolsConfig;
+    }
+
+    @Override
+    public McpTool definition() {
+        return DEFINITION;
+    }
+
+    @Override
+    public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+        String query = (String) arguments.get("query");
+        ResultFormat format = ResultFormat.fromArgument((String) arguments.get("format"));
+        return format == ResultFormat.JSON
+                ? queryIntelligenceService.processNaturalQuery(query, sink)
+                : queryEncoded(query, format, sink);
+    }
+
+    /**
+     * Runs the query encoding its rows in the requested format. The payload replaces the "data"
+     * field, base64-encoded, unless it was already written by the sink; intents that return no rows
+     * (metadata, errors) are returned unchanged.
+     */
+    private Map<String, Object> queryEncoded(String query, ResultFormat format, RowSink sink) {
+        try (EncodedResultSink encoder = EncodedResultSink.forFormat(format, sink, toolsConfig.getMaxPayloadBytes())) {
+            Map<String, Object> result = queryIntelligenceService.processNaturalQuery(query, encoder);
+            if (encoder.isStarted() && !"error".equals(result.get("type"))) {
+                result.put("format", format.name().toLowerCase(Locale.ROOT));
+                result.put("mime_type", format.getMimeType());
+                result.put("encoding", "base64");
+                result.put("payload_bytes", encoder.getPayloadBytes());
+                if (!encoder.isStreamed()) {
+                    result.remove("streamed");
+                    result.put("payload", Base64.getEncoder().encodeToString(encoder.toByteArray()));
+                }
+            }
+            return result;
+        }
+    }
+}
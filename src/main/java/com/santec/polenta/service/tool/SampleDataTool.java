@@ -0,0 +1,84 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.QueryIntelligenceService;
+import com.santec.polenta.service.RowSink;
+import org.springframework.core.annotation.Order;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Returns the first rows of a table, streamed to the sink when there is one.
+ */
+@McpToolHandler(name = "sample_data")
+@Order(4)
+public class SampleDataTool implements ToolHandler {
+
+    private static final McpTool DEFINITION = new McpTool(
+        "sample_data",
+        "Returns sample data from a specific table. Example: 'Give me 10 rows from customers'",
+        Map.of(
+            "type", "object",
+            "properties", Map.of(
+                "table_name", Map.of(
+                    "type", "string",
+                    "description", "Name of the table to get sample data from. Example: 'customers', 'default.sales'.",
+                    "examples", List.of("customers", "default.sales", "sales", "finance.payments")
+                )
+            ),
+            "required", List.of("table_name"),
+            "examples", List.of(
+                Map.of("table_name", "customers"),
+                Map.of("table_name", "default.sales"),
+                Map.of("table_name", "finance.payments")
+            ),
+            "description_long", "The 'table_name' parameter must be the exact name of the table."
+        ),
+        Map.of(
+            "result_type", "sample_data",
+            "fields", List.of("table_name", "rows"),
+            "examples", List.of(
+                Map.of(
+                    "table_name", "customers",
+                    "rows", List.of(Map.of("customer_id", 1, "name", "John"), Map.of("customer_id", 2, "name", "Ana"))
+                ),
+                Map.of(
+                    "table_name", "sales",
+                    "rows", List.of(Map.of("sale_id", 101, "amount", 5000), Map.of("sale_id", 102, "amount", 7000))
+                ),
+                Map.of(
+                    "table_name", "finance.payments",
+                    "rows", List.of(Map.of("payment_id", 1, "amount", 1000, "date", "2024-01-10"), Map.of("payment_id", 2, "amount", 2000, "date", "2024-01-11"))
+                )
+            ),
+            "usage_examples", List.of(
+                "Give me 10 rows from customers",
+                "Show sample data from sales",
+                "Sample of default.sales",
+                "Give me 5 rows from finance.payments"
+            ),
+            "tags", List.of("data", "sample", "tables", "preview"),
+            "version", "1.2",
+            "author", "Data Lake Team",
+            "last_updated", "2025-08-11",
+            "description_long", "Returns a subset of rows from a table to facilitate exploration and data validation. Allows viewing the structure and some real values."
+        )
+    );
+
+    private final QueryIntelligenceService queryIntelligenceService;
+
+    public SampleDataTool(QueryIntelligenceService queryIntelligenceService) {
+        this.queryIntelligenceService = queryIntelligenceService;
+    }
+
+    @Override
+    public McpTool definition() {
+        return DEFINITION;
+    }
+
+    @Override
+    public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+        return queryIntelligenceService.processNaturalQuery("show sample data from " + arguments.get("table_name"), sink);
+    }
+}
@@ -0,0 +1,67 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.MetadataCacheTool;
+import com.santec.polenta.service.RowSink;
+import org.springframework.core.annotation.Order;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists the schemas of the data lake, from the metadata cache.
+ */
+@McpToolHandler(name = "schemas")
+@Order(7)
+public class SchemasTool implements ToolHandler {
+
+    private static final McpTool DEFINITION = new McpTool(
+        "schemas",
+        "Returns the list of available schemas in the data lake.",
+        Map.of(
+            "type", "object",
+            "properties", Map.of(),
+            "required", List.of(),
+            "examples", List.of(Map.of()),
+            "description_long", "Does not require parameters. Returns a list of all available schemas."
+        ),
+        Map.of(
+            "result_type", "schemas_list",
+            "fields", List.of("schemas"),
+            "examples", List.of(
+                Map.of("schemas", List.of("default", "finance", "sales")),
+                Map.of("schemas", List.of("tiny", "tpch"))
+            ),
+            "usage_examples", List.of(
+                "List schemas",
+                "What schemas are there?",
+                "Show all schemas"
+            ),
+            "tags", List.of("metadata", "schemas", "exploration"),
+            "version", "1.0",
+            "author", "Data Lake Team",
+            "last_updated", "2025-08-11",
+            "description_long", "Returns a list of all available schemas in the data lake."
+        )
+    );
+
+    private final MetadataCacheTool metadataCacheTool;
+
+    public SchemasTool(MetadataCacheTool metadataCacheTool) {
+        this.metadataCacheTool = metadataCacheTool;
+    }
+
+    @Override
+    public McpTool definition() {
+        return DEFINITION;
+    }
+
+    @Override
+    public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("schemas", metadataCacheTool.schemas());
+        result.put("message", "List of available schemas");
+        return result;
+    }
+}
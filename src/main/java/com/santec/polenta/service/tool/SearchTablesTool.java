@@ -0,0 +1,79 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.QueryIntelligenceService;
+import com.santec.polenta.service.RowSink;
+import org.springframework.core.annotation.Order;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Searches the tables whose name contains a keyword.
+ */
+@McpToolHandler(name = "search_tables")
+@Order(5)
+public class SearchTablesTool implements ToolHandler {
+
+    private static final McpTool DEFINITION = new McpTool(
+        "search_tables",
+        "Searches for tables that contain a keyword. Example: 'Search tables with sales'",
+        Map.of(
+            "type", "object",
+            "properties", Map.of(
+                "keyword", Map.of(
+                    "type", "string",
+                    "description", "Keyword to search in the table names. Example: 'sales', 'customers', 'product'.",
+                    "examples", List.of("sales", "customers", "product", "finance")
+                )
+            ),
+            "required", List.of("keyword"),
+            "examples", List.of(
+                Map.of("keyword", "sales"),
+                Map.of("keyword", "finance")
+            ),
+            "description_long", "The 'keyword' parameter must be a relevant word or fragment to search in the table names."
+        ),
+        Map.of(
+            "result_type", "table_search",
+            "fields", List.of("keyword", "matching_tables"),
+            "examples", List.of(
+                Map.of(
+                    "keyword", "sales",
+                    "matching_tables", List.of("default.sales", "default.sales_2023", "finance.sales")
+                ),
+                Map.of(
+                    "keyword", "customers",
+                    "matching_tables", List.of("default.customers", "historical.customers")
+                )
+            ),
+            "usage_examples", List.of(
+                "Search tables with sales",
+                "Show tables that contain customers",
+                "Tables with product",
+                "Search tables in finance"
+            ),
+            "tags", List.of("search", "tables", "metadata", "discovery"),
+            "version", "1.2",
+            "author", "Data Lake Team",
+            "last_updated", "2025-08-11",
+            "description_long", "Allows searching tables by keyword in their name, useful for large data catalogs. Returns exact and partial matches."
+        )
+    );
+
+    private final QueryIntelligenceService queryIntelligenceService;
+
+    public SearchTablesTool(QueryIntelligenceService queryIntelligenceService) {
+        this.queryIntelligenceService = queryIntelligenceService;
+    }
+
+    @Override
+    public McpTool definition() {
+        return DEFINITION;
+    }
+
+    @Override
+    public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+        return queryIntelligenceService.processNaturalQuery("search for " + arguments.get("keyword"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.MetadataCacheTool;
+import com.santec.polenta.service.RowSink;
+import org.springframework.core.annotation.Order;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists the tables of a schema, from the metadata cache.
+ */
+@McpToolHandler(name = "tables")
+@Order(8)
+public class TablesTool implements ToolHandler {
+
+    private static final McpTool DEFINITION = new McpTool(
+        "tables",
+        "Returns the list of tables in a specific schema.",
+        Map.of(
+            "type", "object",
+            "properties", Map.of(
+                "schema", Map.of(
+                    "type", "string",
+                    "description", "Name of the schema. Example: 'default', 'finance', 'tiny'"
+                )
+            ),
+            "required", List.of("schema"),
+            "examples", List.of(Map.of("schema", "default")),
+            "description_long", "The 'schema' parameter is mandatory. Returns all tables in the specified schema."
+        ),
+        Map.of(
+            "result_type", "tables_list",
+            "fields", List.of("schema", "tables"),
+            "examples", List.of(
+                Map.of("schema", "default", "tables", List.of("customers", "sales")),
+                Map.of("schema", "tiny", "tables", List.of("nation", "region"))
+            ),
+            "usage_examples", List.of(
+                "List tables in the default schema",
+                "What tables are in finance?",
+                "Show tables in tiny"
+            ),
+            "tags", List.of("metadata", "tables", "exploration", "schemas"),
+            "version", "1.0",
+            "author", "Data Lake Team",
+            "last_updated", "2025-08-11",
+            "description_long", "Returns all tables in the specified schema."
+        )
+    );
+
+    private final MetadataCacheTool metadataCacheTool;
+
+    public TablesTool(MetadataCacheTool metadataCacheTool) {
+        this.metadataCacheTool = metadataCacheTool;
+    }
+
+    @Override
+    public McpTool definition() {
+        return DEFINITION;
+    }
+
+    @Override
+    public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+        String schema = (String) arguments.get("schema");
+        Map<String, Object> result = new HashMap<>();
+        result.put("schema", schema);
+        result.put("tables", metadataCacheTool.tables(schema));
+        result.put("message", "List of tables in schema " + schema);
+        return result;
+    }
+}
@@ -0,0 +1,11 @@
+package com.santec.polenta.service.tool;
+
+/**
+ * A tool call rejected because all the workers of the tool are busy and its queue is full.
+ */
+public class ToolBusyException extends IllegalStateException {
+
+    public ToolBusyException(String toolName) {
+        super("Tool " + toolName + " is busy, try again later");
+    }
+}
@@ -0,0 +1,196 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.config.ToolsConfig;
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.McpTracing;
+import com.santec.polenta.service.RequestTimings;
+import com.santec.polenta.service.RowSink;
+import com.santec.polenta.service.ToolRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tool calls on a bounded executor per tool (a bulkhead), so that a slow tool saturating its
+ * workers does not hold up the others: cheap metadata lookups keep answering while every
+ * {@code query_data} worker is busy. A call arriving when its tool's workers and queue are full is
+ * rejected with a {@link ToolBusyException} instead of waiting.
+ *
+ * <p>Workers are created on demand and stopped after a minute idle. Per tool, the gauges
+ * {@code mcp.tools.active} and {@code mcp.tools.queued} and the counter {@code mcp.tools.rejected}
+ * are published.
+ *
+ * <p>The caller's {@link RequestTimings} and current span are bound to the worker running the call,
+ * and the time the call waited for a worker is recorded as the {@code tool_queue} stage.
+ *
+ * <p>With {@code mcp.tools.run-on-caller} (the reactive mode, whose callers already run on the
+ * {@code mcp-jdbc} scheduler) there are no tool workers: the call runs on the calling thread once it
+ * gets one of the tool's permits, so each request holds a single blocked thread. The limits, rejections
+ * and metrics are the same, with the calls waiting for a permit counted as queued.
+ */
+@Component
+public class ToolExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolExecutor.class);
+
+    private final ToolRegistry toolRegistry;
+    private final McpTracing tracing;
+    private final boolean runOnCaller;
+    private final Map<String, ThreadPoolExecutor> executors = new HashMap<>();
+    private final Map<String, Semaphore> admissions = new HashMap<>();
+    private final Map<String, Semaphore> permits = new HashMap<>();
+    private final Map<String, Counter> rejections = new HashMap<>();
+
+    public ToolExecutor(ToolRegistry toolRegistry, ToolsConfig toolsConfig, MeterRegistry meterRegistry,
+                        McpTracing tracing) {
+        this.toolRegistry = toolRegistry;
+        this.tracing = tracing;
+        this.runOnCaller = toolsConfig.isRunOnCaller();
+        for (McpTool tool : toolRegistry.getTools()) {
+            String name = tool.getName();
+            McpToolHandler declared = AnnotationUtils.findAnnotation(
+                    toolRegistry.getHandler(name).getClass(), McpToolHandler.class);
+            ToolsConfig.Bulkhead override = toolsConfig.getBulkheads().get(name);
+            int maxConcurrency = override != null && override.getMaxConcurrency() != null
+                    ? override.getMaxConcurrency() : declared.maxConcurrency();
+            int queueCapacity = override != null && override.getQueueCapacity() != null
+                    ? override.getQueueCapacity() : declared.queueCapacity();
+
+            if (runOnCaller) {
+                Semaphore admission = new Semaphore(maxConcurrency + queueCapacity);
+                Semaphore running = new Semaphore(maxConcurrency);
+                admissions.put(name, admission);
+                permits.put(name, running);
+                Gauge.builder("mcp.tools.active", running, s -> maxConcurrency - s.availablePermits())
+                        .tag("tool", name).register(meterRegistry);
+                Gauge.builder("mcp.tools.queued", admission, s -> Math.max(0,
+                                maxConcurrency + queueCapacity - s.availablePermits()
+                                        - (maxConcurrency - running.availablePermits())))
+                        .tag("tool", name).register(meterRegistry);
+            } else {
+                ThreadPoolExecutor executor = newExecutor(name, maxConcurrency, queueCapacity);
+                executors.put(name, executor);
+                Gauge.builder("mcp.tools.active", executor, ThreadPoolExecutor::getActiveCount)
+                        .tag("tool", name).register(meterRegistry);
+                Gauge.builder("mcp.tools.queued", executor, e -> e.getQueue().size())
+                        .tag("tool", name).register(meterRegistry);
+            }
+            rejections.put(name, Counter.builder("mcp.tools.rejected").tag("tool", name).register(meterRegistry));
+            logger.debug("Tool {} runs on {} workers with {} queued calls", name, maxConcurrency, queueCapacity);
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor(String toolName, int maxConcurrency, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS, queue,
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mcp-tool-" + toolName + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs the tool on its executor, or on the calling thread with {@code run-on-caller}, and waits
+     * for the result.
+     *
+     * @throws ToolBusyException if the tool has no free worker nor room in its queue
+     * @throws Exception whatever the tool threw
+     */
+    public Map<String, Object> execute(String toolName, Map<String, Object> arguments, RowSink sink) throws Exception {
+        ToolHandler handler = toolRegistry.getHandler(toolName);
+        if (handler == null || !rejections.containsKey(toolName)) {
+            throw new IllegalArgumentException("Unknown tool: " + toolName);
+        }
+        if (runOnCaller) {
+            return executeOnCaller(toolName, handler, arguments, sink);
+        }
+        ThreadPoolExecutor executor = executors.get(toolName);
+        RequestTimings timings = RequestTimings.current();
+        long submitted = System.nanoTime();
+        Future<Map<String, Object>> future;
+        try {
+            future = executor.submit(tracing.wrap(() -> {
+                RequestTimings previous = RequestTimings.bind(timings);
+                try {
+                    RequestTimings.lap("tool_queue", submitted);
+                    return handler.call(arguments, sink);
+                } finally {
+                    RequestTimings.bind(previous);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            rejections.get(toolName).increment();
+            logger.warn("Rejected call of tool {}: {} active, {} queued",
+                    toolName, executor.getActiveCount(), executor.getQueue().size());
+            throw new ToolBusyException(toolName);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for tool " + toolName, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw (Error) e.getCause();
+        }
+    }
+
+    private Map<String, Object> executeOnCaller(String toolName, ToolHandler handler, Map<String, Object> arguments,
+                                                RowSink sink) throws Exception {
+        Semaphore admission = admissions.get(toolName);
+        Semaphore running = permits.get(toolName);
+        if (!admission.tryAcquire()) {
+            rejections.get(toolName).increment();
+            logger.warn("Rejected call of tool {}: no permit left", toolName);
+            throw new ToolBusyException(toolName);
+        }
+        try {
+            long submitted = System.nanoTime();
+            try {
+                running.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for tool " + toolName, e);
+            }
+            try {
+                RequestTimings.lap("tool_queue", submitted);
+                return handler.call(arguments, sink);
+            } finally {
+                running.release();
+            }
+        } finally {
+            admission.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+}
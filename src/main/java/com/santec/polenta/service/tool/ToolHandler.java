@@ -0,0 +1,24 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.RowSink;
+
+import java.util.Map;
+
+/**
+ * A tool exposed by the MCP server: its definition (name, input schema, output metadata) and the
+ * code that runs a call. Implementations are annotated with {@link McpToolHandler}.
+ *
+ * <p>Arguments reach {@link #call} already validated against the definition's input schema.
+ */
+public interface ToolHandler {
+
+    McpTool definition();
+
+    /**
+     * Runs the tool. Tools returning rows stream them to the sink when one is given; others ignore it.
+     *
+     * @return the result of the call, as a mutable map
+     */
+    Map<String, Object> call(Map<String, Object> arguments, RowSink sink) throws Exception;
+}
@@ -0,0 +1,86 @@
+package com.santec.polenta.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.SchemaValidator;
+import com.santec.polenta.service.ToolRegistry;
+import com.santec.polenta.service.tool.ToolHandlers;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating {@code tools/call} arguments: the validator compiled from the input schema
+ * against walking the schema map on every call, as the dispatcher used to do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArgumentValidationBenchmark {
+
+    private McpTool tool;
+    private SchemaValidator validator;
+    private Map<String, Object> valid;
+    private Map<String, Object> invalid;
+
+    @Setup
+    public void setUp() {
+        ToolRegistry toolRegistry = new ToolRegistry(new ObjectMapper(), ToolHandlers.all());
+        tool = toolRegistry.getTool("query_data");
+        validator = toolRegistry.getValidator("query_data");
+        valid = Map.of("query", "SELECT * FROM sales LIMIT 10", "format", "json");
+        invalid = Map.of("query", "", "format", 42);
+    }
+
+    @Benchmark
+    public void compiled(Blackhole bh) {
+        bh.consume(validator.validate(valid));
+        bh.consume(validator.validate(invalid));
+    }
+
+    @Benchmark
+    public void schemaWalk(Blackhole bh) {
+        bh.consume(walkSchema(tool.getInputSchema(), valid));
+        bh.consume(walkSchema(tool.getInputSchema(), invalid));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> walkSchema(Map<String, Object> inputSchema, Map<String, Object> arguments) {
+        List<String> required = inputSchema != null && inputSchema.get("required") instanceof List ?
+                (List<String>) inputSchema.get("required") : List.of();
+        Map<String, Object> properties = inputSchema != null && inputSchema.get("properties") instanceof Map ?
+                (Map<String, Object>) inputSchema.get("properties") : Map.of();
+        Map<String, Object> validationErrors = new HashMap<>();
+        for (String req : required) {
+            if (!arguments.containsKey(req) || arguments.get(req) == null || arguments.get(req).toString().isEmpty()) {
+                validationErrors.put(req, "Missing required parameter");
+            }
+        }
+        for (String key : arguments.keySet()) {
+            if (properties.containsKey(key)) {
+                Object propSchema = properties.get(key);
+                String type = propSchema instanceof Map ? (String) ((Map<?, ?>) propSchema).get("type") : null;
+                Object value = arguments.get(key);
+                if (type != null && value != null) {
+                    boolean ok = switch (type) {
+                        case "string" -> value instanceof String;
+                        case "number" -> value instanceof Number;
+                        case "boolean" -> value instanceof Boolean;
+                        default -> true;
+                    };
+                    if (!ok) {
+                        validationErrors.put(key, "Invalid type: expected " + type);
+                    }
+                }
+            }
+        }
+        return validationErrors;
+    }
+}
@@ -0,0 +1,199 @@
+package com.santec.polenta.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver serving a generated table from memory, so that {@code PrestoService} can be benchmarked
+ * without a Presto server. {@code jdbc:polenta-bench:<columns>x<rows>} returns, for any statement,
+ * that many rows of columns cycling through the types Trino returns most (varchar, bigint, double,
+ * timestamp, boolean, decimal), with English and Spanish text and some nulls.
+ *
+ * <p>Connections, statements and result sets are dynamic proxies, so every getter (and every
+ * {@code wasNull()}) costs a reflective call: look at allocation and at the difference between
+ * variants rather than at absolute times.
+ */
+final class InMemoryJdbcDriver implements Driver {
+
+    private static final String PREFIX = "jdbc:polenta-bench:";
+    private static final int[] TYPES = {Types.VARCHAR, Types.BIGINT, Types.DOUBLE, Types.TIMESTAMP, Types.BOOLEAN,
+            Types.DECIMAL};
+    private static final String[] WORDS = {"cliente", "customer", "pedido", "order", "región", "región norte",
+            "São Paulo", "Ciudad de México", "shipped", "pendiente de envío"};
+
+    private static final InMemoryJdbcDriver INSTANCE = new InMemoryJdbcDriver();
+    private static boolean registered;
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+
+    static synchronized String register(int columns, int rows) throws SQLException {
+        if (!registered) {
+            DriverManager.registerDriver(INSTANCE);
+            registered = true;
+        }
+        return PREFIX + columns + "x" + rows;
+    }
+
+    private record Table(String[] labels, int[] types, Object[][] rows) {
+
+        static Table generate(int columns, int rowCount) {
+            String[] labels = new String[columns];
+            int[] types = new int[columns];
+            for (int c = 0; c < columns; c++) {
+                labels[c] = "column_" + c;
+                types[c] = TYPES[c % TYPES.length];
+            }
+            Object[][] rows = new Object[rowCount][columns];
+            long epoch = Timestamp.valueOf("2024-01-01 00:00:00").getTime();
+            for (int r = 0; r < rowCount; r++) {
+                for (int c = 0; c < columns; c++) {
+                    rows[r][c] = (r + c) % 17 == 0 ? null : switch (types[c]) {
+                        case Types.VARCHAR -> WORDS[(r + c) % WORDS.length] + " " + r;
+                        case Types.BIGINT -> r * 1_000L + c;
+                        case Types.DOUBLE -> r * 1.25 + c;
+                        case Types.TIMESTAMP -> new Timestamp(epoch + r * 60_000L);
+                        case Types.BOOLEAN -> r % 2 == 0;
+                        default -> BigDecimal.valueOf(r * 100L + c, 2);
+                    };
+                }
+            }
+            return new Table(labels, types, rows);
+        }
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        Table table = tables.computeIfAbsent(url, key -> {
+            String[] size = key.substring(PREFIX.length()).split("x");
+            return Table.generate(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        });
+        return proxy(Connection.class, (name, args) -> name.equals("createStatement") ? statement(table) : null);
+    }
+
+    private static Statement statement(Table table) {
+        return proxy(Statement.class, (name, args) -> name.equals("executeQuery") ? resultSet(table) : null);
+    }
+
+    private static ResultSet resultSet(Table table) {
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (name, args) -> switch (name) {
+            case "getColumnCount" -> table.labels().length;
+            case "getColumnLabel", "getColumnName" -> table.labels()[(int) args[0] - 1];
+            case "getColumnType" -> table.types()[(int) args[0] - 1];
+            default -> null;
+        });
+        Cursor cursor = new Cursor(table.rows());
+        return proxy(ResultSet.class, (name, args) -> switch (name) {
+            case "next" -> ++cursor.row < cursor.rows.length;
+            case "getMetaData" -> metaData;
+            case "wasNull" -> cursor.wasNull;
+            case "getObject", "getString", "getLong", "getDouble", "getBoolean", "getBigDecimal", "getTimestamp" ->
+                    cursor.get(name, (int) args[0]);
+            default -> null;
+        });
+    }
+
+    private static final class Cursor {
+        private final Object[][] rows;
+        private int row = -1;
+        private boolean wasNull;
+
+        Cursor(Object[][] rows) {
+            this.rows = rows;
+        }
+
+        Object get(String getter, int column) {
+            Object value = rows[row][column - 1];
+            wasNull = value == null;
+            if (value == null) {
+                return switch (getter) {
+                    case "getLong" -> 0L;
+                    case "getDouble" -> 0.0;
+                    case "getBoolean" -> false;
+                    default -> null;
+                };
+            }
+            return getter.equals("getString") ? value.toString() : value;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws SQLException;
+    }
+
+    /**
+     * Proxies the JDBC interface with the handler; methods it leaves unanswered ({@code null}) return
+     * the default value of their type, so {@code close()} and {@code isWrapperFor()} do nothing.
+     */
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(InMemoryJdbcDriver.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = handler.invoke(method.getName(), args);
+                    if (result != null || !method.getReturnType().isPrimitive()) {
+                        return result;
+                    }
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == boolean.class) {
+                        return false;
+                    }
+                    if (returnType == void.class) {
+                        return null;
+                    }
+                    if (returnType == long.class) {
+                        return 0L;
+                    }
+                    if (returnType == double.class) {
+                        return 0.0;
+                    }
+                    return 0;
+                }));
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -0,0 +1,122 @@
+package com.santec.polenta.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.santec.polenta.config.LogSamplingFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caller-side cost of the DEBUG logging of one {@code sample_data} request: the result rows formatted
+ * into the message (as {@code PrestoService} used to), a size summary, the summary through an async
+ * appender, and the summary sampled at 10%. Run with {@code -prof gc} to compare allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss} [%thread] %-5level %logger{36} - %msg%n";
+
+    private LoggerContext context;
+    private Logger syncLogger;
+    private Logger asyncLogger;
+    private Logger sampledLogger;
+    private List<Map<String, Object>> rows;
+
+    @Setup
+    public void setUp() {
+        context = new LoggerContext();
+        context.start();
+
+        Appender<ILoggingEvent> sync = nullAppender("sync");
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setName("async");
+        async.setNeverBlock(true);
+        async.addAppender(nullAppender("async-target"));
+        async.start();
+
+        LogSamplingFilter sampling = new LogSamplingFilter();
+        sampling.setContext(context);
+        sampling.setSamples("bench.sampled=0.1");
+        sampling.start();
+        context.addTurboFilter(sampling);
+
+        syncLogger = logger("bench.sync", sync);
+        asyncLogger = logger("bench.async", async);
+        sampledLogger = logger("bench.sampled", sync);
+
+        // LIMIT 10 of a 20 column table
+        rows = new ArrayList<>();
+        for (int r = 0; r < 10; r++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int c = 0; c < 20; c++) {
+                row.put("column_" + c, c % 2 == 0 ? "value of row " + r + " column " + c : (Object) (r * 1000L + c));
+            }
+            rows.add(row);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    private Appender<ILoggingEvent> nullAppender(String name) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setName(name);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+    private Logger logger(String name, Appender<ILoggingEvent> appender) {
+        Logger logger = context.getLogger(name);
+        logger.setLevel(Level.DEBUG);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    @Benchmark
+    public void fullPayload() {
+        syncLogger.debug("Sample data from {}.{}: {}", "ventas", "clientes", rows);
+    }
+
+    @Benchmark
+    public void sizeSummary() {
+        syncLogger.debug("Sample data from {}.{}: {} rows", "ventas", "clientes", rows.size());
+    }
+
+    @Benchmark
+    public void sizeSummaryAsync() {
+        asyncLogger.debug("Sample data from {}.{}: {} rows", "ventas", "clientes", rows.size());
+    }
+
+    @Benchmark
+    public void sizeSummarySampled() {
+        sampledLogger.debug("Sample data from {}.{}: {} rows", "ventas", "clientes", rows.size());
+    }
+}
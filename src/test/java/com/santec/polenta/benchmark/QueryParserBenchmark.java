@@ -0,0 +1,106 @@
+package com.santec.polenta.benchmark;
+
+import com.santec.polenta.service.QueryParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Intent classification cost of one pass over the English/Spanish regression corpus, compared
+ * with the previous loop of {@code .*x.*y.*} regexes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryParserBenchmark {
+
+    private static final Map<Pattern, String> LEGACY_PATTERNS = new HashMap<>();
+    static {
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*show.*tables.*"), "SHOW_TABLES");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*list.*tables.*"), "SHOW_TABLES");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*what.*tables.*"), "SHOW_TABLES");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*accessible.*tables.*"), "ACCESSIBLE_TABLES");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*tables.*can.*access.*"), "ACCESSIBLE_TABLES");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*describe\\s+table\\s+\\w+.*"), "DESCRIBE_TABLE");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*columns.*in.*"), "DESCRIBE_TABLE");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*structure.*of.*"), "DESCRIBE_TABLE");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*sample\\s+data\\s+from\\s+\\w+.*"), "SAMPLE_DATA");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*show.*data.*from.*"), "SAMPLE_DATA");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*preview.*"), "SAMPLE_DATA");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*find\\s+tables\\s+containing\\s+\\w+.*"), "SEARCH_TABLES");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*(todas|lista)\\s+las\\s+\\w+\\s+del\\s+esquema\\s+\\w+.*"), "LIST_ENTITY");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*lista\\s+de\\s+\\w+.*"), "LIST_ENTITY");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*buscar\\s+\\w+\\s+en\\s+el\\s+esquema\\s+\\w+.*"), "SEARCH_ENTITY");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*datos\\s+de\\s+la\\s+tabla\\s+\\w+.*"), "TABLE_DATA");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*contar\\s+registros\\s+en\\s+la\\s+tabla\\s+\\w+.*"), "COUNT_RECORDS");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*columnas\\s+de\\s+la\\s+tabla\\s+\\w+.*"), "LIST_COLUMNS");
+        LEGACY_PATTERNS.put(Pattern.compile("(?i).*seleccionar\\s+.*\\s+de\\s+la\\s+tabla\\s+\\w+\\s+donde\\s+.*"), "FILTERED_QUERY");
+    }
+
+    private final QueryParser queryParser = new QueryParser();
+    private String[] queries;
+
+    @Setup
+    public void setUp() throws IOException {
+        queries = loadCorpus("/intent-corpus.csv");
+    }
+
+    @Benchmark
+    public void intentMatcher(Blackhole bh) {
+        for (String query : queries) {
+            bh.consume(queryParser.identifyQueryType(query));
+        }
+    }
+
+    @Benchmark
+    public void legacyRegexLoop(Blackhole bh) {
+        for (String query : queries) {
+            bh.consume(legacyIdentify(query));
+        }
+    }
+
+    private static String legacyIdentify(String query) {
+        for (Map.Entry<Pattern, String> entry : LEGACY_PATTERNS.entrySet()) {
+            if (entry.getKey().matcher(query).matches()) {
+                return entry.getValue();
+            }
+        }
+        return "UNKNOWN";
+    }
+
+    /**
+     * Reads the first column of a {@code query|expected} corpus file, skipping comments and the header.
+     */
+    static String[] loadCorpus(String resource) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                QueryParserBenchmark.class.getResourceAsStream(resource), StandardCharsets.UTF_8))) {
+            String line;
+            boolean header = true;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                lines.add(line.substring(0, line.lastIndexOf('|')));
+            }
+        }
+        return lines.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,121 @@
+package com.santec.polenta.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.config.PrestoConfig;
+import com.santec.polenta.service.JsonRowWriter;
+import com.santec.polenta.service.McpTracing;
+import com.santec.polenta.service.PrestoService;
+import com.santec.polenta.service.RowSink;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result mapping in {@link PrestoService#executeQuery}, over wide result sets served by the
+ * {@link InMemoryJdbcDriver}: rows collected as column -> value maps (the metadata helpers and the
+ * non-streamed responses), the same maps serialized to JSON, and rows streamed to JSON with the
+ * {@link JsonRowWriter} of the streamed responses. Allocation per query is in {@code gc.alloc.rate.norm}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMappingBenchmark {
+
+    private static final String SQL = "SELECT * FROM ventas.pedidos LIMIT 1000";
+
+    @Param({"20", "100"})
+    private int columns;
+
+    @Param({"1000"})
+    private int rows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PrestoService prestoService;
+
+    @Setup
+    public void setUp() throws SQLException {
+        PrestoConfig prestoConfig = new PrestoConfig();
+        prestoConfig.setUrl(InMemoryJdbcDriver.register(columns, rows));
+        prestoConfig.setUser("bench");
+        prestoService = new PrestoService();
+        ReflectionTestUtils.setField(prestoService, "prestoConfig", prestoConfig);
+        ReflectionTestUtils.setField(prestoService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(prestoService, "tracing", McpTracing.NOOP);
+        ReflectionTestUtils.invokeMethod(prestoService, "registerMetrics");
+        // The per-query INFO lines are measured by LoggingBenchmark
+        ((Logger) LoggerFactory.getLogger(PrestoService.class)).setLevel(Level.WARN);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> collectMaps() throws SQLException {
+        return prestoService.executeQuery(SQL);
+    }
+
+    @Benchmark
+    public void collectMapsToJson() throws SQLException, IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), prestoService.executeQuery(SQL));
+    }
+
+    @Benchmark
+    public long streamJson() throws SQLException, IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(OutputStream.nullOutputStream())) {
+            return prestoService.executeQuery(SQL, new JsonArraySink(generator));
+        }
+    }
+
+    /**
+     * Writes the rows as a JSON array, as the streamed {@code query_data} responses do.
+     */
+    private static final class JsonArraySink implements RowSink {
+        private final JsonGenerator generator;
+        private JsonRowWriter writer;
+
+        JsonArraySink(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException {
+            writer = JsonRowWriter.forMetaData(metaData);
+            try {
+                generator.writeStartArray();
+            } catch (IOException e) {
+                throw new SQLException("Could not write the rows", e);
+            }
+        }
+
+        @Override
+        public void row(ResultSet resultSet) throws SQLException {
+            try {
+                writer.writeRow(resultSet, generator);
+            } catch (IOException e) {
+                throw new SQLException("Could not write the rows", e);
+            }
+        }
+
+        @Override
+        public void end(long rowCount) throws SQLException {
+            try {
+                generator.writeEndArray();
+            } catch (IOException e) {
+                throw new SQLException("Could not write the rows", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.santec.polenta.benchmark;
+
+import com.santec.polenta.service.TokenizerService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenizer throughput with several request threads sharing one {@link TokenizerService}:
+ * plain queries take the rule-based fast path, punctuated or accented ones the per-thread model,
+ * and a pass over the English/Spanish intent corpus mixes both.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TokenizerBenchmark {
+
+    private static final String[] PLAIN = {
+            "show sample data from customers",
+            "lista de vendedores",
+            "search for sales",
+            "contar registros en la tabla clientes"
+    };
+
+    private static final String[] PUNCTUATED = {
+            "What tables are there?",
+            "Lista de países, por favor.",
+            "Describe table default.sales",
+            "¿Qué columnas tiene la tabla pedidos?"
+    };
+
+    private TokenizerService tokenizerService;
+    private String[] corpus;
+
+    @Setup
+    public void setUp() throws IOException {
+        tokenizerService = new TokenizerService();
+        tokenizerService.init();
+        corpus = QueryParserBenchmark.loadCorpus("/intent-corpus.csv");
+    }
+
+    @Benchmark
+    public void plainQueries(Blackhole bh) {
+        for (String query : PLAIN) {
+            bh.consume(tokenizerService.tokenize(query));
+        }
+    }
+
+    @Benchmark
+    public void punctuatedQueries(Blackhole bh) {
+        for (String query : PUNCTUATED) {
+            bh.consume(tokenizerService.tokenize(query));
+        }
+    }
+
+    @Benchmark
+    public void corpusQueries(Blackhole bh) {
+        for (String query : corpus) {
+            bh.consume(tokenizerService.tokenize(query));
+        }
+    }
+}
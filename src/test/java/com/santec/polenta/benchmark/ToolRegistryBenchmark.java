@@ -0,0 +1,66 @@
+package com.santec.polenta.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.ToolRegistry;
+import com.santec.polenta.service.tool.ToolHandlers;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of answering {@code tools/list} from the {@link ToolRegistry}: the response embedding the tool
+ * list serialized at startup, against serializing {@link ToolRegistry#getTools()} on every request;
+ * and the per-call lookup of a tool's definition, validator and handler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ToolRegistryBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ToolRegistry toolRegistry;
+    private String[] toolNames;
+
+    @Setup
+    public void setUp() {
+        toolRegistry = new ToolRegistry(objectMapper, ToolHandlers.all());
+        toolNames = toolRegistry.getTools().stream().map(McpTool::getName).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public byte[] preSerializedList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response(toolRegistry.getToolsJson()));
+    }
+
+    @Benchmark
+    public byte[] serializedPerRequest() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response(toolRegistry.getTools()));
+    }
+
+    @Benchmark
+    public void lookup(Blackhole bh) {
+        for (String name : toolNames) {
+            bh.consume(toolRegistry.getTool(name));
+            bh.consume(toolRegistry.getValidator(name));
+            bh.consume(toolRegistry.getHandler(name));
+        }
+    }
+
+    private static Map<String, Object> response(Object tools) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("tools", tools);
+        Map<String, Object> response = new HashMap<>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", 1);
+        response.put("result", result);
+        return response;
+    }
+}
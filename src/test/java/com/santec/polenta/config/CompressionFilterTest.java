@@ -0,0 +1,115 @@
+package com.santec.polenta.config;
+
+import com.github.luben.zstd.ZstdInputStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CompressionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new CompressionFilter(new CompressionConfig(), meterRegistry);
+    }
+
+    private MockHttpServletResponse serve(String acceptEncoding, String contentType, byte[] body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/mcp");
+        request.addHeader("Accept-Encoding", acceptEncoding);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                res.setContentType(contentType);
+                // Written in pieces, as a streaming serializer would.
+                for (int i = 0; i < body.length; i += 1000) {
+                    res.getOutputStream().write(body, i, Math.min(1000, body.length - i));
+                }
+            }
+        };
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    private static byte[] json(int rows) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < rows; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"customer\"}");
+        }
+        return json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void negotiatesPreferringZstd() {
+        assertEquals("zstd", CompressionFilter.negotiate("gzip, deflate, br, zstd"));
+        assertEquals("gzip", CompressionFilter.negotiate("gzip, zstd;q=0"));
+        assertNull(CompressionFilter.negotiate("gzip;q=0, br"));
+        assertNull(CompressionFilter.negotiate(null));
+    }
+
+    @Test
+    void largeResponsesAreGzipped() throws Exception {
+        byte[] body = json(2000);
+
+        MockHttpServletResponse response = serve("gzip", "application/json", body);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertArrayEquals(body, in.readAllBytes());
+        }
+        assertEquals(1, meterRegistry.get("mcp.compression.ratio").tag("encoding", "gzip").summary().count());
+        assertTrue(meterRegistry.get("mcp.compression.ratio").tag("encoding", "gzip").summary().max() > 1);
+    }
+
+    @Test
+    void largeResponsesAreZstdCompressed() throws Exception {
+        byte[] body = json(2000);
+
+        MockHttpServletResponse response = serve("gzip, zstd", "application/json", body);
+
+        assertEquals("zstd", response.getHeader("Content-Encoding"));
+        try (InputStream in = new ZstdInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertArrayEquals(body, in.readAllBytes());
+        }
+        assertEquals(1, meterRegistry.get("mcp.compression.cpu").tag("encoding", "zstd").timer().count());
+    }
+
+    @Test
+    void smallResponsesAreSentAsIs() throws Exception {
+        byte[] body = json(3);
+
+        MockHttpServletResponse response = serve("gzip", "application/json", body);
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(body.length, response.getContentLength());
+        assertArrayEquals(body, response.getContentAsByteArray());
+    }
+
+    @Test
+    void eventStreamsAreNotCompressed() throws Exception {
+        byte[] body = json(2000);
+
+        MockHttpServletResponse response = serve("gzip", "text/event-stream", body);
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertArrayEquals(body, response.getContentAsByteArray());
+    }
+}
@@ -0,0 +1,32 @@
+package com.santec.polenta.config;
+
+import ch.qos.logback.classic.LoggerContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.Profiles;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogFileProfileDefinerTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final MockEnvironment environment = new MockEnvironment();
+
+    private boolean fileAppenderEnabled() {
+        LogFileProfileDefiner definer = new LogFileProfileDefiner();
+        definer.setContext(context);
+        return environment.acceptsProfiles(Profiles.of(definer.getPropertyValue()));
+    }
+
+    @Test
+    void fileAppenderOnlyWithALogFile() {
+        assertFalse(fileAppenderEnabled());
+        environment.setActiveProfiles("structured", "stdio");
+        assertFalse(fileAppenderEnabled());
+
+        context.putProperty("LOG_FILE", "/var/log/polenta/polenta.log");
+        assertTrue(fileAppenderEnabled());
+        environment.setActiveProfiles();
+        assertTrue(fileAppenderEnabled());
+    }
+}
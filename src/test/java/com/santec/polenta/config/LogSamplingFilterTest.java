@@ -0,0 +1,55 @@
+package com.santec.polenta.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSamplingFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private LogSamplingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        context.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.DEBUG);
+        filter = new LogSamplingFilter();
+        filter.setContext(context);
+        filter.setSamples("com.santec.polenta.service=0, com.santec.polenta.service.PrestoService=0.5");
+    }
+
+    private FilterReply decide(String logger, Level level) {
+        return filter.decide(null, context.getLogger(logger), level, "message", null, null);
+    }
+
+    @Test
+    void dropsSampledOutEventsButKeepsWarningsAndErrors() {
+        assertEquals(FilterReply.DENY, decide("com.santec.polenta.service.QueryIntelligenceService", Level.INFO));
+        assertEquals(FilterReply.DENY, decide("com.santec.polenta.service.QueryIntelligenceService", Level.DEBUG));
+        assertEquals(FilterReply.NEUTRAL, decide("com.santec.polenta.service.QueryIntelligenceService", Level.WARN));
+        assertEquals(FilterReply.NEUTRAL, decide("com.santec.polenta.service.QueryIntelligenceService", Level.ERROR));
+        assertEquals(FilterReply.NEUTRAL, decide("com.santec.polenta.controller.JsonRpcHandler", Level.INFO));
+    }
+
+    @Test
+    void closestConfiguredLoggerSetsTheRate() {
+        long kept = IntStream.range(0, 10_000)
+                .filter(i -> decide("com.santec.polenta.service.PrestoService", Level.INFO) == FilterReply.NEUTRAL)
+                .count();
+
+        assertTrue(kept > 4_000 && kept < 6_000, "kept " + kept);
+    }
+
+    @Test
+    void disabledLevelsAreLeftToTheLogger() {
+        context.getLogger("com.santec.polenta.service").setLevel(Level.INFO);
+
+        assertEquals(FilterReply.NEUTRAL, decide("com.santec.polenta.service.QueryIntelligenceService", Level.DEBUG));
+    }
+}
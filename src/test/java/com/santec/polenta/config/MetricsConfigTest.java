@@ -0,0 +1,91 @@
+package com.santec.polenta.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.service.IntentCache;
+import com.santec.polenta.service.MetadataCacheService;
+import com.santec.polenta.service.ParsedIntent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MetricsConfigTest {
+
+    @Test
+    void cacheMetricsReportHitsMissesAndRatio() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        IntentCache intentCache = new IntentCache(10);
+        MetadataCacheService metadataCacheService = mock(MetadataCacheService.class);
+        when(metadataCacheService.getHits()).thenReturn(0L);
+        when(metadataCacheService.getMisses()).thenReturn(0L);
+        new MetricsConfig().cacheMetrics(intentCache, metadataCacheService).bindTo(registry);
+
+        assertNull(intentCache.get("ventas por región", 1));
+        intentCache.put("ventas por región", 1, new ParsedIntent("query", null, "ventas", null, null));
+        assertNotNull(intentCache.get("ventas por región", 1));
+        assertNotNull(intentCache.get("ventas por región", 1));
+
+        assertEquals(2.0, registry.get("mcp.cache.requests").tags("cache", "intent", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, registry.get("mcp.cache.requests").tags("cache", "intent", "result", "miss")
+                .functionCounter().count());
+        assertEquals(2.0 / 3, registry.get("mcp.cache.hit.ratio").tag("cache", "intent").gauge().value(), 1e-9);
+        assertTrue(Double.isNaN(registry.get("mcp.cache.hit.ratio").tag("cache", "metadata").gauge().value()));
+    }
+
+    @Test
+    void responseSizeFilterRecordsBytesWritten() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ResponseSizeFilter filter = new ResponseSizeFilter(registry);
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                res.setContentType("application/json");
+                res.getOutputStream().write(new byte[300]);
+                res.getWriter().write("{}");
+                res.getWriter().flush();
+            }
+        };
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/mcp");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(servlet));
+
+        var summary = registry.get("mcp.response.bytes").tag("type", "json").summary();
+        assertEquals(1, summary.count());
+        assertEquals(302.0, summary.totalAmount());
+        assertEquals(0, registry.get("mcp.response.bytes").tag("type", "sse").summary().count());
+    }
+
+    @Test
+    void transportsTimeTheResponseBodiesTheySerialize() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = new ObjectMapper();
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        new MetricsConfig().mappingJackson2HttpMessageConverter(objectMapper, registry)
+                .write(Map.of("id", 1), MediaType.APPLICATION_JSON, output);
+        DataBuffer encoded = new TimedJackson2JsonEncoder(objectMapper, registry).encodeValue(Map.of("id", 1),
+                DefaultDataBufferFactory.sharedInstance, ResolvableType.forClass(Map.class), MediaType.APPLICATION_JSON, null);
+
+        assertEquals("{\"id\":1}", output.getBodyAsString());
+        assertEquals("{\"id\":1}", encoded.toString(StandardCharsets.UTF_8));
+        assertEquals(1, registry.get("mcp.response.serialization").tag("transport", "http").timer().count());
+        assertEquals(1, registry.get("mcp.response.serialization").tag("transport", "reactive").timer().count());
+    }
+}
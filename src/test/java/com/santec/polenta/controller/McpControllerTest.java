@@ -1,19 +1,34 @@
 package com.santec.polenta.controller;
 
+import com.santec.polenta.config.RateLimitConfig;
 import com.santec.polenta.service.McpDispatcherService;
+import com.santec.polenta.service.RateLimiter;
+import com.santec.polenta.service.SessionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
 
 class McpControllerTest {
 
     @Mock
     private McpDispatcherService mcpDispatcherService;
 
+    @Mock
+    private SessionManager sessionManager;
+
     @InjectMocks
     private McpController controller;
 
@@ -27,6 +42,33 @@ class McpControllerTest {
         assertNotNull(controller);
     }
 
-    // Agrega aquí más tests unitarios según los métodos públicos del controlador
-}
+    @Test
+    @SuppressWarnings("unchecked")
+    void helperClientsHaveTheirOwnRateLimit() {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setDefaults(new RateLimitConfig.Limit(0, 0));
+        config.getTools().put("query_data", new RateLimitConfig.Limit(1, 0.001));
+        RateLimiter rateLimiter = new RateLimiter(config, sessionManager, new SimpleMeterRegistry());
+        when(mcpDispatcherService.dispatch(eq("tools/call"), any(), anyString())).thenAnswer(invocation -> {
+            rateLimiter.acquire(invocation.getArgument(2), "query_data");
+            return new HashMap<>(Map.of("status", "success"));
+        });
+        Map<String, Object> call = Map.of("jsonrpc", "2.0", "id", "1", "method", "tools/call",
+                "params", Map.of("name", "query_data", "arguments", Map.of("query", "show tables")));
 
+        assertNotNull(controller.callTool(call, client("10.0.0.1")).getBody().get("result"));
+        Map<String, Object> throttled = controller.callTool(call, client("10.0.0.1")).getBody();
+        assertNotNull(controller.callTool(call, client("10.0.0.2")).getBody().get("result"));
+
+        Map<String, Object> error = (Map<String, Object>) throttled.get("error");
+        assertEquals(-32000, error.get("code"));
+        assertTrue((Long) ((Map<String, Object>) error.get("data")).get("retry_after_ms") > 0);
+    }
+
+    private static MockHttpServletRequest client(String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(address);
+        request.addHeader("User-Agent", "agent/1.0");
+        return request;
+    }
+}
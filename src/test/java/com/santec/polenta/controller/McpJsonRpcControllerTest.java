@@ -1,17 +1,50 @@
 package com.santec.polenta.controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.config.BatchConfig;
+import com.santec.polenta.config.IdempotencyConfig;
+import com.santec.polenta.config.StreamingConfig;
+import com.santec.polenta.service.EncodedResultSink;
+import com.santec.polenta.service.RateLimitExceededException;
+import com.santec.polenta.service.ResultFormat;
+import com.santec.polenta.service.RowSink;
+import com.santec.polenta.service.SessionManager;
+import com.santec.polenta.service.ToolRegistry;
 import com.santec.polenta.service.McpDispatcherService;
+import com.santec.polenta.service.McpTracing;
+import com.santec.polenta.service.ReplayCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class McpJsonRpcControllerTest {
@@ -19,15 +52,55 @@ class McpJsonRpcControllerTest {
     @Mock
     private McpDispatcherService mcpDispatcherService;
 
+    @Mock
+    private ToolRegistry toolRegistry;
+
+    @Mock
+    private SessionManager sessionManager;
+
     @Mock
     private HttpServletRequest request;
 
+    @Mock
+    private HttpServletResponse httpResponse;
+
     @InjectMocks
     private McpJsonRpcController controller;
 
+    private ExecutorService executor;
+
+    private ExecutorService streamingExecutor;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        BatchConfig batchConfig = new BatchConfig();
+        batchConfig.setMaxSize(3);
+        executor = batchConfig.mcpBatchExecutor();
+        ReflectionTestUtils.setField(controller, "jsonRpcHandler", new JsonRpcHandler(mcpDispatcherService,
+                new ReplayCache(new IdempotencyConfig(), sessionManager, new SimpleMeterRegistry()), McpTracing.NOOP));
+        ReflectionTestUtils.setField(controller, "batchConfig", batchConfig);
+        ReflectionTestUtils.setField(controller, "mcpBatchExecutor", executor);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+        StreamingConfig streamingConfig = new StreamingConfig();
+        streamingExecutor = streamingConfig.mcpStreamingExecutor();
+        ReflectionTestUtils.setField(controller, "streamingConfig", streamingConfig);
+        ReflectionTestUtils.setField(controller, "mcpStreamingExecutor", streamingExecutor);
+        ReflectionTestUtils.setField(controller, "tracing", McpTracing.NOOP);
+        controller.registerMetrics(new SimpleMeterRegistry());
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
+        when(toolRegistry.getToolsEtag()).thenReturn("\"tools-v1\"");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        streamingExecutor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResponseEntity<Object> call(Object body, HttpServletRequest httpRequest) {
+        return (ResponseEntity<Object>) controller.handleJsonRpc(body, httpRequest, httpResponse);
     }
 
     @Test
@@ -35,6 +108,309 @@ class McpJsonRpcControllerTest {
         assertNotNull(controller);
     }
 
-    // Agrega aquí más tests unitarios según los métodos públicos del controlador
-}
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchResponsesKeepRequestOrderAndSkipNotifications() {
+        when(mcpDispatcherService.dispatch(eq("tools/list"), any(), anyString(), isNull())).thenReturn(Map.of("tools", List.of()));
+        when(mcpDispatcherService.dispatch(eq("ping"), any(), anyString(), isNull())).thenThrow(new IllegalStateException("Session not initialized"));
+
+        ResponseEntity<Object> response = call(List.of(
+                Map.of("jsonrpc", "2.0", "id", 1, "method", "ping"),
+                Map.of("jsonrpc", "2.0", "method", "tools/list"),
+                Map.of("jsonrpc", "2.0", "id", 2, "method", "tools/list")), request);
+
+        List<Map<String, Object>> body = (List<Map<String, Object>>) response.getBody();
+        assertEquals(2, body.size());
+        assertEquals(1, body.get(0).get("id"));
+        assertEquals(-32000, ((Map<String, Object>) body.get(0).get("error")).get("code"));
+        assertEquals(2, body.get(1).get("id"));
+        assertNotNull(body.get(1).get("result"));
+        verify(mcpDispatcherService, times(2)).dispatch(eq("tools/list"), any(), anyString(), isNull());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rejectsEmptyAndOversizedBatches() {
+        Map<String, Object> empty = (Map<String, Object>) call(List.of(), request).getBody();
+        assertEquals(-32600, ((Map<String, Object>) empty.get("error")).get("code"));
+
+        Map<String, Object> ping = Map.of("jsonrpc", "2.0", "id", 1, "method", "ping");
+        Map<String, Object> tooBig = (Map<String, Object>) call(List.of(ping, ping, ping, ping), request).getBody();
+        assertEquals(-32600, ((Map<String, Object>) tooBig.get("error")).get("code"));
+        verifyNoInteractions(mcpDispatcherService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchDoesNotWaitForHelpersThatNeverStarted() throws Exception {
+        BatchConfig batchConfig = new BatchConfig();
+        batchConfig.setPoolSize(1);
+        batchConfig.setQueueCapacity(1);
+        ExecutorService busyPool = batchConfig.mcpBatchExecutor();
+        ReflectionTestUtils.setField(controller, "mcpBatchExecutor", busyPool);
+        CountDownLatch release = new CountDownLatch(1);
+        busyPool.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        when(mcpDispatcherService.dispatch(eq("ping"), any(), anyString(), isNull())).thenReturn(new HashMap<>());
+        Map<String, Object> ping = Map.of("jsonrpc", "2.0", "id", 1, "method", "ping");
+
+        try {
+            // One helper waits in the queue behind the busy thread, the other one is rejected.
+            List<Map<String, Object>> body = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> (List<Map<String, Object>>) call(List.of(ping, ping, ping), request).getBody());
+
+            assertEquals(3, body.size());
+            body.forEach(response -> assertNotNull(response.get("result")));
+        } finally {
+            release.countDown();
+            busyPool.shutdownNow();
+        }
+    }
+
+    @Test
+    void notificationOnlyBatchHasNoBody() {
+        ResponseEntity<Object> response = call(
+                List.of(Map.of("jsonrpc", "2.0", "method", "notifications/initialized")), request);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void toolsCallAcceptingEventStreamIsStreamed() {
+        when(request.getHeader("Accept")).thenReturn("application/json, text/event-stream");
+        Map<String, Object> toolsCall = Map.of("jsonrpc", "2.0", "id", 7, "method", "tools/call",
+                "params", Map.of("name", "query_data", "arguments", Map.of("query", "SELECT 1")));
+
+        Object response = controller.handleJsonRpc(toolsCall, request, httpResponse);
+
+        assertInstanceOf(SseEmitter.class, response);
+        verify(mcpDispatcherService, timeout(1000)).dispatch(eq("tools/call"), any(), anyString(), any(RowSink.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamedCallIsAnsweredBusyWhenTheExecutorIsFull() {
+        StreamingConfig streamingConfig = new StreamingConfig();
+        streamingConfig.setPoolSize(1);
+        streamingConfig.setQueueCapacity(0);
+        ExecutorService fullPool = streamingConfig.mcpStreamingExecutor();
+        ReflectionTestUtils.setField(controller, "mcpStreamingExecutor", fullPool);
+        CountDownLatch release = new CountDownLatch(1);
+        fullPool.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        when(request.getHeader("Accept")).thenReturn("application/json, text/event-stream");
+        Map<String, Object> toolsCall = Map.of("jsonrpc", "2.0", "id", 7, "method", "tools/call",
+                "params", Map.of("name", "query_data", "arguments", Map.of("query", "SELECT 1")));
+
+        try {
+            Object response = controller.handleJsonRpc(toolsCall, request, httpResponse);
+
+            Map<String, Object> body = (Map<String, Object>) ((ResponseEntity<?>) response).getBody();
+            assertEquals(7, body.get("id"));
+            assertEquals(-32000, ((Map<String, Object>) body.get("error")).get("code"));
+            verifyNoInteractions(mcpDispatcherService);
+        } finally {
+            release.countDown();
+            fullPool.shutdownNow();
+        }
+    }
+
+    @Test
+    void otherMethodsStayJsonWhenEventStreamIsAccepted() {
+        when(request.getHeader("Accept")).thenReturn("application/json, text/event-stream");
+        when(mcpDispatcherService.dispatch(eq("tools/list"), any(), anyString(), isNull())).thenReturn(Map.of("tools", List.of()));
+
+        Object response = controller.handleJsonRpc(Map.of("jsonrpc", "2.0", "id", 8, "method", "tools/list"), request, httpResponse);
+
+        assertInstanceOf(ResponseEntity.class, response);
+        assertEquals("\"tools-v1\"", ((ResponseEntity<?>) response).getHeaders().getETag());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void toolsCallRowsAreWrittenStraightToTheResponse() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(10L, 11L);
+        when(mcpDispatcherService.dispatch(eq("tools/call"), any(), anyString(), any(RowSink.class))).thenAnswer(invocation -> {
+            RowSink sink = invocation.getArgument(3);
+            sink.start(metaData);
+            sink.row(resultSet);
+            sink.row(resultSet);
+            sink.end(2);
+            return new HashMap<>(Map.of("type", "query_result", "row_count", 2L, "streamed", true));
+        });
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        Object response = controller.handleJsonRpc(Map.of("jsonrpc", "2.0", "id", 9, "method", "tools/call",
+                "params", Map.of("name", "query_data", "arguments", Map.of("query", "SELECT id FROM t"))), request, servletResponse);
+
+        assertNull(response);
+        Map<String, Object> body = new ObjectMapper().readValue(servletResponse.getContentAsByteArray(), Map.class);
+        assertEquals(9, body.get("id"));
+        assertNotNull(body.get("trace_id"));
+        Map<String, Object> result = (Map<String, Object>) body.get("result");
+        assertEquals(List.of(Map.of("id", 10), Map.of("id", 11)), result.get("data"));
+        assertEquals(2, result.get("row_count"));
+        assertFalse(result.containsKey("streamed"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void encodedPayloadIsWrittenStraightToTheResponse() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(10L, 11L);
+        when(mcpDispatcherService.dispatch(eq("tools/call"), any(), anyString(), any(RowSink.class))).thenAnswer(invocation -> {
+            try (EncodedResultSink encoder = EncodedResultSink.forFormat(ResultFormat.NDJSON, invocation.getArgument(3), 1)) {
+                encoder.start(metaData);
+                encoder.row(resultSet);
+                encoder.row(resultSet);
+                encoder.end(2);
+                assertTrue(encoder.isStreamed());
+                return new HashMap<>(Map.of("type", "query_result", "format", "ndjson",
+                        "payload_bytes", encoder.getPayloadBytes(), "streamed", true));
+            }
+        });
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        Object response = controller.handleJsonRpc(Map.of("jsonrpc", "2.0", "id", 9, "method", "tools/call",
+                "params", Map.of("name", "query_data", "arguments", Map.of("query", "SELECT id FROM t", "format", "ndjson"))),
+                request, servletResponse);
+
+        assertNull(response);
+        Map<String, Object> body = new ObjectMapper().readValue(servletResponse.getContentAsByteArray(), Map.class);
+        Map<String, Object> result = (Map<String, Object>) body.get("result");
+        assertEquals("{\"id\":10}\n{\"id\":11}\n",
+                new String(Base64.getDecoder().decode((String) result.get("payload")), StandardCharsets.UTF_8));
+        assertEquals(20, result.get("payload_bytes"));
+        assertEquals("ndjson", result.get("format"));
+        assertFalse(result.containsKey("streamed"));
+    }
+
+    @Test
+    void numericAndStringIdsAreDifferentCalls() {
+        when(mcpDispatcherService.dispatch(eq("tools/call"), any(), anyString(), any()))
+                .thenAnswer(invocation -> new HashMap<>(Map.of("type", "metadata")));
+        Map<String, Object> params = Map.of("name", "metadata", "arguments", Map.of());
+
+        call(Map.of("jsonrpc", "2.0", "id", 1, "method", "tools/call", "params", params), request);
+        call(Map.of("jsonrpc", "2.0", "id", "1", "method", "tools/call", "params", params), request);
+        call(Map.of("jsonrpc", "2.0", "id", "1", "method", "tools/call", "params", params), request);
+
+        verify(mcpDispatcherService, times(2)).dispatch(eq("tools/call"), any(), anyString(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failureAfterTheRowsStartedIsReportedInsideTheResult() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(10L);
+        when(mcpDispatcherService.dispatch(eq("tools/call"), any(), anyString(), any(RowSink.class))).thenAnswer(invocation -> {
+            RowSink sink = invocation.getArgument(3);
+            sink.start(metaData);
+            sink.row(resultSet);
+            throw new IllegalStateException("Interrupted while waiting for tool query_data");
+        });
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        Object response = controller.handleJsonRpc(Map.of("jsonrpc", "2.0", "id", 9, "method", "tools/call",
+                "params", Map.of("name", "query_data", "arguments", Map.of("query", "SELECT id FROM t"))), request, servletResponse);
+
+        assertNull(response);
+        Map<String, Object> body = new ObjectMapper().readValue(servletResponse.getContentAsByteArray(), Map.class);
+        assertFalse(body.containsKey("error"));
+        Map<String, Object> result = (Map<String, Object>) body.get("result");
+        assertEquals(List.of(Map.of("id", 10)), result.get("data"));
+        assertEquals("error", result.get("status"));
+        assertEquals(-32000, result.get("error_code"));
+        assertEquals("Interrupted while waiting for tool query_data", result.get("error_message"));
+        assertNotNull(result.get("trace_id"));
+    }
+
+    @Test
+    void toolsCallWithoutRowsIsAnsweredAsRegularJson() {
+        when(mcpDispatcherService.dispatch(eq("tools/call"), any(), anyString(), any(RowSink.class)))
+                .thenReturn(new HashMap<>(Map.of("type", "metadata")));
 
+        Object response = controller.handleJsonRpc(Map.of("jsonrpc", "2.0", "id", 10, "method", "tools/call",
+                "params", Map.of("name", "metadata")), request, httpResponse);
+
+        assertInstanceOf(ResponseEntity.class, response);
+        verifyNoInteractions(httpResponse);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void initializeAssignsANewSessionId() {
+        when(request.getHeader("User-Agent")).thenReturn("agent/1.0");
+        when(sessionManager.newSessionId()).thenReturn("session-1");
+        when(mcpDispatcherService.dispatch(eq("initialize"), any(), eq("session-1"), isNull()))
+                .thenReturn(Map.of("protocolVersion", "2024-11-05"));
+
+        ResponseEntity<Object> response = call(Map.of("jsonrpc", "2.0", "id", 1, "method", "initialize"), request);
+
+        assertEquals("session-1", response.getHeaders().getFirst(McpJsonRpcController.SESSION_HEADER));
+        assertNotNull(((Map<String, Object>) response.getBody()).get("result"));
+        verify(sessionManager).bindClient("127.0.0.1|agent/1.0", "session-1");
+    }
+
+    @Test
+    void requestsUseTheSessionHeaderOrTheClientBinding() {
+        when(mcpDispatcherService.dispatch(eq("ping"), any(), anyString(), isNull())).thenReturn(Map.of("status", "pong"));
+        when(request.getHeader("User-Agent")).thenReturn("agent/1.0");
+        when(sessionManager.sessionForClient("127.0.0.1|agent/1.0")).thenReturn("bound-session");
+        HttpServletRequest withHeader = mock(HttpServletRequest.class);
+        when(withHeader.getHeader(McpJsonRpcController.SESSION_HEADER)).thenReturn("header-session");
+
+        call(Map.of("jsonrpc", "2.0", "id", 1, "method", "ping"), request);
+        call(Map.of("jsonrpc", "2.0", "id", 2, "method", "ping"), withHeader);
+
+        verify(mcpDispatcherService).dispatch(eq("ping"), any(), eq("bound-session"), isNull());
+        verify(mcpDispatcherService).dispatch(eq("ping"), any(), eq("header-session"), isNull());
+    }
+
+    @Test
+    void deleteEndsTheSession() {
+        when(sessionManager.clearSession("session-1")).thenReturn(true);
+
+        assertEquals(HttpStatus.NO_CONTENT, controller.closeSession("session-1").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.closeSession("unknown").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.closeSession(null).getStatusCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void throttledCallsCarryARetryHint() {
+        when(mcpDispatcherService.dispatch(eq("tools/call"), any(), anyString(), isNull()))
+                .thenThrow(new RateLimitExceededException("query_data", 250));
+
+        ResponseEntity<Object> response = call(List.of(Map.of("jsonrpc", "2.0", "id", 1, "method", "tools/call",
+                "params", Map.of("name", "query_data", "arguments", Map.of("query", "SELECT 1")))), request);
+
+        Map<String, Object> error = (Map<String, Object>) ((List<Map<String, Object>>) response.getBody()).get(0).get("error");
+        assertEquals(-32000, error.get("code"));
+        assertEquals(250L, ((Map<String, Object>) error.get("data")).get("retry_after_ms"));
+    }
+}
@@ -0,0 +1,191 @@
+package com.santec.polenta.controller;
+
+import com.santec.polenta.config.BatchConfig;
+import com.santec.polenta.config.IdempotencyConfig;
+import com.santec.polenta.config.StreamingConfig;
+import com.santec.polenta.service.McpDispatcherService;
+import com.santec.polenta.service.McpTracing;
+import com.santec.polenta.service.ReplayCache;
+import com.santec.polenta.service.RowSink;
+import com.santec.polenta.service.SessionManager;
+import com.santec.polenta.service.ToolRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class McpReactiveControllerTest {
+
+    @Mock
+    private McpDispatcherService mcpDispatcherService;
+
+    @Mock
+    private ToolRegistry toolRegistry;
+
+    @Mock
+    private SessionManager sessionManager;
+
+    private Scheduler scheduler;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        BatchConfig batchConfig = new BatchConfig();
+        batchConfig.setMaxSize(3);
+        StreamingConfig streamingConfig = new StreamingConfig();
+        streamingConfig.setChunkSize(1);
+        streamingConfig.setTimeoutMs(5000);
+        scheduler = Schedulers.newBoundedElastic(4, 100, "test-jdbc");
+        McpReactiveController controller = new McpReactiveController(new JsonRpcHandler(mcpDispatcherService,
+                new ReplayCache(new IdempotencyConfig(), sessionManager, new SimpleMeterRegistry()), McpTracing.NOOP),
+                sessionManager, toolRegistry, batchConfig, streamingConfig, scheduler, new SimpleMeterRegistry());
+        when(toolRegistry.getToolsEtag()).thenReturn("\"tools-v1\"");
+        client = WebTestClient.bindToController(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    private WebTestClient.ResponseSpec post(Object body) {
+        return client.post().uri("/mcp")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange();
+    }
+
+    @Test
+    void singleRequestIsDispatchedOffTheEventLoop() {
+        when(mcpDispatcherService.dispatch(eq("ping"), any(), anyString(), isNull())).thenAnswer(invocation -> {
+            assertTrue(Thread.currentThread().getName().startsWith("test-jdbc"));
+            return Map.of("status", "pong");
+        });
+
+        post(Map.of("jsonrpc", "2.0", "id", 1, "method", "ping"))
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1)
+                .jsonPath("$.result.status").isEqualTo("pong");
+    }
+
+    @Test
+    void toolsListCarriesTheEtag() {
+        when(mcpDispatcherService.dispatch(eq("tools/list"), any(), anyString(), isNull())).thenReturn(Map.of("tools", List.of()));
+
+        post(Map.of("jsonrpc", "2.0", "id", 1, "method", "tools/list"))
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"tools-v1\"");
+    }
+
+    @Test
+    void batchResponsesKeepRequestOrderAndSkipNotifications() {
+        when(mcpDispatcherService.dispatch(eq("tools/list"), any(), anyString(), isNull())).thenReturn(Map.of("tools", List.of()));
+        when(mcpDispatcherService.dispatch(eq("ping"), any(), anyString(), isNull())).thenThrow(new IllegalStateException("Session not initialized"));
+
+        post(List.of(
+                Map.of("jsonrpc", "2.0", "id", 1, "method", "ping"),
+                Map.of("jsonrpc", "2.0", "method", "tools/list"),
+                Map.of("jsonrpc", "2.0", "id", 2, "method", "tools/list")))
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[0].error.code").isEqualTo(-32000)
+                .jsonPath("$[1].id").isEqualTo(2);
+        verify(mcpDispatcherService, times(2)).dispatch(eq("tools/list"), any(), anyString(), isNull());
+    }
+
+    @Test
+    void notificationOnlyBatchHasNoBody() {
+        post(List.of(Map.of("jsonrpc", "2.0", "method", "ping")))
+                .expectStatus().isAccepted()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void initializeAssignsANewSessionId() {
+        when(sessionManager.newSessionId()).thenReturn("session-1");
+        when(mcpDispatcherService.dispatch(eq("initialize"), any(), eq("session-1"), isNull()))
+                .thenReturn(Map.of("protocolVersion", "2024-11-05"));
+
+        post(Map.of("jsonrpc", "2.0", "id", 1, "method", "initialize"))
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(McpJsonRpcController.SESSION_HEADER, "session-1");
+        verify(sessionManager).bindClient(anyString(), eq("session-1"));
+    }
+
+    @Test
+    void toolsCallAcceptingEventStreamStreamsChunksThenTheResponse() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getObject(1)).thenReturn(10L, 11L);
+        when(mcpDispatcherService.dispatch(eq("tools/call"), any(), eq("session-1"), any(RowSink.class))).thenAnswer(invocation -> {
+            RowSink sink = invocation.getArgument(3);
+            sink.start(metaData);
+            sink.row(resultSet);
+            sink.row(resultSet);
+            sink.end(2);
+            return new HashMap<>(Map.of("type", "query_result", "row_count", 2L, "streamed", true));
+        });
+
+        List<ServerSentEvent<Map<String, Object>>> events = client.post().uri("/mcp")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header(McpJsonRpcController.SESSION_HEADER, "session-1")
+                .bodyValue(Map.of("jsonrpc", "2.0", "id", 7, "method", "tools/call",
+                        "params", Map.of("name", "query_data", "arguments", Map.of("query", "SELECT id FROM t"))))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<Map<String, Object>>>() { })
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(events);
+        assertEquals(3, events.size());
+        assertEquals("message", events.get(0).event());
+        assertEquals("notifications/rows", events.get(0).data().get("method"));
+        assertEquals("notifications/rows", events.get(1).data().get("method"));
+        Map<String, Object> response = events.get(2).data();
+        assertEquals(7, response.get("id"));
+        assertEquals(2, ((Map<?, ?>) response.get("result")).get("chunks"));
+    }
+
+    @Test
+    void deleteEndsTheSession() {
+        when(sessionManager.clearSession("session-1")).thenReturn(true);
+
+        client.delete().uri("/mcp").header(McpJsonRpcController.SESSION_HEADER, "session-1")
+                .exchange().expectStatus().isNoContent();
+        client.delete().uri("/mcp").header(McpJsonRpcController.SESSION_HEADER, "unknown")
+                .exchange().expectStatus().isNotFound();
+        client.delete().uri("/mcp").exchange().expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,138 @@
+package com.santec.polenta.controller;
+
+import com.santec.polenta.service.QueryProgress;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SseRowSinkTest {
+
+    /** Keeps the JSON-RPC messages instead of writing them to a response */
+    private static class RecordingEmitter extends SseEmitter {
+        final List<Map<String, Object>> messages = new ArrayList<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .filter(part -> part.getData() instanceof Map)
+                    .forEach(part -> messages.add((Map<String, Object>) part.getData()));
+        }
+    }
+
+    private ResultSetMetaData metaData() throws SQLException {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        return metaData;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendsRowsInChunksWithProgress() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        SseRowSink sink = new SseRowSink(emitter, 1, "token", 2);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getObject(1)).thenReturn(10, 11, 12);
+
+        sink.start(metaData());
+        for (int i = 0; i < 3; i++) {
+            sink.row(resultSet);
+        }
+        sink.end(3);
+
+        assertEquals(2, sink.getChunks());
+        assertEquals(4, emitter.messages.size());
+        Map<String, Object> first = (Map<String, Object>) emitter.messages.get(0).get("params");
+        assertEquals("notifications/rows", emitter.messages.get(0).get("method"));
+        assertEquals(List.of("id"), first.get("columns"));
+        assertEquals(List.of(Map.of("id", 10), Map.of("id", 11)), first.get("rows"));
+        Map<String, Object> progress = (Map<String, Object>) emitter.messages.get(3).get("params");
+        assertEquals("notifications/progress", emitter.messages.get(3).get("method"));
+        assertEquals(3L, progress.get("progress"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void prestoProgressIsSentAsAnIncreasingPercentage() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        SseRowSink sink = new SseRowSink(emitter, 1, "token", 1);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getObject(1)).thenReturn(10);
+
+        sink.progress(new QueryProgress("q1", "QUEUED", Double.NaN, 0, 0, 0, 0, 0, 100));
+        sink.progress(new QueryProgress("q1", "RUNNING", 40, 4, 10, 1_500_000, 2_000_000, 50, 1200));
+        sink.start(metaData());
+        sink.row(resultSet);
+        sink.progress(new QueryProgress("q1", "RUNNING", 40, 4, 10, 1_500_000, 2_000_000, 60, 1300));
+        sink.progress(new QueryProgress("q1", "RUNNING", 90, 9, 10, 3_000_000, 4_000_000, 80, 2100));
+
+        List<Map<String, Object>> progress = emitter.messages.stream()
+                .filter(message -> "notifications/progress".equals(message.get("method")))
+                .map(message -> (Map<String, Object>) message.get("params"))
+                .toList();
+        assertEquals(List.of(40.0, 90.0), progress.stream().map(p -> p.get("progress")).toList());
+        assertEquals(100, progress.get(0).get("total"));
+        assertEquals("RUNNING 40% (4/10 splits), 1.5M rows, 2.0 MB processed", progress.get(0).get("message"));
+        assertEquals("1 rows sent, RUNNING 90% (9/10 splits), 3.0M rows, 4.0 MB processed", progress.get(1).get("message"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamKeepsCountingRowsWhenPrestoProgressComesLater() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        SseRowSink sink = new SseRowSink(emitter, 1, "token", 1);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getObject(1)).thenReturn(10, 11);
+
+        sink.start(metaData());
+        sink.row(resultSet);
+        sink.progress(new QueryProgress("q1", "RUNNING", 40, 4, 10, 1_500_000, 2_000_000, 50, 1200));
+        sink.row(resultSet);
+        sink.progress(new QueryProgress("q1", "RUNNING", 90, 9, 10, 3_000_000, 4_000_000, 80, 2100));
+        sink.end(2);
+
+        List<Map<String, Object>> progress = emitter.messages.stream()
+                .filter(message -> "notifications/progress".equals(message.get("method")))
+                .map(message -> (Map<String, Object>) message.get("params"))
+                .toList();
+        assertEquals(List.of(1L, 2L), progress.stream().map(p -> p.get("progress")).toList());
+        assertTrue(progress.stream().noneMatch(p -> p.containsKey("total")));
+        assertEquals("2 rows sent, RUNNING 40% (4/10 splits), 1.5M rows, 2.0 MB processed", progress.get(1).get("message"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void emptyResultStillSendsColumns() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        SseRowSink sink = new SseRowSink(emitter, 1, null, 100);
+
+        sink.start(metaData());
+        sink.end(0);
+
+        assertEquals(1, emitter.messages.size());
+        Map<String, Object> params = (Map<String, Object>) emitter.messages.get(0).get("params");
+        assertEquals(List.of("id"), params.get("columns"));
+        assertEquals(List.of(), params.get("rows"));
+    }
+
+    @Test
+    void closedStreamAbortsTheQuery() throws Exception {
+        SseEmitter emitter = new SseEmitter();
+        emitter.complete();
+        SseRowSink sink = new SseRowSink(emitter, 1, null, 1);
+        ResultSet resultSet = mock(ResultSet.class);
+
+        sink.start(metaData());
+        assertThrows(SQLException.class, () -> sink.row(resultSet));
+    }
+}
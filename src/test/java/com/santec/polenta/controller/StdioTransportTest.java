@@ -0,0 +1,119 @@
+package com.santec.polenta.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.config.BatchConfig;
+import com.santec.polenta.config.IdempotencyConfig;
+import com.santec.polenta.service.McpDispatcherService;
+import com.santec.polenta.service.McpTracing;
+import com.santec.polenta.service.ReplayCache;
+import com.santec.polenta.service.SessionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StdioTransportTest {
+
+    @Mock
+    private McpDispatcherService mcpDispatcherService;
+
+    @Mock
+    private SessionManager sessionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ExecutorService executor;
+
+    private StdioTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        executor = new BatchConfig().mcpBatchExecutor();
+        JsonRpcHandler handler = new JsonRpcHandler(mcpDispatcherService,
+                new ReplayCache(new IdempotencyConfig(), sessionManager, new SimpleMeterRegistry()), McpTracing.NOOP);
+        transport = new StdioTransport(handler, sessionManager, objectMapper, executor, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private List<Map<String, Object>> serve(String... lines) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transport.serve(new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)), out);
+        List<Map<String, Object>> responses = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                responses.add(objectMapper.readValue(line, Map.class));
+            }
+        }
+        return responses;
+    }
+
+    @Test
+    void requestsAfterInitializeUseTheNewSession() throws Exception {
+        when(sessionManager.newSessionId()).thenReturn("session-1");
+        when(mcpDispatcherService.dispatch(eq("initialize"), any(), eq("session-1"), isNull()))
+                .thenReturn(Map.of("protocolVersion", "2024-11-05"));
+        when(mcpDispatcherService.dispatch(eq("ping"), any(), eq("session-1"), isNull())).thenReturn(Map.of("status", "pong"));
+
+        List<Map<String, Object>> responses = serve(
+                "{\"jsonrpc\": \"2.0\", \"id\": 1, \"method\": \"initialize\", \"params\": {}}",
+                "",
+                "{\"jsonrpc\": \"2.0\", \"id\": 2, \"method\": \"ping\"}");
+
+        assertEquals(2, responses.size());
+        assertEquals(1, responses.get(0).get("id"));
+        assertEquals(2, responses.get(1).get("id"));
+        assertEquals("pong", ((Map<?, ?>) responses.get(1).get("result")).get("status"));
+    }
+
+    @Test
+    void notificationsGetNoResponse() throws Exception {
+        List<Map<String, Object>> responses = serve("{\"jsonrpc\": \"2.0\", \"method\": \"notifications/initialized\"}");
+
+        assertTrue(responses.isEmpty());
+        verify(mcpDispatcherService).dispatch(eq("notifications/initialized"), any(), eq(StdioTransport.NO_SESSION), isNull());
+    }
+
+    @Test
+    void malformedLinesAreAnsweredWithAParseError() throws Exception {
+        List<Map<String, Object>> responses = serve("{not json");
+
+        assertEquals(1, responses.size());
+        assertEquals(-32700, ((Map<?, ?>) responses.get(0).get("error")).get("code"));
+    }
+
+    @Test
+    void batchesAreAnsweredOnOneLine() throws Exception {
+        when(mcpDispatcherService.dispatch(eq("ping"), any(), any(), isNull())).thenReturn(Map.of("status", "pong"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        transport.serve(new ByteArrayInputStream(("[{\"jsonrpc\": \"2.0\", \"id\": 1, \"method\": \"ping\"},"
+                + " {\"jsonrpc\": \"2.0\", \"method\": \"ping\"}, {\"jsonrpc\": \"2.0\", \"id\": 2, \"method\": \"ping\"}]\n")
+                .getBytes(StandardCharsets.UTF_8)), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, lines.length);
+        List<Map<String, Object>> batch = objectMapper.readValue(lines[0], new TypeReference<List<Map<String, Object>>>() { });
+        assertEquals(List.of(1, 2), batch.stream().map(response -> response.get("id")).toList());
+    }
+}
@@ -0,0 +1,133 @@
+package com.santec.polenta.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EncodedResultSinkTest {
+
+    private ResultSetMetaData metaData;
+    private ResultSet resultSet;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        when(metaData.getColumnLabel(2)).thenReturn("name");
+        when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+        resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(1L, 2L);
+        when(resultSet.getString(2)).thenReturn("Ana", (String) null);
+    }
+
+    private byte[] encode(ResultFormat format) throws Exception {
+        try (EncodedResultSink sink = EncodedResultSink.forFormat(format)) {
+            sink.start(metaData);
+            sink.row(resultSet);
+            sink.row(resultSet);
+            sink.end(2);
+            assertTrue(sink.isStarted());
+            return sink.toByteArray();
+        }
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws Exception {
+        String payload = new String(encode(ResultFormat.NDJSON), StandardCharsets.UTF_8);
+
+        assertEquals("{\"id\":1,\"name\":\"Ana\"}\n{\"id\":2,\"name\":null}\n", payload);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cborWritesAnArrayOfRows() throws Exception {
+        List<Map<String, Object>> rows = new ObjectMapper(new CBORFactory()).readValue(encode(ResultFormat.CBOR), List.class);
+
+        assertEquals(2, rows.size());
+        assertEquals(Map.of("id", 1, "name", "Ana"), rows.get(0));
+        assertTrue(rows.get(1).containsKey("name"));
+        assertNull(rows.get(1).get("name"));
+    }
+
+    @Test
+    void arrowWritesTypedColumns() throws Exception {
+        try (RootAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(encode(ResultFormat.ARROW)), allocator)) {
+            assertTrue(reader.loadNextBatch());
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(2, root.getRowCount());
+            BigIntVector ids = (BigIntVector) root.getVector("id");
+            VarCharVector names = (VarCharVector) root.getVector("name");
+            assertEquals(2L, ids.get(1));
+            assertEquals("Ana", names.getObject(0).toString());
+            assertTrue(names.isNull(1));
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    @Test
+    void payloadOverTheLimitFailsTheQuery() {
+        SQLException e = assertThrows(SQLException.class, () -> {
+            try (EncodedResultSink sink = EncodedResultSink.forFormat(ResultFormat.NDJSON, null, 10)) {
+                sink.start(metaData);
+                sink.row(resultSet);
+                sink.row(resultSet);
+                sink.end(2);
+            }
+        });
+
+        assertTrue(e.getMessage().contains("exceeds 10 bytes"), e.getMessage());
+    }
+
+    @Test
+    void payloadSinkReceivesTheBytesAndTheProgress() throws Exception {
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        PayloadSink client = mock(PayloadSink.class);
+        when(client.startPayload(ResultFormat.NDJSON)).thenReturn(received);
+        QueryProgress progress = mock(QueryProgress.class);
+
+        try (EncodedResultSink sink = EncodedResultSink.forFormat(ResultFormat.NDJSON, client, 10)) {
+            sink.progress(progress);
+            sink.start(metaData);
+            sink.row(resultSet);
+            sink.row(resultSet);
+            sink.end(2);
+
+            assertTrue(sink.isStreamed());
+            assertEquals(0, sink.toByteArray().length);
+            assertEquals(received.size(), sink.getPayloadBytes());
+        }
+        assertEquals("{\"id\":1,\"name\":\"Ana\"}\n{\"id\":2,\"name\":null}\n", received.toString(StandardCharsets.UTF_8));
+        verify(client).progress(progress);
+        verify(client, never()).start(any());
+    }
+
+    @Test
+    void rejectsUnknownFormats() {
+        assertEquals(ResultFormat.JSON, ResultFormat.fromArgument(null));
+        assertEquals(ResultFormat.ARROW, ResultFormat.fromArgument("Arrow"));
+        assertThrows(IllegalArgumentException.class, () -> ResultFormat.fromArgument("xml"));
+    }
+}
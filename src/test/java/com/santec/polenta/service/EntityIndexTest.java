@@ -0,0 +1,56 @@
+package com.santec.polenta.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityIndexTest {
+
+    private final EntityIndex index = EntityIndex.build(Map.of(
+            "ventas", Map.of(
+                    "clientes", List.of(),
+                    "vendedores", List.of(),
+                    "paises_region", List.of(),
+                    "customer_orders", List.of()),
+            "tpch", Map.of(
+                    "orders", List.of(),
+                    "nation", List.of())));
+
+    @Test
+    void singularAndPluralShareAStem() {
+        for (String[] pair : new String[][]{
+                {"clientes", "cliente"}, {"vendedores", "vendedor"}, {"países", "país"}, {"countries", "country"},
+                {"customers", "customer"}, {"sales", "sale"}, {"addresses", "address"}, {"ciudades", "ciudad"}}) {
+            assertEquals(EntityIndex.stem(pair[1]), EntityIndex.stem(pair[0]), pair[0]);
+        }
+    }
+
+    @Test
+    void resolvesSpanishAndEnglishEntities() {
+        assertEquals("clientes", index.lookup("cliente").get(0).table());
+        assertEquals("vendedores", index.lookup("Vendedor").get(0).table());
+        assertEquals("paises_region", index.lookup("países").get(0).table());
+        assertEquals("nation", index.lookup("nations").get(0).table());
+    }
+
+    @Test
+    void ranksWholeNameMatchesFirst() {
+        List<EntityIndex.Candidate> candidates = index.lookup("order");
+
+        assertEquals(2, candidates.size());
+        assertEquals("orders", candidates.get(0).table());
+        assertEquals("customer_orders", candidates.get(1).table());
+        assertTrue(candidates.get(0).score() > candidates.get(1).score());
+    }
+
+    @Test
+    void filtersBySchema() {
+        assertEquals(List.of("customer_orders"),
+                index.lookup("orders", "ventas").stream().map(EntityIndex.Candidate::table).toList());
+        assertTrue(index.lookup("vendedor", "tpch").isEmpty());
+        assertTrue(index.lookup("unknown").isEmpty());
+    }
+}
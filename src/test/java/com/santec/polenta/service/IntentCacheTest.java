@@ -0,0 +1,34 @@
+package com.santec.polenta.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntentCacheTest {
+
+    private final IntentCache cache = new IntentCache(10);
+    private final ParsedIntent intent = new ParsedIntent("LIST_COLUMNS", "default", "clientes", null, null);
+
+    @Test
+    void newerSnapshotDropsTheEntries() {
+        cache.get("columnas de clientes", 1);
+        cache.put("columnas de clientes", 1, intent);
+        assertSame(intent, cache.get("Columnas de  clientes?", 1));
+
+        assertNull(cache.get("columnas de clientes", 2));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void olderSnapshotIsAMissThatKeepsTheEntries() {
+        cache.get("columnas de clientes", 2);
+        cache.put("columnas de clientes", 2, intent);
+
+        assertNull(cache.get("columnas de clientes", 1));
+        cache.put("columnas de clientes", 1, new ParsedIntent("LIST_COLUMNS", "default", "pedidos", null, null));
+
+        assertSame(intent, cache.get("columnas de clientes", 2));
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getMisses());
+    }
+}
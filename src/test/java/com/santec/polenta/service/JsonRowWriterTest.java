@@ -0,0 +1,48 @@
+package com.santec.polenta.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JsonRowWriterTest {
+
+    @Test
+    void writesEachColumnWithItsTypedWriter() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(6);
+        String[] labels = {"id", "ratio", "price", "created", "name", "missing"};
+        int[] types = {Types.BIGINT, Types.DOUBLE, Types.DECIMAL, Types.TIMESTAMP, Types.VARCHAR, Types.INTEGER};
+        for (int i = 0; i < labels.length; i++) {
+            when(metaData.getColumnLabel(i + 1)).thenReturn(labels[i]);
+            when(metaData.getColumnType(i + 1)).thenReturn(types[i]);
+        }
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(7L);
+        when(resultSet.getDouble(2)).thenReturn(0.5);
+        when(resultSet.getBigDecimal(3)).thenReturn(new BigDecimal("10.25"));
+        when(resultSet.getTimestamp(4)).thenReturn(Timestamp.valueOf(LocalDateTime.of(2024, 3, 1, 12, 30)));
+        when(resultSet.getString(5)).thenReturn("O\"Higgins");
+        when(resultSet.getLong(6)).thenReturn(0L);
+        when(resultSet.wasNull()).thenReturn(false, false, true);
+
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = new ObjectMapper().getFactory().createGenerator(out)) {
+            JsonRowWriter.forMetaData(metaData).writeRow(resultSet, generator);
+        }
+
+        assertEquals("{\"id\":7,\"ratio\":0.5,\"price\":10.25,\"created\":\"2024-03-01T12:30\",\"name\":\"O\\\"Higgins\",\"missing\":null}",
+                out.toString());
+        verify(resultSet, never()).getObject(anyInt());
+    }
+}
@@ -0,0 +1,153 @@
+package com.santec.polenta.service;
+
+import com.santec.polenta.config.IdempotencyConfig;
+import com.santec.polenta.controller.JsonRpcHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.otel.bridge.OtelBaggageManager;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class McpTracingTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_SPAN_ID = "00f067aa0ba902b7";
+
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private SdkTracerProvider tracerProvider;
+    private McpTracing tracing;
+
+    @BeforeEach
+    void setUp() {
+        tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build();
+        OtelCurrentTraceContext currentTraceContext = new OtelCurrentTraceContext();
+        tracing = new McpTracing(new OtelTracer(tracerProvider.get("polenta-test"), currentTraceContext, event -> { },
+                new OtelBaggageManager(currentTraceContext, List.of(), List.of())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.shutdown();
+    }
+
+    @Test
+    void dispatchSpanContinuesIncomingTraceContext() throws Exception {
+        McpDispatcherService dispatcher = mock(McpDispatcherService.class);
+        when(dispatcher.dispatch(eq("ping"), any(), eq("s1"), any())).thenAnswer(invocation -> {
+            try (McpTracing.SpanScope ignored = tracing.start("mcp.tool")) {
+                return new HashMap<>();
+            }
+        });
+        JsonRpcHandler handler = new JsonRpcHandler(dispatcher,
+                new ReplayCache(new IdempotencyConfig(), mock(SessionManager.class), new SimpleMeterRegistry()), tracing);
+
+        Map<String, Object> response;
+        try (Scope ignored = incoming("00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-01").makeCurrent()) {
+            response = handler.handle(Map.of("jsonrpc", "2.0", "id", 1, "method", "ping"), "s1", null);
+        }
+
+        assertEquals(TRACE_ID, response.get("trace_id"));
+        SpanData dispatch = span("mcp.dispatch");
+        SpanData tool = span("mcp.tool");
+        assertEquals(TRACE_ID, dispatch.getTraceId());
+        assertEquals(PARENT_SPAN_ID, dispatch.getParentSpanId());
+        assertEquals("ping", dispatch.getAttributes().get(AttributeKey.stringKey("rpc.method")));
+        assertEquals(dispatch.getSpanId(), tool.getParentSpanId());
+    }
+
+    @Test
+    void wrappedTasksKeepTheCurrentSpanAsParent() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (McpTracing.SpanScope ignored = tracing.start("mcp.tool")) {
+            executor.submit(tracing.wrap(() -> {
+                tracing.start("presto.query").close();
+                return null;
+            })).get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(span("mcp.tool").getSpanId(), span("presto.query").getParentSpanId());
+        assertEquals(span("mcp.tool").getTraceId(), span("presto.query").getTraceId());
+    }
+
+    @Test
+    void noopTracingFallsBackToRandomTraceIds() throws Exception {
+        McpDispatcherService dispatcher = mock(McpDispatcherService.class);
+        when(dispatcher.dispatch(eq("ping"), any(), any(), any())).thenReturn(new HashMap<>());
+        JsonRpcHandler handler = new JsonRpcHandler(dispatcher,
+                new ReplayCache(new IdempotencyConfig(), mock(SessionManager.class), new SimpleMeterRegistry()),
+                McpTracing.NOOP);
+
+        Map<String, Object> response = handler.handle(Map.of("jsonrpc", "2.0", "id", 1, "method", "ping"), null, null);
+
+        assertNull(McpTracing.NOOP.currentTraceId());
+        assertEquals(36, response.get("trace_id").toString().length());
+    }
+
+    @Test
+    void costlyTagsAreOnlyComputedForSampledSpans() {
+        AtomicInteger computed = new AtomicInteger();
+        try (McpTracing.SpanScope span = McpTracing.NOOP.start("presto.query")) {
+            span.tagSampled("db.statement", () -> computed.incrementAndGet());
+        }
+        try (McpTracing.SpanScope span = tracing.start("presto.query")) {
+            span.tagSampled("db.statement", () -> computed.incrementAndGet());
+            span.tagSampled("db.broken", () -> {
+                throw new StackOverflowError();
+            });
+        }
+
+        assertEquals(1, computed.get());
+        assertEquals("1", span("presto.query").getAttributes().get(AttributeKey.stringKey("db.statement")));
+        assertNull(span("presto.query").getAttributes().get(AttributeKey.stringKey("db.broken")));
+    }
+
+    private static Context incoming(String traceparent) {
+        Map<String, String> headers = Map.of("traceparent", traceparent);
+        return W3CTraceContextPropagator.getInstance().extract(Context.root(), headers, new TextMapGetter<>() {
+            @Override
+            public Iterable<String> keys(Map<String, String> carrier) {
+                return carrier.keySet();
+            }
+
+            @Override
+            public String get(Map<String, String> carrier, String key) {
+                return carrier.get(key);
+            }
+        });
+    }
+
+    private SpanData span(String name) {
+        return exporter.getFinishedSpanItems().stream()
+                .filter(span -> span.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No span " + name));
+    }
+}
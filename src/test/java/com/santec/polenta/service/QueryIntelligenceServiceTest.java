@@ -2,24 +2,124 @@ package com.santec.polenta.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 class QueryIntelligenceServiceTest {
 
-    @InjectMocks
+    @Mock
+    private PrestoService prestoService;
+
+    @Mock
+    private TokenizerService tokenizerService;
+
+    @Mock
+    private MetadataCacheService metadataCacheService;
+
+    private QueryParser queryParser;
+
     private QueryIntelligenceService queryIntelligenceService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        queryParser = spy(new QueryParser());
+        queryIntelligenceService = new QueryIntelligenceService(prestoService, tokenizerService, queryParser);
+        ReflectionTestUtils.setField(queryIntelligenceService, "metadataCacheService", metadataCacheService);
+        ReflectionTestUtils.setField(queryIntelligenceService, "intentCache", new IntentCache(100));
+        ReflectionTestUtils.setField(queryIntelligenceService, "tracing", McpTracing.NOOP);
+        when(metadataCacheService.getSchemas()).thenReturn(Set.of("ventas"));
+        when(metadataCacheService.getTables("ventas")).thenReturn(Set.of("clientes"));
+        when(metadataCacheService.getColumns("ventas", "clientes")).thenReturn(List.of("id", "nombre", "ciudad"));
     }
 
     @Test
     void testServiceInitialization() {
         assertNotNull(queryIntelligenceService);
     }
-}
 
+    @Test
+    void countRecordsPushesDownAggregate() throws Exception {
+        when(prestoService.executeQuery(anyString())).thenReturn(List.of(Map.of("row_count", 42L)));
+
+        Map<String, Object> response = queryIntelligenceService.processNaturalQuery("contar registros en la tabla clientes");
+
+        verify(prestoService).executeQuery("SELECT count(*) AS row_count FROM ventas.clientes");
+        assertEquals("record_count", response.get("type"));
+        assertEquals(42L, response.get("row_count"));
+    }
+
+    @Test
+    void listColumnsIsServedFromMetadataCache() throws Exception {
+        Map<String, Object> response = queryIntelligenceService.processNaturalQuery("columnas de la tabla clientes");
+
+        assertEquals("column_list", response.get("type"));
+        assertEquals(List.of("id", "nombre", "ciudad"), response.get("columns"));
+        verifyNoInteractions(prestoService);
+    }
+
+    @Test
+    void filteredQueryBuildsBoundedSelect() throws Exception {
+        when(prestoService.executeQuery(anyString())).thenReturn(List.of());
+
+        Map<String, Object> response = queryIntelligenceService.processNaturalQuery(
+                "seleccionar nombre, ciudad de la tabla clientes donde ciudad = 'O''Higgins' y id mayor que 10");
+
+        verify(prestoService).executeQuery("SELECT nombre, ciudad FROM ventas.clientes WHERE ciudad = 'O''Higgins' AND id > 10 LIMIT "
+                + QueryIntelligenceService.MAX_ROWS);
+        assertEquals("filtered_query", response.get("type"));
+    }
+
+    @Test
+    void filteredQueryRejectsUnknownColumns() throws Exception {
+        Map<String, Object> response = queryIntelligenceService.processNaturalQuery(
+                "seleccionar todo de la tabla clientes donde saldo > 10");
+
+        assertEquals("error", response.get("type"));
+        verifyNoInteractions(prestoService);
+    }
+
+    @Test
+    void repeatedQueriesReuseTheParsedIntent() throws Exception {
+        when(prestoService.executeQuery(anyString())).thenReturn(List.of(Map.of("row_count", 1L)));
+
+        queryIntelligenceService.processNaturalQuery("contar registros en la tabla clientes");
+        queryIntelligenceService.processNaturalQuery("  Contar registros en la tabla   CLIENTES?");
+
+        verify(queryParser, times(1)).identifyQueryType(anyString());
+        verify(prestoService, times(2)).executeQuery("SELECT count(*) AS row_count FROM ventas.clientes");
+    }
+
+    @Test
+    void parsingStagesAreRecordedInTheCurrentTimings() {
+        RequestTimings timings = new RequestTimings();
+        RequestTimings previous = RequestTimings.bind(timings);
+        try {
+            queryIntelligenceService.parseIntent("columnas de la tabla clientes");
+            queryIntelligenceService.parseIntent("columnas de la tabla clientes");
+        } finally {
+            RequestTimings.bind(previous);
+        }
+
+        assertEquals(Set.of("intent_parsing", "table_resolution"), timings.getStages().keySet());
+        assertTrue(timings.toMap().get("stages") instanceof Map<?, ?> stages && stages.containsKey("intent_parsing"));
+    }
+
+    @Test
+    void metadataReloadInvalidatesParsedIntents() {
+        queryIntelligenceService.parseIntent("columnas de la tabla clientes");
+        when(metadataCacheService.getVersion()).thenReturn(1L);
+        queryIntelligenceService.parseIntent("columnas de la tabla clientes");
+
+        verify(queryParser, times(2)).identifyQueryType(anyString());
+    }
+}
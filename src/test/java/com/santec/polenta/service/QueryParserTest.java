@@ -0,0 +1,44 @@
+package com.santec.polenta.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryParserTest {
+
+    private final QueryParser queryParser = new QueryParser();
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvFileSource(resources = "/intent-corpus.csv", delimiter = '|', numLinesToSkip = 1)
+    void identifiesIntentsFromCorpus(String query, String expectedIntent) {
+        assertEquals(expectedIntent, queryParser.identifyQueryType(query));
+    }
+
+    @Test
+    void higherPriorityRuleWinsRegardlessOfPosition() {
+        IntentMatcher matcher = IntentMatcher.builder()
+                .rule("FIRST", "sample data from *")
+                .rule("SECOND", "show .. tables")
+                .defaultIntent("NONE")
+                .build();
+
+        assertEquals("FIRST", matcher.match("show tables and sample data from customers"));
+        assertEquals("SECOND", matcher.match("show tables"));
+        assertEquals("NONE", matcher.match("sample data from"));
+    }
+
+    @Test
+    void adjacentStepsMustBeConsecutive() {
+        IntentMatcher matcher = IntentMatcher.builder()
+                .rule("DESCRIBE", "describe table *")
+                .rule("SQL", "^select")
+                .defaultIntent("NONE")
+                .build();
+
+        assertEquals("DESCRIBE", matcher.match("please describe describe table customers"));
+        assertEquals("NONE", matcher.match("describe the table customers"));
+        assertEquals("NONE", matcher.match("please select it"));
+    }
+}
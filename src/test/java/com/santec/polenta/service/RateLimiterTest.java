@@ -0,0 +1,108 @@
+package com.santec.polenta.service;
+
+import com.santec.polenta.config.RateLimitConfig;
+import com.santec.polenta.config.SessionConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(SECOND);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitConfig config = new RateLimitConfig();
+    private SessionManager sessionManager;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        config.getTools().put("query_data", new RateLimitConfig.Limit(2, 1));
+        config.setDefaults(new RateLimitConfig.Limit(0, 0));
+        sessionManager = new SessionManager(new SessionConfig(), meterRegistry);
+        rateLimiter = new RateLimiter(config, sessionManager, meterRegistry, now::get);
+    }
+
+    @Test
+    void burstIsAllowedThenCallsAreThrottledUntilRefill() {
+        sessionManager.addSession("s1");
+        rateLimiter.acquire("s1", "query_data");
+        rateLimiter.acquire("s1", "query_data");
+
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+                () -> rateLimiter.acquire("s1", "query_data"));
+        assertEquals(1000, e.getRetryAfterMs());
+        assertEquals(1.0, meterRegistry.get("mcp.ratelimit.throttled").tag("tool", "query_data").counter().count());
+
+        now.addAndGet(SECOND / 2);
+        assertEquals(500, assertThrows(RateLimitExceededException.class,
+                () -> rateLimiter.acquire("s1", "query_data")).getRetryAfterMs());
+        now.addAndGet(SECOND / 2);
+        rateLimiter.acquire("s1", "query_data");
+    }
+
+    @Test
+    void bucketsArePerSessionAndTool() {
+        sessionManager.addSession("s1");
+        sessionManager.addSession("s2");
+        rateLimiter.acquire("s1", "query_data");
+        rateLimiter.acquire("s1", "query_data");
+
+        rateLimiter.acquire("s2", "query_data");
+        rateLimiter.acquire("anonymous-client", "query_data");
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.acquire("s1", "schemas");
+        }
+        assertNotNull(sessionManager.getSession("s1").getAttribute(RateLimiter.SESSION_ATTRIBUTE));
+        assertEquals(1, rateLimiter.getAnonymousClients());
+    }
+
+    @Test
+    void leastRecentlySeenAnonymousClientIsDroppedWhenFull() {
+        config.setMaxAnonymousClients(2);
+        rateLimiter.acquire("a", "query_data");
+        rateLimiter.acquire("b", "query_data");
+        rateLimiter.acquire("a", "query_data");
+
+        // Every bucket is still partly drained: "b" goes as the least recently seen.
+        rateLimiter.acquire("c", "query_data");
+
+        assertEquals(2, rateLimiter.getAnonymousClients());
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire("a", "query_data"));
+        rateLimiter.acquire("b", "query_data");
+        rateLimiter.acquire("b", "query_data");
+        assertEquals(2, rateLimiter.getAnonymousClients());
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket(1000, 1, 0);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (bucket.tryAcquire(0) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(1000, granted.get());
+    }
+}
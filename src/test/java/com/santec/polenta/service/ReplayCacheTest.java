@@ -0,0 +1,274 @@
+package com.santec.polenta.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.config.IdempotencyConfig;
+import com.santec.polenta.config.SessionConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplayCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotencyConfig config = new IdempotencyConfig();
+    private final AtomicInteger executions = new AtomicInteger();
+    private SessionManager sessionManager;
+    private ReplayCache cache;
+
+    @BeforeEach
+    void setUp() {
+        config.setTtlMs(1000);
+        config.setMaxEntries(2);
+        config.setMaxRows(2);
+        sessionManager = new SessionManager(new SessionConfig(), meterRegistry);
+        cache = new ReplayCache(config, sessionManager, meterRegistry, now::get);
+    }
+
+    private Function<RowSink, Map<String, Object>> call() {
+        return sink -> {
+            executions.incrementAndGet();
+            return new HashMap<>(Map.of("status", "success", "data", List.of(Map.of("id", 1))));
+        };
+    }
+
+    private double replays(String source) {
+        return meterRegistry.get("mcp.idempotency.replays").tag("source", source).counter().count();
+    }
+
+    @Test
+    void retryWithinTheWindowIsReplayed() {
+        cache.execute("s1", "id:1", "sig", null, call());
+        Map<String, Object> replayed = cache.execute("s1", "id:1", "sig", null, call());
+
+        assertEquals(1, executions.get());
+        assertEquals(Boolean.TRUE, replayed.get("replayed"));
+        assertEquals(List.of(Map.of("id", 1)), replayed.get("data"));
+        assertEquals(1.0, replays("stored"));
+    }
+
+    @Test
+    void keysAreScopedBySessionAndExpire() {
+        cache.execute("s1", "id:1", "sig", null, call());
+        cache.execute("s2", "id:1", "sig", null, call());
+        assertEquals(2, executions.get());
+
+        now.addAndGet(1001);
+        cache.execute("s1", "id:1", "sig", null, call());
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void reusedKeyWithOtherParametersRunsAgain() {
+        cache.execute("s1", "id:1", "sig", null, call());
+        Map<String, Object> result = cache.execute("s1", "id:1", "other", null, call());
+
+        assertEquals(2, executions.get());
+        assertNull(result.get("replayed"));
+    }
+
+    @Test
+    void callsWithoutKeyOrThatFailedAreNotStored() {
+        cache.execute("s1", null, "sig", null, call());
+        cache.execute("s1", null, "sig", null, call());
+        cache.execute("s1", "id:2", "sig", null, sink -> new HashMap<>(Map.of("status", "error")));
+        cache.execute("s1", "id:2", "sig", null, call());
+        assertThrows(IllegalStateException.class, () -> cache.execute("s1", "id:3", "sig", null, sink -> {
+            throw new IllegalStateException("busy");
+        }));
+        cache.execute("s1", "id:3", "sig", null, call());
+
+        assertEquals(4, executions.get());
+    }
+
+    @Test
+    void retryAttachesToTheCallInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Map<String, Object>> first = CompletableFuture.supplyAsync(() ->
+                cache.execute("s1", "id:1", "sig", null, sink -> {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return call().apply(sink);
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Map<String, Object>> retry = new CompletableFuture<>();
+        Thread retrying = new Thread(() -> retry.complete(cache.execute("s1", "id:1", "sig", null, call())));
+        retrying.start();
+        while (retrying.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+
+        release.countDown();
+        assertEquals(Boolean.TRUE, retry.get(5, TimeUnit.SECONDS).get("replayed"));
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(1, executions.get());
+        assertEquals(1.0, replays("in_flight"));
+    }
+
+    @Test
+    void retryIsAnsweredBusyWhenTheCallInFlightTakesTooLong() throws Exception {
+        config.setInFlightWaitMs(50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Map<String, Object>> first = CompletableFuture.supplyAsync(() ->
+                cache.execute("s1", "id:1", "sig", null, sink -> {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return call().apply(sink);
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> cache.execute("s1", "id:1", "sig", null, call()));
+        assertTrue(e.getMessage().contains("still running"));
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(1, executions.get());
+        assertEquals(Boolean.TRUE, cache.execute("s1", "id:1", "sig", null, call()).get("replayed"));
+    }
+
+    @Test
+    void streamedRowsAreKeptUpToTheLimit() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getObject(1)).thenReturn(1L, 2L, 3L);
+        RowSink client = mock(RowSink.class);
+        Function<RowSink, Map<String, Object>> streamed = rows -> streamRows(rows, metaData, resultSet, 2);
+
+        cache.execute("s1", "id:1", "sig", client, streamed);
+        Map<String, Object> replayed = cache.execute("s1", "id:1", "sig", client, streamed);
+
+        verify(client, times(2)).row(resultSet);
+        assertEquals(List.of(Map.of("id", 1L), Map.of("id", 2L)), replayed.get("data"));
+        assertNull(replayed.get("streamed"));
+
+        cache.execute("s1", "id:2", "sig", client, rows -> streamRows(rows, metaData, resultSet, 3));
+        assertNull(cache.execute("s1", "id:2", "sig", client, rows -> streamRows(rows, metaData, resultSet, 3)).get("replayed"));
+    }
+
+    @Test
+    void replayedRowsSerializeAsTheyWereStreamed() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnLabel(1)).thenReturn("created");
+        when(metaData.getColumnType(1)).thenReturn(Types.TIMESTAMP);
+        when(metaData.getColumnLabel(2)).thenReturn("price");
+        when(metaData.getColumnType(2)).thenReturn(Types.DECIMAL);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getTimestamp(1)).thenReturn(Timestamp.valueOf(LocalDateTime.of(2024, 3, 1, 12, 30)));
+        when(resultSet.getBigDecimal(2)).thenReturn(new BigDecimal("10.50"));
+        ObjectMapper objectMapper = new ObjectMapper();
+        StringWriter streamed = new StringWriter();
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(streamed);
+        RowSink client = new RowSink() {
+            private JsonRowWriter writer;
+
+            @Override
+            public void start(ResultSetMetaData metaData) throws SQLException {
+                writer = JsonRowWriter.forMetaData(metaData);
+            }
+
+            @Override
+            public void row(ResultSet resultSet) throws SQLException {
+                try {
+                    writer.writeRow(resultSet, generator);
+                    generator.flush();
+                } catch (IOException e) {
+                    throw new SQLException("Could not write the row", e);
+                }
+            }
+
+            @Override
+            public void end(long rowCount) {
+            }
+        };
+
+        cache.execute("s1", "id:1", "sig", client, rows -> streamRows(rows, metaData, resultSet, 1));
+        Map<String, Object> replayed = cache.execute("s1", "id:1", "sig", client, rows -> streamRows(rows, metaData, resultSet, 1));
+
+        assertEquals("{\"created\":\"2024-03-01T12:30\",\"price\":10.50}", streamed.toString());
+        assertEquals("[" + streamed + "]", objectMapper.writeValueAsString(replayed.get("data")));
+        verify(resultSet, never()).getObject(anyInt());
+    }
+
+    @Test
+    void smallResultsCompleteWhenTheClientIsGone() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getObject(1)).thenReturn(1L, 2L);
+        RowSink client = mock(RowSink.class);
+        doThrow(new SQLException("client gone")).when(client).row(resultSet);
+
+        cache.execute("s1", "id:1", "sig", client, rows -> streamRows(rows, metaData, resultSet, 2));
+
+        assertEquals(Boolean.TRUE, cache.execute("s1", "id:1", "sig", null, call()).get("replayed"));
+        verify(client, times(1)).row(resultSet);
+    }
+
+    @Test
+    void oldestCallsAreDroppedBeyondTheLimitAndWithTheirSession() {
+        sessionManager.addSession("s1");
+        cache.execute("s1", "id:1", "sig", null, call());
+        now.incrementAndGet();
+        cache.execute("s1", "id:2", "sig", null, call());
+        now.incrementAndGet();
+        cache.execute("s1", "id:3", "sig", null, call());
+        assertEquals(2, cache.size());
+
+        cache.execute("s1", "id:1", "sig", null, call());
+        assertEquals(4, executions.get());
+
+        sessionManager.clearSession("s1");
+        assertEquals(0, cache.size());
+    }
+
+    private Map<String, Object> streamRows(RowSink sink, ResultSetMetaData metaData, ResultSet resultSet, int rows) {
+        try {
+            sink.start(metaData);
+            for (int i = 0; i < rows; i++) {
+                sink.row(resultSet);
+            }
+            sink.end(rows);
+        } catch (SQLException e) {
+            return new HashMap<>(Map.of("status", "error"));
+        }
+        return new HashMap<>(Map.of("status", "success", "streamed", true));
+    }
+}
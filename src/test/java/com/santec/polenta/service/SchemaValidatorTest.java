@@ -0,0 +1,85 @@
+package com.santec.polenta.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.service.tool.ToolHandlers;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaValidatorTest {
+
+    private final SchemaValidator validator = SchemaValidator.compile(Map.of(
+            "type", "object",
+            "properties", Map.of(
+                    "query", Map.of("type", "string", "minLength", 1, "maxLength", 20),
+                    "limit", Map.of("type", "integer", "minimum", 1, "maximum", 1000),
+                    "format", Map.of("type", "string", "enum", List.of("json", "arrow")),
+                    "verbose", Map.of("type", "boolean"),
+                    "columns", Map.of("type", "array", "maxItems", 2,
+                            "items", Map.of("type", "string", "pattern", "^[a-z_]+$")),
+                    "filter", Map.of("type", "object",
+                            "properties", Map.of("column", Map.of("type", "string")),
+                            "required", List.of("column"),
+                            "additionalProperties", false)),
+            "required", List.of("query")));
+
+    @Test
+    void acceptsValidArguments() {
+        Map<String, String> errors = validator.validate(Map.of(
+                "query", "select 1",
+                "limit", 10,
+                "format", "arrow",
+                "verbose", true,
+                "columns", List.of("id", "name"),
+                "filter", Map.of("column", "id")));
+
+        assertTrue(errors.isEmpty(), errors.toString());
+    }
+
+    @Test
+    void reportsMissingRequiredParameters() {
+        assertEquals(Map.of("query", "Missing required parameter"), validator.validate(Map.of()));
+        assertEquals(Map.of("query", "Missing required parameter"), validator.validate(Map.of("query", "")));
+    }
+
+    @Test
+    void reportsTypeAndConstraintErrorsByPath() {
+        Map<String, String> errors = validator.validate(Map.of(
+                "query", "a query that is far too long",
+                "limit", 2.5,
+                "format", "xml",
+                "verbose", "yes",
+                "columns", List.of("id", "Bad-Name"),
+                "filter", Map.of("operator", "=")));
+
+        assertEquals("Must be at most 20 characters long", errors.get("query"));
+        assertEquals("Invalid type: expected integer", errors.get("limit"));
+        assertEquals("Must be one of [json, arrow]", errors.get("format"));
+        assertEquals("Invalid type: expected boolean", errors.get("verbose"));
+        assertEquals("Must match pattern ^[a-z_]+$", errors.get("columns[1]"));
+        assertEquals("Missing required parameter", errors.get("filter.column"));
+        assertEquals("Unknown parameter", errors.get("filter.operator"));
+        assertEquals(7, errors.size());
+    }
+
+    @Test
+    void checksNumericBounds() {
+        assertEquals("Must be greater than or equal to 1",
+                validator.validate(Map.of("query", "q", "limit", 0)).get("limit"));
+        assertEquals("Must be less than or equal to 1000",
+                validator.validate(Map.of("query", "q", "limit", 5000L)).get("limit"));
+    }
+
+    @Test
+    void compilesEveryRegisteredToolSchema() {
+        ToolRegistry toolRegistry = new ToolRegistry(new ObjectMapper(), ToolHandlers.all());
+
+        assertTrue(toolRegistry.getValidator("query_data").validate(Map.of("query", "show tables")).isEmpty());
+        assertEquals(Map.of("query", "Missing required parameter"),
+                toolRegistry.getValidator("query_data").validate(Map.of()));
+        assertNull(toolRegistry.getValidator("drop_database"));
+    }
+}
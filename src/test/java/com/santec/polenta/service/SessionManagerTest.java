@@ -0,0 +1,95 @@
+package com.santec.polenta.service;
+
+import com.santec.polenta.config.SessionConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionManagerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> evictions = new ArrayList<>();
+    private SessionManager sessionManager;
+
+    @BeforeEach
+    void setUp() {
+        SessionConfig config = new SessionConfig();
+        config.setTtlMs(100);
+        config.setMaxSessions(2);
+        sessionManager = new SessionManager(config, meterRegistry, now::get);
+        sessionManager.addEvictionListener((session, reason) -> evictions.add(session.getId() + ":" + reason));
+    }
+
+    @Test
+    void idleSessionsExpire() {
+        sessionManager.addSession("a");
+        sessionManager.addSession("b");
+        now.addAndGet(60);
+        assertTrue(sessionManager.isSessionInitialized("a"));
+
+        now.addAndGet(60);
+        assertFalse(sessionManager.isSessionInitialized("b"));
+        assertEquals(0, sessionManager.evictExpired());
+        now.addAndGet(101);
+        assertEquals(1, sessionManager.evictExpired());
+
+        assertEquals(List.of("b:expired", "a:expired"), evictions);
+        assertEquals(0, sessionManager.size());
+        assertEquals(2.0, meterRegistry.get("mcp.sessions.evicted").tag("reason", "expired").counter().count());
+    }
+
+    @Test
+    void leastRecentlyUsedSessionIsEvictedWhenFull() {
+        sessionManager.addSession("a");
+        now.incrementAndGet();
+        sessionManager.addSession("b");
+        now.incrementAndGet();
+        sessionManager.getSession("a");
+        now.incrementAndGet();
+        sessionManager.addSession("c");
+
+        assertEquals(List.of("b:size"), evictions);
+        assertTrue(sessionManager.isSessionInitialized("a"));
+        assertTrue(sessionManager.isSessionInitialized("c"));
+        assertEquals(2.0, meterRegistry.get("mcp.sessions.active").gauge().value());
+    }
+
+    @Test
+    void endingASessionClosesItsStateAndClientBinding() {
+        McpSession session = sessionManager.addSession("a");
+        AtomicBoolean streamClosed = new AtomicBoolean();
+        AtomicBoolean attributeClosed = new AtomicBoolean();
+        session.register(() -> streamClosed.set(true));
+        session.getAttribute("counters", () -> (AutoCloseable) () -> attributeClosed.set(true));
+        sessionManager.bindClient("127.0.0.1|agent", "a");
+        sessionManager.bindClient("127.0.0.1|other", "missing");
+
+        assertEquals("a", sessionManager.sessionForClient("127.0.0.1|agent"));
+        assertNull(sessionManager.sessionForClient("127.0.0.1|other"));
+        assertTrue(sessionManager.clearSession("a"));
+        assertFalse(sessionManager.clearSession("a"));
+
+        assertTrue(streamClosed.get());
+        assertTrue(attributeClosed.get());
+        assertTrue(session.isClosed());
+        assertNull(sessionManager.sessionForClient("127.0.0.1|agent"));
+        assertEquals(List.of("a:closed"), evictions);
+
+        AtomicBoolean late = new AtomicBoolean();
+        session.register(() -> late.set(true));
+        assertTrue(late.get());
+    }
+
+    @Test
+    void newSessionIdsAreUnique() {
+        assertNotEquals(sessionManager.newSessionId(), sessionManager.newSessionId());
+    }
+}
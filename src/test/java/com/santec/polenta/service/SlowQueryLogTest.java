@@ -0,0 +1,104 @@
+package com.santec.polenta.service;
+
+import com.santec.polenta.config.SlowQueryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryLogTest {
+
+    private SlowQueryConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private SlowQueryLog log;
+
+    @BeforeEach
+    void setUp() {
+        config = new SlowQueryConfig();
+        config.setRecentCapacity(3);
+        config.setSlowestCapacity(2);
+        meterRegistry = new SimpleMeterRegistry();
+        log = new SlowQueryLog(config, meterRegistry);
+    }
+
+    private static SlowQueryLog.Entry entry(String tool, long durationMs) {
+        return new SlowQueryLog.Entry(0, tool, "session-1", "success", TimeUnit.MILLISECONDS.toNanos(durationMs),
+                Map.of(), List.of(), 0, 0, List.of());
+    }
+
+    @Test
+    void callsBelowTheThresholdAreNotLogged() {
+        config.setThresholdMs(60_000);
+
+        log.record("query_data", "session-1", "success", new RequestTimings());
+
+        assertTrue(log.getRecent().isEmpty());
+        assertEquals(0.0, meterRegistry.get("mcp.slow_queries").counter().count());
+    }
+
+    @Test
+    void logsTheCallWithItsFingerprintedStatements() {
+        config.setThresholdMs(0);
+        RequestTimings timings = new RequestTimings();
+        RequestTimings previous = RequestTimings.bind(timings);
+        try {
+            RequestTimings.record("execution", 2_000_000);
+            RequestTimings.recordPrestoQueryId("20261018_000000_00001_abcde");
+            RequestTimings.recordStatement("SELECT * FROM ventas.clientes WHERE ciudad = 'Rosario' LIMIT 100", 7, 4096);
+        } finally {
+            RequestTimings.bind(previous);
+        }
+
+        log.record("query_data", "session-1", "success", timings);
+
+        Map<String, Object> logged = log.getRecent().get(0).toMap();
+        assertEquals("query_data", logged.get("tool"));
+        assertEquals(SlowQueryLog.sessionHash("session-1"), logged.get("session_hash"));
+        assertEquals(12, logged.get("session_hash").toString().length());
+        assertFalse(logged.containsKey("session_id"));
+        assertEquals(List.of("SELECT * FROM ventas.clientes WHERE ciudad = ? LIMIT ?"), logged.get("statements"));
+        assertEquals(Map.of("execution", 2.0), logged.get("stages"));
+        assertEquals(7L, logged.get("rows"));
+        assertEquals(4096L, logged.get("bytes"));
+        assertEquals(List.of("20261018_000000_00001_abcde"), logged.get("presto_query_ids"));
+    }
+
+    @Test
+    void keepsTheMostRecentAndTheSlowest() {
+        log.add(entry("a", 5000));
+        log.add(entry("b", 1200));
+        log.add(entry("c", 1100));
+        log.add(entry("d", 3000));
+        log.add(entry("e", 1000));
+
+        assertEquals(List.of("e", "d", "c"), log.getRecent().stream().map(SlowQueryLog.Entry::tool).toList());
+        assertEquals(List.of("a", "d"), log.getSlowest().stream().map(SlowQueryLog.Entry::tool).toList());
+        assertEquals(5.0, meterRegistry.get("mcp.slow_queries").counter().count());
+
+        log.clear();
+        assertTrue(log.getRecent().isEmpty());
+        assertTrue(log.getSlowest().isEmpty());
+    }
+
+    @Test
+    void concurrentRecordsKeepTheSlowest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            IntStream.rangeClosed(1, 1000).forEach(i -> executor.execute(() -> log.add(entry("t" + i, i))));
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of("t1000", "t999"), log.getSlowest().stream().map(SlowQueryLog.Entry::tool).toList());
+        assertEquals(3, log.getRecent().size());
+    }
+}
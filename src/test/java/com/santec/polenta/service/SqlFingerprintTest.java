@@ -0,0 +1,27 @@
+package com.santec.polenta.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlFingerprintTest {
+
+    @Test
+    void replacesLiteralsAndNormalizesWhitespace() {
+        assertEquals("SELECT * FROM t WHERE id IN (?) AND name = ?",
+                SqlFingerprint.of("SELECT *\n  FROM t WHERE id IN (1, 2,3) AND name = 'O''Brien'"));
+        assertEquals("SELECT amount FROM sales_2024 WHERE amount > ? LIMIT ?",
+                SqlFingerprint.of("SELECT amount FROM sales_2024 WHERE amount > -10.5 LIMIT 100"));
+        assertNull(SqlFingerprint.of(null));
+    }
+
+    @Test
+    void longLiteralsAndListsDoNotOverflowTheStack() {
+        String literal = "'" + "x".repeat(1_000_000) + "''" + "y".repeat(1_000) + "'";
+        assertEquals("SELECT * FROM t WHERE note = ? AND id = ?",
+                SqlFingerprint.of("SELECT * FROM t WHERE note = " + literal + " AND id = 7"));
+
+        String list = "1" + ", 1".repeat(200_000);
+        assertEquals("SELECT * FROM t WHERE id IN (?)", SqlFingerprint.of("SELECT * FROM t WHERE id IN (" + list + ")"));
+    }
+}
@@ -1,10 +1,19 @@
 package com.santec.polenta.service;
 
+import opennlp.tools.tokenize.TokenizerME;
+import opennlp.tools.tokenize.TokenizerModel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
 
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class TokenizerServiceTest {
@@ -21,5 +30,42 @@ class TokenizerServiceTest {
     void testServiceInitialization() {
         assertNotNull(tokenizerService);
     }
-}
 
+    @Test
+    void fastPathMatchesTheModelForPlainQueries() throws Exception {
+        tokenizerService.init();
+        TokenizerME model;
+        try (InputStream in = getClass().getResourceAsStream("/en-token.bin")) {
+            model = new TokenizerME(new TokenizerModel(in));
+        }
+        for (String query : List.of("show sample data from customers", "lista de vendedores",
+                "search for sales_2023", "  top 10   rows of orders ", "contar registros en la tabla clientes")) {
+            assertArrayEquals(model.tokenize(query), tokenizerService.tokenize(query), query);
+        }
+    }
+
+    @Test
+    void punctuatedQueriesUseTheModel() {
+        tokenizerService.init();
+        assertArrayEquals(new String[]{"What", "tables", "are", "there", "?"}, tokenizerService.tokenize("What tables are there?"));
+    }
+
+    @Test
+    void tokenizesConcurrently() throws Exception {
+        tokenizerService.init();
+        String query = "Lista de países, por favor.";
+        String[] expected = tokenizerService.tokenize(query);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> tokenizerService.tokenize(query)));
+            }
+            for (Future<String[]> future : futures) {
+                assertArrayEquals(expected, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.santec.polenta.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.model.mcp.McpTool;
+import com.santec.polenta.service.tool.McpToolHandler;
+import com.santec.polenta.service.tool.ToolHandler;
+import com.santec.polenta.service.tool.ToolHandlers;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolRegistryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ToolRegistry toolRegistry = new ToolRegistry(objectMapper, ToolHandlers.all());
+
+    @Test
+    void indexesToolsByName() {
+        for (McpTool tool : toolRegistry.getTools()) {
+            assertSame(tool, toolRegistry.getTool(tool.getName()));
+        }
+        assertNull(toolRegistry.getTool("drop_database"));
+        assertThrows(UnsupportedOperationException.class, () -> toolRegistry.getTools().clear());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void preSerializedToolsMatchTheDefinitions() throws Exception {
+        String json = objectMapper.writeValueAsString(Map.of("tools", toolRegistry.getToolsJson()));
+
+        List<Map<String, Object>> tools = (List<Map<String, Object>>) objectMapper.readValue(json, Map.class).get("tools");
+        assertEquals(toolRegistry.getTools().size(), tools.size());
+        assertEquals("query_data", tools.get(0).get("name"));
+        assertNotNull(tools.get(0).get("input_schema"));
+        assertEquals(toolRegistry.getToolsEtag(), new ToolRegistry(objectMapper, ToolHandlers.all()).getToolsEtag());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void docsAreBuiltFromTheToolDefinitions() throws Exception {
+        List<Map<String, Object>> docs = objectMapper.readValue(objectMapper.writeValueAsString(toolRegistry.getDocsJson()), List.class);
+
+        assertEquals(toolRegistry.getTools().size(), docs.size());
+        assertEquals("Data Lake Team", docs.get(0).get("author"));
+        assertNotEquals(toolRegistry.getToolsEtag(), toolRegistry.getDocsEtag());
+    }
+
+    @Test
+    void everyToolHasAHandler() {
+        for (McpTool tool : toolRegistry.getTools()) {
+            assertSame(tool, toolRegistry.getHandler(tool.getName()).definition());
+        }
+        assertNotNull(toolRegistry.getTool("metadata"));
+        assertNull(toolRegistry.getHandler("drop_database"));
+    }
+
+    @Test
+    void etagsDoNotDependOnMapIterationOrder() {
+        ToolRegistry ascending = new ToolRegistry(objectMapper, List.of(new OrderedTool("schema", "table")));
+        ToolRegistry descending = new ToolRegistry(objectMapper, List.of(new OrderedTool("table", "schema")));
+
+        assertEquals(ascending.getToolsEtag(), descending.getToolsEtag());
+        assertEquals(ascending.getDocsEtag(), descending.getDocsEtag());
+        assertTrue(ascending.getToolsJson().rawValue().toString().indexOf("\"schema\"")
+                < ascending.getToolsJson().rawValue().toString().indexOf("\"table\""));
+        assertEquals(toolRegistry.getDocsEtag(), new ToolRegistry(objectMapper, ToolHandlers.all()).getDocsEtag());
+    }
+
+    @McpToolHandler(name = "ordered")
+    private static final class OrderedTool implements ToolHandler {
+        private final String[] properties;
+
+        OrderedTool(String... properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public McpTool definition() {
+            Map<String, Object> schemaProperties = new LinkedHashMap<>();
+            for (String property : properties) {
+                schemaProperties.put(property, Map.of("type", "string"));
+            }
+            return new McpTool("ordered", "", Map.of("type", "object", "properties", schemaProperties), Map.of());
+        }
+
+        @Override
+        public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+            return Map.of();
+        }
+    }
+
+    @Test
+    void rejectsHandlersWithoutAMatchingAnnotation() {
+        ToolHandler unannotated = new ToolHandler() {
+            @Override
+            public McpTool definition() {
+                return new McpTool("unannotated", "", Map.of(), Map.of());
+            }
+
+            @Override
+            public Map<String, Object> call(Map<String, Object> arguments, RowSink sink) {
+                return Map.of();
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> new ToolRegistry(objectMapper, List.of(unannotated)));
+        assertThrows(IllegalStateException.class, () -> new ToolRegistry(objectMapper,
+                List.of(ToolHandlers.all().get(0), ToolHandlers.all().get(0))));
+    }
+}
@@ -0,0 +1,155 @@
+package com.santec.polenta.service.tool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.santec.polenta.config.ToolsConfig;
+import com.santec.polenta.service.McpTracing;
+import com.santec.polenta.service.MetadataCacheTool;
+import com.santec.polenta.service.QueryIntelligenceService;
+import com.santec.polenta.service.RequestTimings;
+import com.santec.polenta.service.ToolRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ToolExecutorTest {
+
+    private final QueryIntelligenceService queryIntelligenceService = mock(QueryIntelligenceService.class);
+    private final MetadataCacheTool metadataCacheTool = mock(MetadataCacheTool.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ToolExecutor toolExecutor;
+
+    @BeforeEach
+    void setUp() {
+        ToolsConfig toolsConfig = new ToolsConfig();
+        ToolsConfig.Bulkhead bulkhead = new ToolsConfig.Bulkhead();
+        bulkhead.setMaxConcurrency(1);
+        bulkhead.setQueueCapacity(0);
+        toolsConfig.getBulkheads().put("query_data", bulkhead);
+        ToolRegistry toolRegistry = new ToolRegistry(new ObjectMapper(),
+                ToolHandlers.all(queryIntelligenceService, metadataCacheTool));
+        toolExecutor = new ToolExecutor(toolRegistry, toolsConfig, meterRegistry, McpTracing.NOOP);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        toolExecutor.shutdown();
+    }
+
+    @Test
+    void saturatedToolIsRejectedWhileOthersKeepRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(queryIntelligenceService.processNaturalQuery(anyString(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return new HashMap<>(Map.of("type", "query"));
+        });
+        when(metadataCacheTool.schemas()).thenReturn(Set.of("default"));
+
+        CompletableFuture<Map<String, Object>> slow = CompletableFuture.supplyAsync(() -> call("query_data", Map.of("query", "SELECT 1")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ToolBusyException.class, () -> toolExecutor.execute("query_data", Map.of("query", "SELECT 2"), null));
+        assertEquals(Set.of("default"), toolExecutor.execute("schemas", Map.of(), null).get("schemas"));
+        assertEquals(1.0, meterRegistry.get("mcp.tools.rejected").tag("tool", "query_data").counter().count());
+        assertEquals(1.0, meterRegistry.get("mcp.tools.active").tag("tool", "query_data").gauge().value());
+
+        release.countDown();
+        assertEquals("query", slow.get(5, TimeUnit.SECONDS).get("type"));
+    }
+
+    @Test
+    void runsTheHandlerOnTheToolExecutor() throws Exception {
+        when(metadataCacheTool.columns("default", "customers")).thenAnswer(invocation ->
+                List.of(Thread.currentThread().getName()));
+
+        Map<String, Object> result = toolExecutor.execute("columns", Map.of("schema", "default", "table", "customers"), null);
+
+        assertTrue(((List<?>) result.get("columns")).get(0).toString().startsWith("mcp-tool-columns-"));
+    }
+
+    @Test
+    void runsOnTheCallerWithinTheSameLimits() throws Exception {
+        toolExecutor.shutdown();
+        ToolsConfig toolsConfig = new ToolsConfig();
+        toolsConfig.setRunOnCaller(true);
+        ToolsConfig.Bulkhead bulkhead = new ToolsConfig.Bulkhead();
+        bulkhead.setMaxConcurrency(1);
+        bulkhead.setQueueCapacity(0);
+        toolsConfig.getBulkheads().put("query_data", bulkhead);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        toolExecutor = new ToolExecutor(new ToolRegistry(new ObjectMapper(),
+                ToolHandlers.all(queryIntelligenceService, metadataCacheTool)), toolsConfig, registry, McpTracing.NOOP);
+        CountDownLatch started = new CountDownLatch(1);
+        when(queryIntelligenceService.processNaturalQuery(anyString(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return new HashMap<>(Map.of("type", "query", "thread", Thread.currentThread().getName()));
+        });
+
+        CompletableFuture<Map<String, Object>> slow = new CompletableFuture<>();
+        Thread caller = new Thread(() -> slow.complete(call("query_data", Map.of("query", "SELECT 1"))), "caller");
+        caller.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ToolBusyException.class, () -> toolExecutor.execute("query_data", Map.of("query", "SELECT 2"), null));
+        assertEquals(1.0, registry.get("mcp.tools.rejected").tag("tool", "query_data").counter().count());
+        assertEquals(1.0, registry.get("mcp.tools.active").tag("tool", "query_data").gauge().value());
+        assertEquals(0.0, registry.get("mcp.tools.queued").tag("tool", "query_data").gauge().value());
+
+        release.countDown();
+        assertEquals("caller", slow.get(5, TimeUnit.SECONDS).get("thread"));
+        assertEquals(0.0, registry.get("mcp.tools.active").tag("tool", "query_data").gauge().value());
+    }
+
+    @Test
+    void bindsTheCallerTimingsToTheWorker() throws Exception {
+        when(metadataCacheTool.schemas()).thenAnswer(invocation -> {
+            RequestTimings.record("metadata_lookup", 5_000_000);
+            return Set.of("default");
+        });
+        RequestTimings timings = new RequestTimings();
+        RequestTimings previous = RequestTimings.bind(timings);
+        try {
+            toolExecutor.execute("schemas", Map.of(), null);
+        } finally {
+            RequestTimings.bind(previous);
+        }
+
+        assertEquals(List.of("tool_queue", "metadata_lookup"), List.copyOf(timings.getStages().keySet()));
+        assertEquals(5_000_000L, timings.getStages().get("metadata_lookup"));
+    }
+
+    @Test
+    void propagatesTheToolException() {
+        when(metadataCacheTool.metadata(null, null)).thenThrow(new RuntimeException("Error getting metadata: boom"));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> toolExecutor.execute("metadata", Map.of(), null));
+        assertEquals("Error getting metadata: boom", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> toolExecutor.execute("drop_database", Map.of(), null));
+    }
+
+    private Map<String, Object> call(String toolName, Map<String, Object> arguments) {
+        try {
+            return toolExecutor.execute(toolName, arguments, null);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
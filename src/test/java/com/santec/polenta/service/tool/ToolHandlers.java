@@ -0,0 +1,37 @@
+package com.santec.polenta.service.tool;
+
+import com.santec.polenta.config.ToolsConfig;
+import com.santec.polenta.service.MetadataCacheTool;
+import com.santec.polenta.service.QueryIntelligenceService;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * The tool handlers of the server, in {@code tools/list} order, backed by the given services.
+ */
+public final class ToolHandlers {
+
+    private ToolHandlers() {
+    }
+
+    public static List<ToolHandler> all() {
+        return all(mock(QueryIntelligenceService.class), mock(MetadataCacheTool.class));
+    }
+
+    public static List<ToolHandler> all(QueryIntelligenceService queryIntelligenceService,
+                                        MetadataCacheTool metadataCacheTool) {
+        return List.of(
+                new QueryDataTool(queryIntelligenceService, new ToolsConfig()),
+                new ListTablesTool(queryIntelligenceService),
+                new DescribeTableTool(queryIntelligenceService),
+                new SampleDataTool(queryIntelligenceService),
+                new SearchTablesTool(queryIntelligenceService),
+                new GetSuggestionsTool(queryIntelligenceService),
+                new SchemasTool(metadataCacheTool),
+                new TablesTool(metadataCacheTool),
+                new ColumnsTool(metadataCacheTool),
+                new MetadataTool(metadataCacheTool));
+    }
+}